@@ -34,15 +34,34 @@ android {
 
 dependencies {
 
+    implementation(project(":ledger"))
     implementation(platform("com.google.firebase:firebase-bom:34.6.0"))
-    implementation("com.google.firebase:firebase-analytics")
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
+    implementation(libs.fragment)
     implementation(libs.constraintlayout)
+    implementation(libs.recyclerview)
+    implementation(libs.work.runtime)
     implementation(libs.firebase.firestore)
     implementation(libs.firebase.auth)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
-}
\ No newline at end of file
+}
+// FirebaseHelper refuses to start without a valid team time zone, so catch a bad one here rather than on a tablet.
+val checkTeamTimeZone by tasks.registering {
+    val strings = file("src/main/res/values/strings.xml")
+    inputs.file(strings)
+    doLast {
+        val zone = Regex("""<string name="team_time_zone"[^>]*>([^<]*)</string>""")
+            .find(strings.readText())?.groupValues?.get(1)?.trim().orEmpty()
+        if (zone !in java.util.TimeZone.getAvailableIDs()) {
+            throw GradleException("team_time_zone in $strings must be an IANA time zone id, not \"$zone\"")
+        }
+    }
+}
+
+tasks.named("preBuild") {
+    dependsOn(checkTeamTimeZone)
+}
@@ -0,0 +1,83 @@
+package com.example.crevolutionattendance;
+
+import android.util.Log;
+
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/*
+ * A kiosk runs one activity all day. This walks it through thousands of sign-in -> punch screen -> back
+ * round trips (what every PIN sign-in and punch does) and checks that nothing accumulates: the back stack
+ * never goes past one entry, only one screen is ever attached, old punch screens are collected, and the
+ * heap after GC ends up where it started.
+ *
+ * Navigation only; nothing is written to Firestore, so no emulator is needed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class KioskMemoryTest {
+    private static final String TAG = "KioskMemoryTest";
+
+    private static final int WARMUP_PUNCHES = 200;
+    private static final int PUNCHES = 3000;
+    // Allowed heap growth over the run; a leaked fragment with its view tree is tens of KB, so 3000 would be far over.
+    private static final long MAX_GROWTH_BYTES = 2L * 1024 * 1024;
+
+    @Test
+    public void heapStaysFlatOverThousandsOfPunches() throws Exception {
+        try (ActivityScenario<SignInActivity> scenario = ActivityScenario.launch(SignInActivity.class)) {
+            AtomicReference<WeakReference<Fragment>> firstPunchScreen = new AtomicReference<>();
+
+            for (int i = 0; i < WARMUP_PUNCHES; i++) punchRoundTrip(scenario, null);
+            long before = usedHeapAfterGc();
+
+            punchRoundTrip(scenario, firstPunchScreen);
+            for (int i = 1; i < PUNCHES; i++) punchRoundTrip(scenario, null);
+            long after = usedHeapAfterGc();
+
+            Log.i(TAG, "heap before " + before / 1024 + " KB, after " + after / 1024 + " KB over " + PUNCHES + " punches");
+            assertNull("punch screen still reachable after returning to sign-in", firstPunchScreen.get().get());
+            assertTrue("heap grew " + (after - before) / 1024 + " KB", after - before < MAX_GROWTH_BYTES);
+        }
+    }
+
+    // One student: open the punch screen (as a kiosk PIN sign-in does), then go back (as a punch or return does).
+    private static void punchRoundTrip(ActivityScenario<SignInActivity> scenario,
+                                       AtomicReference<WeakReference<Fragment>> keep) {
+        scenario.onActivity(kiosk -> {
+            FragmentManager fragments = kiosk.getSupportFragmentManager();
+
+            kiosk.showMain("memory-test");
+            fragments.executePendingTransactions();
+            assertEquals(1, fragments.getBackStackEntryCount());
+            Fragment shown = fragments.findFragmentById(R.id.kiosk);
+            assertTrue(shown instanceof MainFragment);
+            if (keep != null) keep.set(new WeakReference<>(shown));
+
+            kiosk.showSignIn();
+            fragments.executePendingTransactions();
+            assertEquals(0, fragments.getBackStackEntryCount());
+            assertTrue(fragments.findFragmentById(R.id.kiosk) instanceof SignInFragment);
+            assertEquals(1, fragments.getFragments().size());
+        });
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
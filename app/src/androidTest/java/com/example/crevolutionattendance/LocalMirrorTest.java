@@ -0,0 +1,115 @@
+package com.example.crevolutionattendance;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/*
+ * The report queries against an in-memory mirror. Plain SQLite on the device; no Firestore or emulator.
+ * 2026-10-12 and 2026-10-05 are Mondays.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalMirrorTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private LocalMirror mirror;
+
+    @Before
+    public void open() {
+        mirror = new LocalMirror(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void close() {
+        mirror.close();
+    }
+
+    private void put(String uid, String date, long millis) {
+        mirror.apply(Collections.emptyMap(),
+                Collections.singletonList(new LocalMirror.MirroredDay(uid, date, millis)), Collections.emptyMap());
+    }
+
+    @Test
+    public void totalsAreRangedJoinedAndSortedByHours() {
+        Map<String, String> names = new HashMap<>();
+        names.put("a", "Ada");
+        names.put("b", "Bo");
+        mirror.apply(names, new ArrayList<>(), Collections.emptyMap());
+        put("a", "2026-09-30", 2 * HOUR);
+        put("a", "2026-10-01", 3 * HOUR);
+        put("b", "2026-10-01", 6 * HOUR);
+        put("b", "2026-10-02", 0);
+        put("c", "2026-10-03", HOUR);
+        put("a", "2026-11-01", 9 * HOUR);
+
+        List<MemberTotal> totals = mirror.totals("2026-09-01", "2026-11-01");
+        assertEquals(3, totals.size());
+        assertEquals("Bo", totals.get(0).username);
+        assertEquals(6 * HOUR, totals.get(0).totalMillis);
+        assertEquals(1, totals.get(0).days);
+        assertEquals("Ada", totals.get(1).username);
+        assertEquals(5 * HOUR, totals.get(1).totalMillis);
+        assertEquals(2, totals.get(1).days);
+        // No profile mirrored yet: falls back to the uid.
+        assertEquals("c", totals.get(2).username);
+    }
+
+    @Test
+    public void laterPagesReplaceEarlierCopies() {
+        put("a", "2026-10-01", HOUR);
+        put("a", "2026-10-01", 4 * HOUR);
+        assertEquals(Collections.singletonList(new HistoryDay("2026-10-01", 4 * HOUR)),
+                mirror.days("a", "2026-10-01", "2026-10-02"));
+    }
+
+    @Test
+    public void cursorsStartUnsetAndAdvanceWithTheirPage() {
+        assertEquals(-1, mirror.cursor(LocalMirror.CURSOR_DAYS));
+        Map<String, Long> cursors = new HashMap<>();
+        cursors.put(LocalMirror.CURSOR_DAYS, 1234L);
+        mirror.apply(Collections.emptyMap(), new ArrayList<>(), cursors);
+        assertEquals(1234L, mirror.cursor(LocalMirror.CURSOR_DAYS));
+        assertEquals(-1, mirror.cursor(LocalMirror.CURSOR_MEMBERS));
+    }
+
+    @Test
+    public void weeklyTotalsAreKeyedByMonday() {
+        put("a", "2026-10-05", HOUR);
+        put("a", "2026-10-11", HOUR);
+        put("a", "2026-10-12", 2 * HOUR);
+        put("a", "2026-10-18", HOUR);
+
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("2026-10-05", 2 * HOUR);
+        expected.put("2026-10-12", 3 * HOUR);
+        assertEquals(expected, mirror.weeklyTotals("a", "2026-10-01", "2026-11-01"));
+    }
+
+    @Test
+    public void streaksCountConsecutiveWeeksEndingThisWeekOrLast() {
+        for (String date : Arrays.asList("2026-10-13", "2026-10-06", "2026-09-29", "2026-09-15")) put("a", date, HOUR);
+        for (String date : Arrays.asList("2026-10-08", "2026-10-01")) put("b", date, HOUR);
+        put("c", "2026-09-22", HOUR);
+        put("d", "2026-10-18", 0);
+
+        Map<String, Integer> streaks = mirror.weekStreaks("2026-10-18");
+        assertEquals(Integer.valueOf(3), streaks.get("a"));
+        assertEquals(Integer.valueOf(2), streaks.get("b"));
+        assertFalse(streaks.containsKey("c"));
+        assertFalse(streaks.containsKey("d"));
+    }
+}
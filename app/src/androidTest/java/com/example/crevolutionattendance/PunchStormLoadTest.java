@@ -0,0 +1,316 @@
+package com.example.crevolutionattendance;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.crevolutionattendance.ledger.PackedShifts;
+import com.example.crevolutionattendance.ledger.PunchLog;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.MemoryCacheSettings;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/*
+ * Meeting-start punch storm against the Firestore emulator.
+ *
+ * Every simulated tablet is its own FirebaseApp (own Firestore client and connection) with its own
+ * FirebaseHelper, and applies its students' punches one at a time through syncPunches(), the same
+ * event write and transaction path the sync stage uses. Students arrive in the configured pattern and clock in,
+ * then all clock out in a second storm, each at the next tablet along from the one they clocked in at (with more
+ * than one tablet), so clock-outs follow pointers and day docs another client wrote. Afterwards every student's data is checked: exactly one closed shift,
+ * matching day total and rollups, no open pointer, not left in the presence index, and two punch events
+ * that merge to that same shift.
+ *
+ * Skipped unless the emulator host is passed. All other arguments are optional:
+ *      firebase emulators:start --only firestore
+ *      ./gradlew connectedAndroidTest \
+ *          -Pandroid.testInstrumentationRunnerArguments.class=com.example.crevolutionattendance.PunchStormLoadTest \
+ *          -Pandroid.testInstrumentationRunnerArguments.firestoreEmulatorHost=10.0.2.2 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadStudents=60 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadTablets=3 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadWindowSec=120 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadPattern=uniform|poisson|simultaneous \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadTimeScale=0.1
+ * loadTimeScale compresses the window (0.1 plays a 2 minute storm in 12 seconds).
+ * The report is logged under PunchStormLoadTest and written to the app's cache dir as punch-storm-<time>.csv.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PunchStormLoadTest {
+    private static final String TAG = "PunchStormLoadTest";
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private Context context;
+    private String host;
+    private int students, tablets;
+    private long windowMillis;
+    private String pattern;
+    private double timeScale;
+
+    @Before
+    public void setUp() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        host = args.getString("firestoreEmulatorHost");
+        assumeTrue("No firestoreEmulatorHost argument", host != null);
+
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        students = Integer.parseInt(args.getString("loadStudents", "60"));
+        tablets = Integer.parseInt(args.getString("loadTablets", "3"));
+        windowMillis = Long.parseLong(args.getString("loadWindowSec", "120")) * 1000;
+        pattern = args.getString("loadPattern", "uniform");
+        timeScale = Double.parseDouble(args.getString("loadTimeScale", "0.1"));
+    }
+
+    @Test
+    public void punchStorm() throws Exception {
+        List<FirebaseHelper> helpers = new ArrayList<>();
+        for (int t = 0; t < tablets; t++) helpers.add(new FirebaseHelper(context, tabletApp(t)));
+        FirebaseFirestore db = FirebaseFirestore.getInstance(tabletApp(0));
+
+        String run = "storm-" + System.currentTimeMillis();
+        List<String> uids = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < students; i++) {
+            String uid = run + "-" + i;
+            uids.add(uid);
+            batch.set(db.collection("LoggedHours").document(uid), FirebaseHelper.newProfileFields("Student " + i));
+        }
+        Tasks.await(batch.commit(), 60, TimeUnit.SECONDS);
+
+        // Recording on for the run: FirebaseHelper's transaction stats feed the same registry.
+        Metrics.setEnabled(true);
+        Metrics.reset();
+
+        Phase in = storm(helpers, uids, Punch.Type.IN, 0, new Random(1));
+        Phase out = storm(helpers, uids, Punch.Type.OUT, 1, new Random(2));
+
+        List<String> problems = verify(db, helpers.get(0), uids);
+        String report = report(in, out, problems);
+        Log.i(TAG, report);
+        Metrics.setEnabled(false);
+
+        assertEquals("failed punches", 0, in.failures.get() + out.failures.get());
+        assertTrue(problems.toString(), problems.isEmpty());
+    }
+
+    // Results of one storm (all clock-ins, or all clock-outs).
+    private static final class Phase {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicInteger failures = new AtomicInteger();
+        long wallMillis;
+        int punches;
+    }
+
+    /*
+     * Plays one storm: each student punches at their arrival offset on tablet (student + tabletOffset) % tablets.
+     * Latency is from the scheduled arrival to the committed transaction, so time spent queued
+     * behind other students on the same tablet counts, as it would for a real kiosk.
+     */
+    private Phase storm(List<FirebaseHelper> helpers, List<String> uids, Punch.Type type, int tabletOffset,
+                        Random random) throws Exception {
+        Phase phase = new Phase();
+        phase.punches = uids.size();
+        long[] offsets = arrivals(uids.size(), random);
+
+        List<ScheduledExecutorService> tabletThreads = new ArrayList<>();
+        for (int t = 0; t < helpers.size(); t++) tabletThreads.add(Executors.newSingleThreadScheduledExecutor());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < uids.size(); i++) {
+            int tablet = (i + tabletOffset) % helpers.size();
+            FirebaseHelper helper = helpers.get(tablet);
+            String uid = uids.get(i);
+            long due = start + TimeUnit.MILLISECONDS.toNanos(offsets[i]);
+
+            tabletThreads.get(tablet).schedule(() -> {
+                try {
+                    Punch punch = Punch.create(uid, type, System.currentTimeMillis());
+                    Tasks.await(helper.syncPunches(Collections.singletonList(punch)), 60, TimeUnit.SECONDS);
+                    phase.latency.record((System.nanoTime() - due) / 1000);
+                } catch (Exception e) {
+                    Log.w(TAG, type + " failed for " + uid, e);
+                    phase.failures.incrementAndGet();
+                }
+            }, offsets[i], TimeUnit.MILLISECONDS);
+        }
+
+        for (ExecutorService thread : tabletThreads) {
+            thread.shutdown();
+            assertTrue("storm timed out", thread.awaitTermination(10, TimeUnit.MINUTES));
+        }
+        phase.wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return phase;
+    }
+
+    // Arrival offsets in (scaled) milliseconds for the configured pattern.
+    private long[] arrivals(int count, Random random) {
+        long window = (long) (windowMillis * timeScale);
+        long[] offsets = new long[count];
+        double mean = window / (double) count;
+        double t = 0;
+        for (int i = 0; i < count; i++) {
+            switch (pattern) {
+                case "simultaneous":
+                    offsets[i] = 0;
+                    break;
+                case "poisson":
+                    t += -Math.log(1 - random.nextDouble()) * mean;
+                    offsets[i] = (long) t;
+                    break;
+                default:
+                    offsets[i] = (long) (random.nextDouble() * window);
+            }
+        }
+        return offsets;
+    }
+
+    // Checks every student's data after both storms; returns one line per problem found.
+    private List<String> verify(FirebaseFirestore db, FirebaseHelper helper, List<String> uids) throws Exception {
+        List<String> problems = new ArrayList<>();
+        DocumentSnapshot presence = Tasks.await(db.collection("Presence").document("team").get());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> present = (Map<String, Object>) presence.get("present");
+
+        for (String uid : uids) {
+            DocumentSnapshot user = Tasks.await(db.collection("LoggedHours").document(uid).get());
+            if (user.get("openShift") != null) problems.add(uid + ": still has an open shift");
+            if (present != null && present.containsKey(uid)) problems.add(uid + ": still in presence index");
+
+            QuerySnapshot days = Tasks.await(user.getReference().collection("Days").get());
+            long shiftMillis = 0, dayMillis = 0;
+            int shiftCount = 0;
+            for (DocumentSnapshot day : days.getDocuments()) {
+                Long total = day.getLong("totalMillis");
+                dayMillis += total == null ? 0 : total;
+                Blob packed = day.getBlob("packedShifts");
+                if (packed != null) {
+                    int count = PackedShifts.count(packed.toBytes());
+                    long[] ins = new long[count];
+                    long[] outs = new long[count];
+                    PackedShifts.decode(packed.toBytes(), helper.dayStartFromKey(day.getId()), ins, outs);
+                    if (total == null || ShiftLedger.closedMillis(ins, outs, count) != total) {
+                        problems.add(uid + ": packed shifts on " + day.getId() + " don't add up to " + total);
+                    }
+                }
+                for (DocumentSnapshot shift : Tasks.await(day.getReference().collection("Shifts").get()).getDocuments()) {
+                    Long inMillis = shift.getLong("inMillis");
+                    Long outMillis = shift.getLong("outMillis");
+                    if (outMillis == null) {
+                        problems.add(uid + ": shift " + shift.getId() + " never closed");
+                        continue;
+                    }
+                    shiftCount++;
+                    shiftMillis += outMillis - inMillis;
+                }
+            }
+            // A storm crossing midnight would legitimately produce two pieces.
+            if (shiftCount < 1 || shiftCount > 2) problems.add(uid + ": " + shiftCount + " shifts (lost or duplicated)");
+            if (Math.abs(shiftMillis - dayMillis) > shiftCount) {
+                problems.add(uid + ": day totals " + dayMillis + " != shifts " + shiftMillis);
+            }
+
+            // The punch events from every tablet, merged, must describe the same single closed shift.
+            PunchLog log = Tasks.await(helper.loadPunchLog(uid, 0, Long.MAX_VALUE));
+            long[] ins = new long[log.maxShifts()];
+            long[] outs = new long[log.maxShifts()];
+            int merged = log.shifts(ins, outs);
+            if (log.size() != 2) problems.add(uid + ": " + log.size() + " punch events");
+            if (merged != 1 || outs[0] == ShiftLedger.OPEN) {
+                problems.add(uid + ": punch events merge to " + merged + " shifts");
+            } else if (Math.abs((outs[0] - ins[0]) - shiftMillis) > shiftCount) {
+                problems.add(uid + ": punch events give " + (outs[0] - ins[0]) + " ms, shifts " + shiftMillis);
+            }
+
+            // Each period's rollups (one week, or two if midnight fell on a week boundary) add up to the days.
+            Map<String, Long> periods = new HashMap<>();
+            for (DocumentSnapshot rollup : Tasks.await(user.getReference().collection("Rollups").get()).getDocuments()) {
+                Long total = rollup.getLong("totalMillis");
+                periods.merge(String.valueOf(rollup.getString("period")), total == null ? 0 : total, Long::sum);
+            }
+            for (String period : new String[]{"week", "month", "season"}) {
+                Long total = periods.get(period);
+                if (total == null || total != dayMillis) {
+                    problems.add(uid + ": " + period + " rollups = " + total + ", days = " + dayMillis);
+                }
+            }
+            if (shiftMillis > HOUR) problems.add(uid + ": implausible shift length " + shiftMillis);
+        }
+        return problems;
+    }
+
+    private String report(Phase in, Phase out, List<String> problems) throws Exception {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "students=%d tablets=%d window=%ds pattern=%s timeScale=%.2f%n",
+                students, tablets, windowMillis / 1000, pattern, timeScale));
+        appendPhase(text, "clock-in", in);
+        appendPhase(text, "clock-out", out);
+        for (String line : Metrics.summary()) text.append(line).append('\n');
+        text.append("problems=").append(problems.size()).append('\n');
+        for (String problem : problems) text.append("  ").append(problem).append('\n');
+
+        File file = new File(context.getCacheDir(), "punch-storm-" + System.currentTimeMillis() + ".csv");
+        try (Writer csv = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            Metrics.writeCsv(csv);
+        }
+        text.append("metrics csv: ").append(file.getAbsolutePath());
+        return text.toString();
+    }
+
+    private static void appendPhase(StringBuilder text, String name, Phase phase) {
+        double throughput = phase.punches * 1000.0 / Math.max(1, phase.wallMillis);
+        text.append(String.format(Locale.ROOT,
+                "%s: %d punches in %d ms (%.1f/s), p50=%d ms p99=%d ms max=%d ms, failures=%d%n",
+                name, phase.punches, phase.wallMillis, throughput, phase.latency.valueAt(0.5) / 1000,
+                phase.latency.valueAt(0.99) / 1000, phase.latency.max() / 1000, phase.failures.get()));
+    }
+
+    private FirebaseApp tabletApp(int index) {
+        String name = "load-tablet-" + index;
+        try {
+            return FirebaseApp.getInstance(name);
+        } catch (IllegalStateException e) {
+            FirebaseApp app = FirebaseApp.initializeApp(context, FirebaseApp.initializeApp(context).getOptions(), name);
+            FirebaseFirestore firestore = FirebaseFirestore.getInstance(app);
+            firestore.useEmulator(host, 8080);
+            // Memory cache only, so every tablet starts cold like a fresh kiosk.
+            firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setLocalCacheSettings(MemoryCacheSettings.newBuilder().build())
+                    .build());
+            return app;
+        }
+    }
+}
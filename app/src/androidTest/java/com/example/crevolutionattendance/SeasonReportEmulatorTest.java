@@ -0,0 +1,123 @@
+package com.example.crevolutionattendance;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/*
+ * Runs the season report against the Firestore emulator. Skipped unless the emulator host is passed in:
+ *      firebase emulators:start --only firestore
+ *      ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.firestoreEmulatorHost=10.0.2.2
+ */
+@RunWith(AndroidJUnit4.class)
+public class SeasonReportEmulatorTest {
+    private static final String APP_NAME = "season-report-test";
+
+    private FirebaseFirestore db;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        String host = InstrumentationRegistry.getArguments().getString("firestoreEmulatorHost");
+        assumeTrue("No firestoreEmulatorHost argument", host != null);
+
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance(APP_NAME);
+        } catch (IllegalStateException e) {
+            app = FirebaseApp.initializeApp(context, FirebaseApp.initializeApp(context).getOptions(), APP_NAME);
+            FirebaseFirestore.getInstance(app).useEmulator(host, 8080);
+        }
+        db = FirebaseFirestore.getInstance(app);
+    }
+
+    @Test
+    public void exportSumsSeasonDaysOnly() throws Exception {
+        String uid = "report-" + System.nanoTime();
+        WriteBatch batch = db.batch();
+        batch.set(db.collection("LoggedHours").document(uid), profile("Report Tester"));
+        batch.set(day(uid, "2026-07-31"), dayFields("2026-07-31", 3_600_000L));     // previous season
+        batch.set(day(uid, "2026-08-01"), dayFields("2026-08-01", 7_200_000L));
+        batch.set(day(uid, "2027-07-31"), dayFields("2027-07-31", 1_800_000L));
+        batch.set(day(uid, "2027-08-01"), dayFields("2027-08-01", 3_600_000L));     // next season
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+
+        File dir = new File(context.getCacheDir(), "report-test");
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<File> summary = new AtomicReference<>();
+        AtomicReference<String> error = new AtomicReference<>();
+
+        new SeasonReport(db).export(2026, dir, Collections.singletonMap(uid, 75.0), true,
+                new SeasonReport.ReportCallback() {
+                    @Override
+                    public void onProgress(int membersDone) {
+                    }
+
+                    @Override
+                    public void onComplete(File summaryFile, File detail) {
+                        summary.set(summaryFile);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String e) {
+                        error.set(e);
+                        done.countDown();
+                    }
+                });
+
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        assertNull(error.get());
+
+        List<String> lines = Files.readAllLines(summary.get().toPath(), StandardCharsets.UTF_8);
+        assertTrue(lines.contains(uid + ",Report Tester,2,2.50,2.5,75"));
+
+        List<String> detail = Files.readAllLines(new File(dir, "season-2026-detail.csv").toPath(), StandardCharsets.UTF_8);
+        assertTrue(detail.contains(uid + ",2026-08-01,7200000,2.0"));
+        assertFalse(detail.contains(uid + ",2026-07-31,3600000,1.0"));
+    }
+
+    private DocumentReference day(String uid, String date) {
+        return db.collection("LoggedHours").document(uid).collection("Days").document(date);
+    }
+
+    private static Map<String, Object> profile(String username) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("username", username);
+        return fields;
+    }
+
+    private static Map<String, Object> dayFields(String date, long millis) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("date", date);
+        fields.put("totalMillis", millis);
+        fields.put("totalShiftTime", Math.round(millis / 360_000.0) / 10.0);
+        return fields;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.crevolutionattendance;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.crevolutionattendance.ledger.TeamLeaderboard;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.MemoryCacheSettings;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/*
+ * Team total contention under a clock-out burst, against the Firestore emulator: one shared counter
+ * document (the baseline) versus FirebaseHelper.TEAM_TOTAL_SHARDS shards.
+ *
+ * Each simulated clock-out is a transaction shaped like applyClockOut's: it reads the student's root doc,
+ * clears a field on it and increments the team total, in the same way FirebaseHelper does (a merge of
+ * FieldValue.increment()s, on TeamLeaderboard.shardOf(uid) in the sharded run). Every student clocks out
+ * at once, spread over several tablets (their own FirebaseApps), with loadInFlight transactions in flight
+ * per tablet. Reported per mode: latency p50/p99/max, throughput, and transaction attempts (over 1 means
+ * contention retries). Both runs must end with the exact team total.
+ *
+ * The emulator runs every write on one machine with no per-document write rate limit, so it understates
+ * what a single hot document costs in production; treat the numbers as a lower bound on the difference.
+ *
+ * Skipped unless the emulator host is passed. All other arguments are optional:
+ *      firebase emulators:start --only firestore
+ *      ./gradlew connectedAndroidTest \
+ *          -Pandroid.testInstrumentationRunnerArguments.class=com.example.crevolutionattendance.TeamTotalsContentionTest \
+ *          -Pandroid.testInstrumentationRunnerArguments.firestoreEmulatorHost=10.0.2.2 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadStudents=120 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadTablets=3 \
+ *          -Pandroid.testInstrumentationRunnerArguments.loadInFlight=8
+ * The report is logged under TeamTotalsContentionTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TeamTotalsContentionTest {
+    private static final String TAG = "TeamTotalsContentionTest";
+    private static final long SHIFT_MILLIS = 2 * 60L * 60L * 1000L;
+
+    private Context context;
+    private String host;
+    private int students, tablets, inFlight;
+
+    @Before
+    public void setUp() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        host = args.getString("firestoreEmulatorHost");
+        assumeTrue("No firestoreEmulatorHost argument", host != null);
+
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        students = Integer.parseInt(args.getString("loadStudents", "120"));
+        tablets = Integer.parseInt(args.getString("loadTablets", "3"));
+        inFlight = Integer.parseInt(args.getString("loadInFlight", "8"));
+    }
+
+    @Test
+    public void shardedVersusSingleDocument() throws Exception {
+        List<FirebaseFirestore> clients = new ArrayList<>();
+        for (int t = 0; t < tablets; t++) clients.add(FirebaseFirestore.getInstance(tabletApp(t)));
+        FirebaseFirestore db = clients.get(0);
+
+        String run = "contention-" + System.currentTimeMillis();
+        List<String> uids = new ArrayList<>();
+        for (int i = 0; i < students; i++) uids.add(run + "-" + i);
+
+        Burst single = burst(clients, run, uids, 1);
+        Burst sharded = burst(clients, run, uids, FirebaseHelper.TEAM_TOTAL_SHARDS);
+
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "students=%d tablets=%d inFlight=%d%n", students, tablets, inFlight));
+        appendBurst(report, "single doc", single);
+        appendBurst(report, FirebaseHelper.TEAM_TOTAL_SHARDS + " shards", sharded);
+        Log.i(TAG, report.toString());
+
+        assertEquals("failed clock-outs", 0, single.failures.get() + sharded.failures.get());
+        long expected = students * SHIFT_MILLIS;
+        assertEquals("single doc total", expected, teamTotal(db, run, 1));
+        assertEquals("sharded total", expected, teamTotal(db, run, FirebaseHelper.TEAM_TOTAL_SHARDS));
+    }
+
+    // Results of one burst.
+    private static final class Burst {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicInteger attempts = new AtomicInteger();
+        long wallMillis;
+        int clockOuts;
+    }
+
+    private CollectionReference counters(FirebaseFirestore db, String run, int shards) {
+        return db.collection("ContentionTest").document(run + "-" + shards).collection("Shards");
+    }
+
+    /*
+     * Every student clocks out at once, through the tablet they belong to. Students start with an open
+     * "shift" (a root doc field), written before the clock starts so setup doesn't count.
+     */
+    private Burst burst(List<FirebaseFirestore> clients, String run, List<String> uids, int shards) throws Exception {
+        FirebaseFirestore db = clients.get(0);
+        String collection = "ContentionStudents-" + run + "-" + shards;
+        WriteBatch batch = db.batch();
+        for (String uid : uids) {
+            batch.set(db.collection(collection).document(uid), Collections.singletonMap("open", true));
+        }
+        Tasks.await(batch.commit(), 60, TimeUnit.SECONDS);
+
+        Burst burst = new Burst();
+        burst.clockOuts = uids.size();
+        List<ExecutorService> tabletThreads = new ArrayList<>();
+        for (int t = 0; t < clients.size(); t++) tabletThreads.add(Executors.newFixedThreadPool(inFlight));
+        CountDownLatch go = new CountDownLatch(1);
+
+        for (int i = 0; i < uids.size(); i++) {
+            int tablet = i % clients.size();
+            FirebaseFirestore client = clients.get(tablet);
+            String uid = uids.get(i);
+            DocumentReference student = client.collection(collection).document(uid);
+            DocumentReference counter = counters(client, run, shards)
+                    .document(String.valueOf(TeamLeaderboard.shardOf(uid, shards)));
+
+            tabletThreads.get(tablet).execute(() -> {
+                try {
+                    go.await();
+                    long started = System.nanoTime();
+                    Tasks.await(client.runTransaction(transaction -> {
+                        burst.attempts.incrementAndGet();
+                        DocumentSnapshot snap = transaction.get(student);
+                        if (!Boolean.TRUE.equals(snap.getBoolean("open"))) return null;
+                        transaction.set(student, Collections.singletonMap("open", false), SetOptions.merge());
+                        transaction.set(counter, counterFields(uid, SHIFT_MILLIS), SetOptions.merge());
+                        return null;
+                    }), 120, TimeUnit.SECONDS);
+                    burst.latency.record((System.nanoTime() - started) / 1000);
+                } catch (Exception e) {
+                    Log.w(TAG, "clock-out failed for " + uid, e);
+                    burst.failures.incrementAndGet();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        go.countDown();
+        for (ExecutorService thread : tabletThreads) {
+            thread.shutdown();
+            assertTrue("burst timed out", thread.awaitTermination(10, TimeUnit.MINUTES));
+        }
+        burst.wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return burst;
+    }
+
+    // The same increments FirebaseHelper.teamShardWrites() makes.
+    private static Map<String, Object> counterFields(String uid, long millis) {
+        Map<String, Object> member = new HashMap<>();
+        member.put("millis", FieldValue.increment(millis));
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("totalMillis", FieldValue.increment(millis));
+        fields.put("members", Collections.singletonMap(uid, member));
+        return fields;
+    }
+
+    private long teamTotal(FirebaseFirestore db, String run, int shards) throws Exception {
+        long total = 0;
+        for (DocumentSnapshot shard : Tasks.await(counters(db, run, shards).get()).getDocuments()) {
+            Long millis = shard.getLong("totalMillis");
+            total += millis == null ? 0 : millis;
+        }
+        return total;
+    }
+
+    private static void appendBurst(StringBuilder text, String name, Burst burst) {
+        double throughput = burst.clockOuts * 1000.0 / Math.max(1, burst.wallMillis);
+        text.append(String.format(Locale.ROOT,
+                "%s: %d clock-outs in %d ms (%.1f/s), p50=%d ms p99=%d ms max=%d ms, attempts=%d (%.2f per clock-out), failures=%d%n",
+                name, burst.clockOuts, burst.wallMillis, throughput, burst.latency.valueAt(0.5) / 1000,
+                burst.latency.valueAt(0.99) / 1000, burst.latency.max() / 1000, burst.attempts.get(),
+                burst.attempts.get() / (double) Math.max(1, burst.clockOuts), burst.failures.get()));
+    }
+
+    private FirebaseApp tabletApp(int index) {
+        String name = "contention-tablet-" + index;
+        try {
+            return FirebaseApp.getInstance(name);
+        } catch (IllegalStateException e) {
+            FirebaseApp app = FirebaseApp.initializeApp(context, FirebaseApp.initializeApp(context).getOptions(), name);
+            FirebaseFirestore firestore = FirebaseFirestore.getInstance(app);
+            firestore.useEmulator(host, 8080);
+            // Memory cache only, so every tablet starts cold like a fresh kiosk.
+            firestore.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setLocalCacheSettings(MemoryCacheSettings.newBuilder().build())
+                    .build());
+            return app;
+        }
+    }
+}
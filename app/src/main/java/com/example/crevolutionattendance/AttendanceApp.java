@@ -0,0 +1,99 @@
+package com.example.crevolutionattendance;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Trace;
+import android.util.Log;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+/*
+ * Owns the process-wide data layer: one FirebaseHelper shared by every screen and worker.
+ *
+ * The helper is built lazily, but process start kicks off a background thread that builds it straight away
+ * (Firebase instances, Firestore settings, punch journal and PIN index off disk), so by the time the sign-in
+ * screen asks for it the work is usually done and the UI thread does not wait.
+ *
+ * Startup is traced: "AttendanceApp.*", "FirebaseHelper.init", "SignInActivity.onCreate" and
+ * "SignInFragment.onViewCreated" show up as sections in Perfetto/systrace, and the sign-in screen calls
+ * reportFullyDrawn() once it can take a PIN. To measure time-to-interactive on a tablet:
+ *      adb shell am force-stop com.example.crevolutionattendance
+ *      adb shell am start -W -n com.example.crevolutionattendance/.SignInActivity
+ *      adb logcat -d | grep "Fully drawn"
+ * The same number is kept in the diagnostics screen as startup.fullyDrawn.us.
+ */
+public class AttendanceApp extends Application {
+    private static final String TAG = "AttendanceApp";
+
+    // Offline cache cap. A season of the whole team's days and shifts is a few MB; this leaves room for history
+    // browsing without letting the cache grow without bound on a shared tablet.
+    private static final long FIRESTORE_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private volatile FirebaseHelper firebaseHelper;
+    // Set once the Firestore settings are applied; a helper that failed to build must not apply them twice.
+    private boolean firestoreConfigured;
+
+    @Override
+    public void onCreate() {
+        Trace.beginSection("AttendanceApp.onCreate");
+        try {
+            super.onCreate();
+            new Thread(this::warmDataLayer, "data-layer-warmup").start();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    // The shared helper, from any context in this process.
+    static FirebaseHelper firebaseHelper(Context context) {
+        return ((AttendanceApp) context.getApplicationContext()).firebaseHelper();
+    }
+
+    FirebaseHelper firebaseHelper() {
+        FirebaseHelper helper = firebaseHelper;
+        if (helper != null) return helper;
+        synchronized (this) {
+            if (firebaseHelper == null) {
+                if (!firestoreConfigured) {
+                    configureFirestore();
+                    firestoreConfigured = true;
+                }
+                Trace.beginSection("FirebaseHelper.init");
+                try {
+                    firebaseHelper = new FirebaseHelper(this);
+                } finally {
+                    Trace.endSection();
+                }
+            }
+            return firebaseHelper;
+        }
+    }
+
+    private void warmDataLayer() {
+        Trace.beginSection("AttendanceApp.warmDataLayer");
+        try {
+            firebaseHelper();
+        } catch (RuntimeException e) {
+            // Nothing on this thread can report it; the sign-in screen hits the same error and shows it.
+            Log.e(TAG, "Could not build the data layer", e);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    // Settings can only be applied before the instance is first used, so this runs once, ahead of the helper.
+    private static void configureFirestore() {
+        Trace.beginSection("AttendanceApp.configureFirestore");
+        try {
+            FirebaseFirestore.getInstance().setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                            .setSizeBytes(FIRESTORE_CACHE_BYTES)
+                            .build())
+                    .build());
+        } finally {
+            Trace.endSection();
+        }
+    }
+}
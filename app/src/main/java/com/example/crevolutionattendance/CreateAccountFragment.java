@@ -0,0 +1,128 @@
+package com.example.crevolutionattendance;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.ImageView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.google.android.material.button.MaterialButton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class CreateAccountFragment extends Fragment {
+
+    private MaterialButton importRosterButton;
+
+    // Lets the admin pick the roster CSV (first name, last name, PIN per line).
+    private final ActivityResultLauncher<String[]> pickRoster =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importRoster);
+
+    public CreateAccountFragment() {
+        super(R.layout.fragment_create_account);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        EditText pinNumber = view.findViewById(R.id.pinNumber);
+        EditText firstName = view.findViewById(R.id.firstName);
+        EditText lastName = view.findViewById(R.id.lastName);
+        MaterialButton createAccountButton = view.findViewById(R.id.createAccountButton);
+        ImageView returnButton = view.findViewById(R.id.returnButton);
+        importRosterButton = view.findViewById(R.id.importRosterButton);
+        SignInActivity kiosk = (SignInActivity) requireActivity();
+
+        createAccountButton.setOnClickListener(v -> {
+            String username = (firstName.getText().toString() + " " + lastName.getText().toString());
+            String email = pinNumber.getText().toString() + "@app.com";
+            String password = pinNumber.getText().toString();
+
+            if (password.isEmpty()) {
+                Toast.makeText(requireContext(), "Fill in all fields", Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            kiosk.firebaseHelper().registerUser(email, password, username, new FirebaseHelper.FirebaseCallback() {
+                @Override
+                public void onSuccess() {
+                    Toast.makeText(kiosk, "Account created!", Toast.LENGTH_SHORT).show();
+                    if (isAdded()) kiosk.showSignIn();
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+
+        importRosterButton.setOnClickListener(v -> pickRoster.launch(new String[]{"text/*"}));
+
+        returnButton.setOnClickListener(v -> kiosk.showSignIn());
+
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        importRosterButton = null;
+    }
+
+    private void importRoster(Uri uri) {
+        if (uri == null) return;
+
+        RosterCsv roster;
+        try (InputStream in = requireContext().getContentResolver().openInputStream(uri)) {
+            if (in == null) throw new IOException("Could not open roster");
+            roster = RosterCsv.parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Toast.makeText(requireContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (!roster.errors.isEmpty()) {
+            Toast.makeText(requireContext(), roster.errors.size() + " bad rows skipped: " + roster.errors.get(0), Toast.LENGTH_LONG).show();
+        }
+
+        // The import outlives this screen (it resumes from ImportProgress anyway), so progress is only shown
+        // while the button is still on screen.
+        SignInActivity kiosk = (SignInActivity) requireActivity();
+        importRosterButton.setEnabled(false);
+        kiosk.firebaseHelper().importRoster(roster.entries, new RosterImport.ImportCallback() {
+            @Override
+            public void onProgress(int done, int total) {
+                if (importRosterButton != null) importRosterButton.setText(done + " / " + total);
+            }
+
+            @Override
+            public void onComplete(int imported, int skipped, List<String> failures) {
+                resetImportButton();
+                String message = imported + " imported, " + skipped + " already done";
+                if (!failures.isEmpty()) message += ", " + failures.size() + " failed (run again to retry)";
+                Toast.makeText(kiosk, message, Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onFailure(String error) {
+                resetImportButton();
+                Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void resetImportButton() {
+        if (importRosterButton == null) return;
+        importRosterButton.setEnabled(true);
+        importRosterButton.setText("Import Roster");
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.crevolutionattendance;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/*
+ * Minimal RFC 4180 CSV output: one row per call, written straight to the underlying Writer
+ * so exports never build the whole file in memory.
+ */
+public final class CsvWriter {
+
+    private CsvWriter() {
+    }
+
+    public static void writeRow(Writer out, Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(escape(cells[i] == null ? "" : cells[i].toString()));
+        }
+        out.write("\r\n");
+    }
+
+    // Quotes a cell only when it contains a comma, quote or line break.
+    static String escape(String cell) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < cell.length() && !needsQuotes; i++) {
+            char c = cell.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) return cell;
+        return "\"" + cell.replace("\"", "\"\"") + "\"";
+    }
+}
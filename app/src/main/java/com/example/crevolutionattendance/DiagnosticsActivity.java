@@ -0,0 +1,261 @@
+package com.example.crevolutionattendance;
+
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.InputType;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.ImageView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.materialswitch.MaterialSwitch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Hidden screen (long-press the sign-in title) for the in-process Metrics registry:
+ * turn recording on or off, see p50/p90/p99/max per measurement, reset, and export a CSV
+ * to the app's external files dir (diagnostics/metrics-<time>.csv) for pulling off the tablet.
+ * Also where a tablet is switched into kiosk mode (an admin must be signed in) and back out of it, and where
+ * that admin session adds meetings to the team schedule (FirebaseHelper.addMeeting).
+ * Any student at a kiosk can open this screen, so admin-only actions ask for the admin's password first
+ * (FirebaseHelper.verifyAdmin), and leaving the screen locks them again.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+    static final String PREFS = "diagnostics";
+    static final String KEY_ENABLED = "enabled";
+    private static final long REFRESH_MS = 1000;
+
+    private TextView metricsText;
+    private MaterialSwitch metricsSwitch, kioskSwitch;
+    private MaterialButton resetButton, exportButton, addMeetingButton;
+    private ImageView returnButton;
+    private SharedPreferences prefs;
+    private FirebaseHelper firebaseHelper;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            showMetrics();
+            handler.postDelayed(this, REFRESH_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_diagnostics);
+        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.diagnostics), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        metricsText = findViewById(R.id.metricsText);
+        metricsSwitch = findViewById(R.id.metricsSwitch);
+        kioskSwitch = findViewById(R.id.kioskSwitch);
+        addMeetingButton = findViewById(R.id.addMeetingButton);
+        resetButton = findViewById(R.id.resetButton);
+        exportButton = findViewById(R.id.exportButton);
+        returnButton = findViewById(R.id.returnButton);
+        prefs = getSharedPreferences(PREFS, MODE_PRIVATE);
+        firebaseHelper = AttendanceApp.firebaseHelper(this);
+
+        metricsSwitch.setChecked(Metrics.isEnabled());
+        metricsSwitch.setOnCheckedChangeListener((button, checked) -> {
+            Metrics.setEnabled(checked);
+            prefs.edit().putBoolean(KEY_ENABLED, checked).apply();
+        });
+
+        kioskSwitch.setChecked(firebaseHelper.isKioskMode());
+        addMeetingButton.setEnabled(firebaseHelper.isKioskMode());
+        addMeetingButton.setOnClickListener(v -> requireAdmin(this::showAddMeeting));
+        kioskSwitch.setOnCheckedChangeListener((button, checked) -> {
+            if (checked == firebaseHelper.isKioskMode()) return;
+            if (!checked) {
+                // Stays on until the admin confirms; this also ends the admin session and forgets every PIN.
+                kioskSwitch.setChecked(true);
+                requireAdmin(this::exitKioskMode);
+                return;
+            }
+            firebaseHelper.enterKioskMode(new FirebaseHelper.FirebaseCallback() {
+                @Override
+                public void onSuccess() {
+                    addMeetingButton.setEnabled(true);
+                    Toast.makeText(DiagnosticsActivity.this, "Kiosk mode enabled", Toast.LENGTH_SHORT).show();
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    if (isDestroyed()) return;
+                    kioskSwitch.setChecked(false);
+                    Toast.makeText(DiagnosticsActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+
+        resetButton.setOnClickListener(v -> {
+            Metrics.reset();
+            showMetrics();
+        });
+        exportButton.setOnClickListener(v -> export());
+        returnButton.setOnClickListener(v -> finish());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        handler.post(refresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        handler.removeCallbacks(refresh);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        firebaseHelper.lockAdmin();
+    }
+
+    private void exitKioskMode() {
+        firebaseHelper.exitKioskMode(new FirebaseHelper.FirebaseCallback() {
+            @Override
+            public void onSuccess() {
+                kioskSwitch.setChecked(false);
+                addMeetingButton.setEnabled(false);
+                Toast.makeText(DiagnosticsActivity.this, "Kiosk mode disabled", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String error) {
+                Toast.makeText(DiagnosticsActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    // Runs action once the admin has re-entered their password (or straight away if they recently did).
+    private void requireAdmin(Runnable action) {
+        if (firebaseHelper.isAdminUnlocked()) {
+            action.run();
+            return;
+        }
+        EditText password = new EditText(this);
+        password.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        password.setHint("Admin password");
+
+        new AlertDialog.Builder(this)
+                .setTitle("Admin only")
+                .setView(password)
+                .setNegativeButton("Cancel", null)
+                .setPositiveButton("Continue", (dialog, which) ->
+                        firebaseHelper.verifyAdmin(password.getText().toString(), new FirebaseHelper.FirebaseCallback() {
+                            @Override
+                            public void onSuccess() {
+                                if (!isDestroyed()) action.run();
+                            }
+
+                            @Override
+                            public void onFailure(String error) {
+                                Toast.makeText(DiagnosticsActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+                            }
+                        }))
+                .show();
+    }
+
+    // Asks for a meeting's title, date and times (team time zone) and adds it to the schedule.
+    private void showAddMeeting() {
+        View form = getLayoutInflater().inflate(R.layout.dialog_add_meeting, null);
+        EditText title = form.findViewById(R.id.meetingTitle);
+        EditText date = form.findViewById(R.id.meetingDate);
+        EditText start = form.findViewById(R.id.meetingStart);
+        EditText end = form.findViewById(R.id.meetingEnd);
+        date.setText(firebaseHelper.getDate());
+
+        new AlertDialog.Builder(this)
+                .setTitle("Add Meeting")
+                .setView(form)
+                .setNegativeButton("Cancel", null)
+                .setPositiveButton("Add", (dialog, which) -> {
+                    String dateKey = date.getText().toString().trim();
+                    int[] from = parseTime(start.getText().toString());
+                    int[] until = parseTime(end.getText().toString());
+                    if (title.getText().toString().trim().isEmpty() || !dateKey.matches("\\d{4}-\\d{2}-\\d{2}")
+                            || from == null || until == null) {
+                        Toast.makeText(this, "Fill in all fields", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    firebaseHelper.addMeeting(title.getText().toString().trim(),
+                            firebaseHelper.teamTimeMillis(dateKey, from[0], from[1]),
+                            firebaseHelper.teamTimeMillis(dateKey, until[0], until[1]),
+                            new FirebaseHelper.FirebaseCallback() {
+                                @Override
+                                public void onSuccess() {
+                                    Toast.makeText(DiagnosticsActivity.this, "Meeting added", Toast.LENGTH_SHORT).show();
+                                }
+
+                                @Override
+                                public void onFailure(String error) {
+                                    Toast.makeText(DiagnosticsActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+                                }
+                            });
+                })
+                .show();
+    }
+
+    // "HH:MM" (24-hour) as {hour, minute}, or null if it isn't one.
+    private static int[] parseTime(String text) {
+        String[] parts = text.trim().split(":");
+        if (parts.length != 2) return null;
+        try {
+            int hour = Integer.parseInt(parts[0]);
+            int minute = Integer.parseInt(parts[1]);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) return null;
+            return new int[]{hour, minute};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void showMetrics() {
+        StringBuilder text = new StringBuilder();
+        for (String line : Metrics.summary()) text.append(line).append('\n');
+        metricsText.setText(text.length() == 0 ? "Nothing recorded yet." : text);
+    }
+
+    private void export() {
+        File dir = new File(getExternalFilesDir(null), "diagnostics");
+        File file = new File(dir, "metrics-" + System.currentTimeMillis() + ".csv");
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Could not create " + dir);
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                Metrics.writeCsv(out);
+            }
+            Toast.makeText(this, "Saved " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -1,81 +1,288 @@
 package com.example.crevolutionattendance;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.crevolutionattendance.ledger.DayClock;
+import com.example.crevolutionattendance.ledger.Meeting;
+import com.example.crevolutionattendance.ledger.MeetingAttendance;
+import com.example.crevolutionattendance.ledger.PackedShifts;
+import com.example.crevolutionattendance.ledger.PunchEvent;
+import com.example.crevolutionattendance.ledger.PunchLog;
+import com.example.crevolutionattendance.ledger.SeasonArchive;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+import com.example.crevolutionattendance.ledger.TeamLeaderboard;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseException;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.Executors;
 
 public class FirebaseHelper {
+    private static final String TAG = "FirebaseHelper";
+
+    // How many journaled punches the sync stage sends to Firestore per batch.
+    private static final int SYNC_BATCH_SIZE = 20;
+
+    // Members with an open shift read per page by the stale-shift sweeper.
+    private static final int SWEEP_PAGE_SIZE = 200;
+
+    // Day docs fetched per page when building the meeting attendance index.
+    private static final int ATTENDANCE_PAGE_SIZE = 500;
+
+    // Days fetched per page by the history screen (a month is at most 31 days, so usually one or two pages).
+    private static final int HISTORY_PAGE_SIZE = 16;
+
+    /*
+     * Storage layout versions. Both live in a field called "schema", but the member doc and the day docs are
+     * versioned independently, so each has its own constants (archive chunks use SeasonArchive.FORMAT_VERSION).
+     *
+     * LoggedHours/{uid} "schema":
+     *   1 (or missing): every shift lives in the day doc's "shifts" array.
+     *   USER_SCHEMA_SHIFT_DOCS (2): one document per shift under Days/{date}/Shifts, day docs only hold totals.
+     *   USER_SCHEMA_ROLLUPS (3): week/month/season rollups under Rollups are maintained too. Current; punches
+     *     refuse to write to an older member doc until it is migrated.
+     *
+     * Days/{date} "schema":
+     *   1 (or missing): the day's shifts are in its "shifts" array.
+     *   DAY_SCHEMA_SHIFT_DOCS (2): shifts are docs under Days/{date}/Shifts, the day doc only holds totals.
+     *   DAY_SCHEMA_PACKED (3): packedShifts also holds every closed shift of the day (PackedShifts blob).
+     *     Written whenever a day's shifts are all known; days with older closed shifts stay on 2.
+     */
+    private static final long USER_SCHEMA_SHIFT_DOCS = 2;
+    private static final long USER_SCHEMA_ROLLUPS = 3;
+    private static final long DAY_SCHEMA_SHIFT_DOCS = 2;
+    private static final long DAY_SCHEMA_PACKED = 3;
+
+    // The team season starts on this month's first day (August: a season runs August through July).
+    static final int SEASON_START_MONTH = Calendar.AUGUST;
+
+    // Firestore's limit on writes in one batch.
+    static final int MAX_BATCH_WRITES = 500;
+
+    // Counter shards per season team total (TeamTotals/season-YYYY/Shards/0..N-1). Each clock-out increments one.
+    static final int TEAM_TOTAL_SHARDS = 10;
+
+    // How many profiles one pass of the published-PIN-hash scrub rewrites (one batch).
+    private static final int PIN_SCRUB_PAGE_SIZE = 200;
+
+    // How long a verifyAdmin() password check unlocks admin-only actions on this tablet.
+    private static final long ADMIN_UNLOCK_MS = 5 * 60_000;
+
+    // A second punch() for the same student within this window repeats the first answer instead of toggling back.
+    private static final long DOUBLE_TAP_WINDOW_MS = 10_000;
+
+    // A synced punch older than this no longer decides the next punch's direction: the sweeper or another tablet
+    // may have changed the student's state since, so the open-shift pointer is read instead.
+    private static final long JOURNAL_TRUST_MS = 60_000;
+
+    // Name of the secondary FirebaseApp used to check PINs without replacing the kiosk's admin session.
+    private static final String VERIFIER_APP = "pin-verifier";
+
+    // One journal and one sync stage per process, shared by every FirebaseHelper instance.
+    private static PunchJournal journal;
+    private static PunchSyncer syncer;
+
+    // Kiosk mode PIN cache (this tablet only), also shared per process.
+    private static PinIndex pinIndex;
+
+    // Meeting attendance index for one season, built on first use and fed by every clock-out applied here.
+    private static MeetingAttendance attendance;
+    private static int attendanceSeason;
+    private static Task<MeetingAttendance> attendanceTask;
+
+    // On-device report mirror and the one MirrorSync feeding it, also shared per process and opened on first use.
+    private static LocalMirror localMirror;
+    private static MirrorSync mirrorSync;
+
+    // The kiosk's shared listener on the current season's team shards (see teamBoard()).
+    private static TeamBoard teamBoard;
+    private static int teamBoardSeason;
+
+    // punch() callers waiting on a punch that is already being worked out for the same uid.
+    private static final Map<String, List<PunchCallback>> inFlightPunches = new HashMap<>();
+
+    // Date keys and day boundaries in the team's time zone (see initDayClock), shared per process.
+    private static DayClock days;
+
+    private final Context appContext;
     private final FirebaseAuth auth;
     private final FirebaseFirestore db;
+    private final SharedPreferences kioskPrefs;
+    // SystemClock.elapsedRealtime() until which verifyAdmin() has unlocked admin-only actions; 0 when locked.
+    private long adminUnlockedUntil;
+    private final String deviceId;
 
     // Converts milliseconds to hours.
     public double millisToHrs(double x) {
-        return (x / (1000.0 * 60.0 * 60.0));
+        return ShiftLedger.millisToHrs(x);
     }
 
-    // Returns today's date key in YYYY-MM-DD format.
+    // Returns today's date key in YYYY-MM-DD format (cached by the DayClock until midnight).
     public String getDate() {
-        Calendar calendar = Calendar.getInstance();
-        // Refresh calendar to current time each call (prevents stale date if app stays open).
-        calendar.setTime(new Date());
+        return days.today();
+    }
 
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH) + 1; // Calendar months are 0-based
-        int day = calendar.get(Calendar.DAY_OF_MONTH);
+    // Returns the date key (YYYY-MM-DD) of the team-local day containing whenMillis.
+    private String dateKey(long whenMillis) {
+        return days.dateKey(whenMillis);
+    }
 
-        // Zero-padded so sorting works correctly
-        return String.format(Locale.getDefault(), "%04d-%02d-%02d", year, month, day);
+    // Returns the team-local midnight of a YYYY-MM-DD date key. Package-private for the load harness.
+    long dayStartFromKey(String dateKey) {
+        return days.startOfKey(dateKey);
     }
 
-    // Returns a date offset from today (0=today, -1=yesterday, +1=tomorrow)
-    private String getDateOffset(int dayOffset) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date());
-        calendar.add(Calendar.DAY_OF_MONTH, dayOffset);
+    /*
+     * Rollup document ids for the day containing whenMillis:
+     * - week-YYYY-MM-DD: the Monday the week starts on
+     * - month-YYYY-MM
+     * - season-YYYY: the year the season started (see SEASON_START_MONTH)
+     */
+    public String weekKey(long whenMillis) {
+        return "week-" + dateKey(days.weekStart(whenMillis));
+    }
 
-        int year = calendar.get(Calendar.YEAR);
-        int month = calendar.get(Calendar.MONTH) + 1;
-        int day = calendar.get(Calendar.DAY_OF_MONTH);
+    public String monthKey(long whenMillis) {
+        return "month-" + dateKey(whenMillis).substring(0, 7);
+    }
 
-        return String.format(Locale.getDefault(), "%04d-%02d-%02d", year, month, day);
+    public String seasonKey(long whenMillis) {
+        return "season-" + seasonStartYear(whenMillis);
     }
 
-    // Returns the local midnight (00:00:00.000) in milliseconds.
-    // This method is for handled cross-midnight shifts.
-    private long startOfDayMillis(long whenMillis) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(whenMillis);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return calendar.getTimeInMillis();
+    // The calendar year in which the season containing whenMillis started.
+    public int seasonStartYear(long whenMillis) {
+        int year = days.year(whenMillis);
+        if (days.month(whenMillis) - 1 < SEASON_START_MONTH) year--;
+        return year;
     }
 
-    // Initialize Firebase Auth, Firestore, and Calendar handles once.
-    public FirebaseHelper() {
-        auth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+    // The same for a date key (YYYY-MM-DD) or month key (YYYY-MM).
+    static int seasonOfKey(String key) {
+        int year = Integer.parseInt(key.substring(0, 4));
+        if (Integer.parseInt(key.substring(5, 7)) - 1 < SEASON_START_MONTH) year--;
+        return year;
     }
 
-    // Convenience method to point to "today's" document for a user.
-    private DocumentReference dayDoc(String uid) {
-        return db.collection("LoggedHours")
-                .document(uid)
-                .collection("Days")
-                .document(getDate());
+    // Initialize Firebase Auth and Firestore handles once, and the shared punch journal on first use.
+    public FirebaseHelper(Context context) {
+        this(context, FirebaseApp.getInstance());
+    }
+
+    // Helper bound to a specific FirebaseApp, e.g. one per simulated tablet in the load harness.
+    FirebaseHelper(Context context, FirebaseApp app) {
+        appContext = context.getApplicationContext();
+        auth = FirebaseAuth.getInstance(app);
+        db = FirebaseFirestore.getInstance(app);
+        kioskPrefs = appContext.getSharedPreferences("kiosk", Context.MODE_PRIVATE);
+        deviceId = app.isDefaultApp() ? deviceId(kioskPrefs) : deviceId(kioskPrefs) + "/" + app.getName();
+        initDayClock(appContext);
+        Metrics.setEnabled(appContext.getSharedPreferences(DiagnosticsActivity.PREFS, Context.MODE_PRIVATE)
+                .getBoolean(DiagnosticsActivity.KEY_ENABLED, false));
+        initJournal(appContext);
+        initPinIndex(appContext);
+    }
+
+    // This tablet's id, stamped on every punch event it writes. Generated once and kept for the life of the install.
+    private static String deviceId(SharedPreferences prefs) {
+        synchronized (FirebaseHelper.class) {
+            String id = prefs.getString("deviceId", null);
+            if (id == null) {
+                id = UUID.randomUUID().toString();
+                prefs.edit().putString("deviceId", id).apply();
+            }
+            return id;
+        }
+    }
+
+    /*
+     * Pins the team's time zone for date keys and midnights, so a tablet set to the wrong zone (or carried to an
+     * event in another one) still files punches under the team's days. R.string.team_time_zone names it for every
+     * tablet. There is no fallback: tablets guessing their own zone would file the same punch under different
+     * days, so an app built without a valid zone refuses to start.
+     */
+    private static void initDayClock(Context appContext) {
+        synchronized (FirebaseHelper.class) {
+            if (days != null) return;
+            String zoneId = appContext.getString(R.string.team_time_zone);
+            // TimeZone.getTimeZone answers GMT for an id it doesn't know, so check that the id survived.
+            TimeZone zone = TimeZone.getTimeZone(zoneId);
+            if (zoneId.isEmpty() || !zone.getID().equals(zoneId)) {
+                throw new IllegalStateException("R.string.team_time_zone must be the team's IANA time zone"
+                        + " (e.g. America/Chicago), not \"" + zoneId + "\"");
+            }
+            days = new DayClock(zone, System::currentTimeMillis);
+        }
+    }
+
+    /*
+     * Opens the punch journal and starts its sync stage the first time any helper is created.
+     * Punches left over from a previous run (app killed, tablet offline) start draining right away.
+     */
+    private void initJournal(Context appContext) {
+        synchronized (FirebaseHelper.class) {
+            if (journal != null) return;
+            try {
+                journal = new PunchJournal(new File(appContext.getFilesDir(), "journal"));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open punch journal", e);
+            }
+            syncer = new PunchSyncer(journal, this::applyPunches,
+                    Executors.newSingleThreadScheduledExecutor(), SYNC_BATCH_SIZE);
+        }
+        syncer.requestSync();
+    }
+
+    // Loads the cached kiosk PIN index once per process.
+    private void initPinIndex(Context appContext) {
+        synchronized (FirebaseHelper.class) {
+            if (pinIndex != null) return;
+            try {
+                pinIndex = new PinIndex(new File(appContext.getFilesDir(), "kiosk"));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open PIN index", e);
+            }
+        }
+    }
+
+    // Convenience method to point to a user's root document (profile and open-shift pointer).
+    private DocumentReference userDoc(String uid) {
+        return db.collection("LoggedHours").document(uid);
     }
 
     // Convenience method to point to a specific date's document for a user.
@@ -86,113 +293,410 @@ public class FirebaseHelper {
                 .document(dateKey);
     }
 
+    // The team presence index: Presence/team = { present: { uid: { inMillis, username } } }
+    private DocumentReference presenceDoc() {
+        return db.collection("Presence").document("team");
+    }
+
+    // Merge fields that set (or with FieldValue.delete(), remove) one uid's presence entry.
+    private static Map<String, Object> presenceFields(String uid, Object entry) {
+        Map<String, Object> present = new HashMap<>();
+        present.put(uid, entry);
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("present", present);
+        return fields;
+    }
+
+    // The team meeting schedule: Meetings/{id} = { title, startMillis, endMillis }
+    private CollectionReference meetingsRef() {
+        return db.collection("Meetings");
+    }
+
+    // Convenience method to point to one of a user's rollup documents (see weekKey/monthKey/seasonKey).
+    private DocumentReference rollupDoc(String uid, String rollupKey) {
+        return userDoc(uid)
+                .collection("Rollups")
+                .document(rollupKey);
+    }
+
+    /*
+     * One of a season's team total shards: TeamTotals/season-YYYY/Shards/{shard} =
+     *      { season, shard, totalMillis, members: { uid: { millis, username } } }
+     * A member's hours always go to shard TeamLeaderboard.shardOf(uid), so the shards together hold the team
+     * total and every member's season total, and concurrent clock-outs rarely write the same document.
+     */
+    private CollectionReference teamShards(int season) {
+        return db.collection("TeamTotals")
+                .document("season-" + season)
+                .collection("Shards");
+    }
+
+    private DocumentReference teamShardDoc(int season, int shard) {
+        return teamShards(season).document(String.valueOf(shard));
+    }
+
+    /*
+     * The team shard increments for a shift's rollups: one merge write per season the shift added hours to
+     * (only one, unless it crossed the season boundary), keyed by the shard doc it goes to.
+     */
+    private Map<DocumentReference, Map<String, Object>> teamShardWrites(String uid, String username,
+                                                                          Map<String, Long> rollups) {
+        int shard = TeamLeaderboard.shardOf(uid, TEAM_TOTAL_SHARDS);
+        Map<DocumentReference, Map<String, Object>> writes = new HashMap<>();
+        for (Map.Entry<String, Long> rollup : rollups.entrySet()) {
+            if (!rollup.getKey().startsWith("season-")) continue;
+            int season = Integer.parseInt(rollup.getKey().substring("season-".length()));
+            Map<String, Object> member = new HashMap<>();
+            member.put("millis", FieldValue.increment(rollup.getValue()));
+            if (username != null) member.put("username", username);
+            writes.put(teamShardDoc(season, shard),
+                    teamShardFields(season, shard, FieldValue.increment(rollup.getValue()),
+                            Collections.singletonMap(uid, member)));
+        }
+        return writes;
+    }
+
+    // Team shard doc fields. totalMillis and each member's millis are exact values or FieldValue.increment()s.
+    private static Map<String, Object> teamShardFields(int season, int shard, Object totalMillis,
+                                                       Map<String, Object> members) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("season", season);
+        fields.put("shard", shard);
+        fields.put("totalMillis", totalMillis);
+        fields.put("members", members);
+        return fields;
+    }
+
+    // Convenience method to point to one shift's document (schema 2).
+    private DocumentReference shiftDoc(String uid, String dateKey, String shiftId) {
+        return dayDoc(uid, dateKey)
+                .collection("Shifts")
+                .document(shiftId);
+    }
+
+    // One immutable punch event: LoggedHours/{uid}/Punches/{punchId} = { type, millis, device }
+    private DocumentReference punchDoc(String uid, String punchId) {
+        return userDoc(uid)
+                .collection("Punches")
+                .document(punchId);
+    }
+
+    // Profile data stored on the user's root document. Nothing derived from the PIN goes here (see PinIndex).
+    static Map<String, Object> profileFields(String username) {
+        Map<String, Object> userData = new HashMap<>();
+        userData.put("username", username);
+        userData.put("profileUpdatedAt", FieldValue.serverTimestamp());
+        return userData;
+    }
+
+    // Profile of a brand new user: they start on the current layout with nothing open.
+    static Map<String, Object> newProfileFields(String username) {
+        Map<String, Object> userData = profileFields(username);
+        userData.put("schema", USER_SCHEMA_ROLLUPS);
+        userData.put("openShift", null);
+        return userData;
+    }
+
     /*
      * Register a new user.
      * Creates the user in Firebase Auth, and also stores a simple profile doc in Firestore:
-     * LoggedHours/{uid} with { username }
+     * LoggedHours/{uid} with { username, profileUpdatedAt, schema, openShift }
+     * profileUpdatedAt drives the local mirror's incremental refresh.
+     * In kiosk mode the account is created on the verifier app so the kiosk's admin session stays signed in,
+     * and the new PIN goes straight into this tablet's PinIndex.
      * NOTE: This does NOT create a Days subcollection yet.
      * Firestore only shows subcollections after at least one document exists within them.
      * The first clockIn() call creates the first daily doc under Days.
      */
     public void registerUser(String email, String password, String username, FirebaseCallback callback) {
-        auth.createUserWithEmailAndPassword(email, password)
+        FirebaseAuth createAuth = isKioskMode() ? verifierAuth() : auth;
+        long started = Metrics.start();
+
+        createAuth.createUserWithEmailAndPassword(email, password)
+                .onSuccessTask(result -> {
+                    Metrics.recordSince("register.auth.us", started);
+                    String uid = Objects.requireNonNull(result.getUser()).getUid();
+                    if (createAuth != auth) {
+                        pinIndex.put(uid, password);
+                        savePinIndex();
+                    }
+                    long profileStarted = Metrics.start();
+                    return db.collection("LoggedHours").document(uid)
+                            .set(newProfileFields(username))
+                            .addOnSuccessListener(v -> Metrics.recordSince("register.profile.us", profileStarted));
+                })
                 .addOnCompleteListener(task -> {
+                    if (createAuth != auth) createAuth.signOut();
+                    Metrics.recordSince("register.total.us", started);
+                    long uiStarted = Metrics.start();
                     if (task.isSuccessful()) {
-                        FirebaseUser user = auth.getCurrentUser();
-                        if (user != null) {
-                            String uid = user.getUid();
-
-                            // Profile data stored on the user's root document.
-                            Map<String, Object> userData = new HashMap<>();
-                            userData.put("username", username);
-
-                            db.collection("LoggedHours").document(uid)
-                                    .set(userData)
-                                    .addOnSuccessListener(aVoid -> callback.onSuccess())
-                                    .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
-                        }
+                        callback.onSuccess();
                     } else {
                         callback.onFailure(Objects.requireNonNull(task.getException()).getMessage());
                     }
+                    Metrics.recordSince("register.ui.us", uiStarted);
                 });
     }
 
     // Signs an existing user into Firebase Auth.
     public void signInUser(String email, String password, FirebaseCallback callback) {
+        long started = Metrics.start();
         auth.signInWithEmailAndPassword(email, password)
                 .addOnCompleteListener(task -> {
+                    Metrics.recordSince("signIn.auth.us", started);
+                    long uiStarted = Metrics.start();
                     if (task.isSuccessful()) {
+                        // Punches held for this student (see applyPunches) can go now.
+                        syncer.requestSync();
                         callback.onSuccess();
                     } else {
                         callback.onFailure(Objects.requireNonNull(task.getException()).getMessage());
                     }
+                    Metrics.recordSince("signIn.ui.us", uiStarted);
                 });
     }
 
     /*
-     * Clock In:
-     * - Writes to today's daily doc (dayDoc(uid))
-     * - Appends a new shift object to the "shifts" array:
-     *      { inMillis: <timestamp> }
-     * - Prevents double clock-in by ensuring the last shift has an outMillis value before adding another.
+     * Kiosk mode:
+     * The tablet keeps one admin session signed in and students only type their PIN.
+     * PINs are resolved through the local PinIndex, and punches are written for that uid
+     * by the admin session, so there is no Firebase Auth round trip per student.
      */
-    public void clockIn(FirebaseCallback callback) {
+    public boolean isKioskMode() {
+        return kioskPrefs.getBoolean("enabled", false);
+    }
+
+    /*
+     * Turns on kiosk mode if the signed-in user's profile is marked { admin: true } (from the diagnostics screen).
+     * Schedules the stale-shift sweeper and the season archiver, and scrubs PIN hashes older versions published.
+     */
+    public void enterKioskMode(FirebaseCallback callback) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
             callback.onFailure("No user signed in");
             return;
         }
-        String uid = user.getUid();
-        DocumentReference docRef = dayDoc(uid);
 
-        long inMillis = System.currentTimeMillis();
+        db.collection("LoggedHours").document(user.getUid()).get()
+                .addOnSuccessListener(profile -> {
+                    if (!Boolean.TRUE.equals(profile.getBoolean("admin"))) {
+                        callback.onFailure("Kiosk mode requires an admin account");
+                        return;
+                    }
+                    kioskPrefs.edit().putBoolean("enabled", true).apply();
+                    StaleShiftWorker.schedule(appContext);
+                    SeasonArchiveWorker.schedule(appContext);
+                    scrubPublishedPins();
+                    callback.onSuccess();
+                })
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
 
-        db.runTransaction(transaction -> {
-                    DocumentSnapshot snapshot = transaction.get(docRef);
+    /*
+     * Confirms that the person at the tablet is the signed-in admin, not a student who opened the diagnostics
+     * screen of a kiosk: the password is checked with Firebase Auth on the verifier app (the admin session stays
+     * signed in), and the account must still be marked { admin: true } on the server. Unlocks admin-only actions
+     * (addMeeting, exitKioskMode) for ADMIN_UNLOCK_MS or until lockAdmin().
+     */
+    public void verifyAdmin(String password, FirebaseCallback callback) {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null || user.getEmail() == null) {
+            callback.onFailure("No admin signed in");
+            return;
+        }
 
-                    // Read today's shifts array. If the document is new, "shifts" will be null.
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> shifts =
-                            (List<Map<String, Object>>) snapshot.get("shifts");
-                    if (shifts == null) shifts = new ArrayList<>();
-
-                    // Prevent repeated clock-ins:
-                    // If the last shift does not have outMillis yet, they are already clocked in.
-                    if (!shifts.isEmpty()) {
-                        Map<String, Object> last = shifts.get(shifts.size() - 1);
-                        if (last.get("outMillis") == null) {
-                            throw new IllegalStateException("Already clocked in. Please clock out first.");
-                        }
+        FirebaseAuth verifier = verifierAuth();
+        verifier.signInWithEmailAndPassword(user.getEmail(), password)
+                .continueWithTask(t -> {
+                    verifier.signOut();
+                    if (!t.isSuccessful()) throw new IllegalStateException("Wrong admin password");
+                    return userDoc(user.getUid()).get(Source.SERVER);
+                })
+                .addOnSuccessListener(profile -> {
+                    if (!Boolean.TRUE.equals(profile.getBoolean("admin"))) {
+                        callback.onFailure("Not an admin account");
+                        return;
                     }
-
-                    // Create a new shift and append it.
-                    // Later, clockOut() will fill in outMillis for this same shift object.
-                    Map<String, Object> newShift = new HashMap<>();
-                    newShift.put("inMillis", inMillis);
-                    shifts.add(newShift);
-
-                    // Update the doc:
-                    // - date
-                    // - shifts: the updated shift array
-                    // SetOptions.merge() ensures we don't wipe other fields (like totalShiftTime).
-                    Map<String, Object> updates = new HashMap<>();
-                    updates.put("date", getDate());
-                    updates.put("shifts", shifts);
-
-                    transaction.set(docRef, updates, SetOptions.merge());
-                    return null;
+                    adminUnlockedUntil = SystemClock.elapsedRealtime() + ADMIN_UNLOCK_MS;
+                    callback.onSuccess();
                 })
-                .addOnSuccessListener(v -> callback.onSuccess())
                 .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
     }
 
+    public boolean isAdminUnlocked() {
+        return SystemClock.elapsedRealtime() < adminUnlockedUntil;
+    }
+
+    // Locks admin-only actions again (the admin left the diagnostics screen).
+    public void lockAdmin() {
+        adminUnlockedUntil = 0;
+    }
+
+    /*
+     * Turns kiosk mode off: stops the workers, forgets every PIN this tablet learned and signs the admin out,
+     * so the tablet is left as an ordinary sign-in screen. Needs verifyAdmin() first.
+     */
+    public void exitKioskMode(FirebaseCallback callback) {
+        if (!isAdminUnlocked()) {
+            callback.onFailure("Admin password required");
+            return;
+        }
+        lockAdmin();
+        kioskPrefs.edit().putBoolean("enabled", false).apply();
+        StaleShiftWorker.cancel(appContext);
+        SeasonArchiveWorker.cancel(appContext);
+        pinIndex.clear();
+        savePinIndex();
+        auth.signOut();
+        callback.onSuccess();
+    }
+
+    /*
+     * Resolves a PIN to a uid.
+     * - Cache hit: answered from this tablet's PinIndex with no network at all.
+     * - Cache miss (first time this tablet sees the PIN): the PIN is checked once with Firebase Auth on the
+     *   verifier app, and only then added to the PinIndex, so the next lookup for this student is a cache hit.
+     */
+    public void resolvePin(String pin, PinCallback callback) {
+        String cached = pinIndex.resolve(pin);
+        if (cached != null) {
+            callback.onResolved(cached);
+            return;
+        }
+
+        FirebaseAuth verifier = verifierAuth();
+        verifier.signInWithEmailAndPassword(pin + "@app.com", pin)
+                .addOnCompleteListener(task -> {
+                    verifier.signOut();
+                    if (task.isSuccessful()) {
+                        String uid = Objects.requireNonNull(task.getResult().getUser()).getUid();
+                        pinIndex.put(uid, pin);
+                        savePinIndex();
+                        callback.onResolved(uid);
+                    } else {
+                        callback.onFailure(Objects.requireNonNull(task.getException()).getMessage());
+                    }
+                });
+    }
+
+    private void savePinIndex() {
+        try {
+            pinIndex.save();
+        } catch (IOException e) {
+            // The in-memory index is still correct; the file is rewritten on the next save.
+            Log.w(TAG, "Could not save PIN index", e);
+        }
+    }
+
+    /*
+     * Older versions stored pinHash = SHA-256(teamSalt:pin) on every profile and the salt in Kiosk/config,
+     * both readable by any signed-in user. Deletes them, a page of profiles per batch, until no profile has
+     * a pinHash left; done once per tablet. The PINs those hashes covered should be treated as exposed.
+     */
+    private void scrubPublishedPins() {
+        if (kioskPrefs.getBoolean("pinHashesScrubbed", false)) return;
+        Map<String, Object> noSalt = new HashMap<>();
+        noSalt.put("pinSalt", FieldValue.delete());
+        db.collection("Kiosk").document("config").set(noSalt, SetOptions.merge())
+                .addOnSuccessListener(v -> scrubPinPage())
+                .addOnFailureListener(e -> Log.w(TAG, "Could not remove the published PIN salt", e));
+    }
+
+    // orderBy() only matches documents that have the field, so each page is the next set still carrying one.
+    private void scrubPinPage() {
+        db.collection("LoggedHours").orderBy("pinHash").limit(PIN_SCRUB_PAGE_SIZE).get()
+                .onSuccessTask(page -> {
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot profile : page.getDocuments()) {
+                        batch.update(profile.getReference(), "pinHash", FieldValue.delete());
+                    }
+                    return batch.commit().continueWith(t -> page.size());
+                })
+                .addOnSuccessListener(scrubbed -> {
+                    if (scrubbed == PIN_SCRUB_PAGE_SIZE) {
+                        scrubPinPage();
+                    } else {
+                        kioskPrefs.edit().putBoolean("pinHashesScrubbed", true).apply();
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "PIN hash scrub failed, will retry on next kiosk start", e));
+    }
+
+    /*
+     * Onboards a whole roster at once (see RosterImport), adding every imported PIN to this tablet's PinIndex.
+     * Progress is kept in filesDir/roster, so running the same roster again resumes where it stopped.
+     */
+    public void importRoster(List<RosterEntry> roster, RosterImport.ImportCallback callback) {
+        try {
+            ImportProgress progress = new ImportProgress(new File(appContext.getFilesDir(), "roster"));
+            new RosterImport(appContext, db, progress, pinIndex).start(roster, callback);
+        } catch (IOException e) {
+            callback.onFailure(e.getMessage());
+        }
+    }
+
+    // Exporter for season reports, reading through this helper's Firestore instance.
+    public SeasonReport seasonReport() {
+        return new SeasonReport(db);
+    }
+
+    // Compacts closed seasons into archive docs (see SeasonArchiver); blocking, for the archive worker's thread.
+    SeasonArchiver seasonArchiver() {
+        return new SeasonArchiver(db, days);
+    }
+
+    // The local report mirror (see LocalMirror); queries on it never touch the network.
+    public LocalMirror localMirror() {
+        synchronized (FirebaseHelper.class) {
+            if (localMirror == null) localMirror = new LocalMirror(appContext);
+            return localMirror;
+        }
+    }
+
+    // Delta sync into localMirror(). Shared so that syncs from different screens queue instead of overlapping.
+    public MirrorSync mirrorSync() {
+        synchronized (FirebaseHelper.class) {
+            if (mirrorSync == null) mirrorSync = new MirrorSync(db, localMirror());
+            return mirrorSync;
+        }
+    }
+
+    // Firebase Auth on a secondary app, so checking a student's PIN never signs the admin out.
+    private FirebaseAuth verifierAuth() {
+        FirebaseApp verifierApp;
+        try {
+            verifierApp = FirebaseApp.getInstance(VERIFIER_APP);
+        } catch (IllegalStateException e) {
+            verifierApp = FirebaseApp.initializeApp(appContext, FirebaseApp.getInstance().getOptions(), VERIFIER_APP);
+        }
+        return FirebaseAuth.getInstance(verifierApp);
+    }
+
+    /*
+     * Clock In:
+     * - Records an IN punch in the on-device journal and reports success as soon as it is on disk.
+     * - The sync stage later applies it to Firestore through applyClockIn().
+     * - Rejects a second clock-in right away if this device already has the user clocked in.
+     */
+    public void clockIn(FirebaseCallback callback) {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null) {
+            callback.onFailure("No user signed in");
+            return;
+        }
+        clockIn(user.getUid(), callback);
+    }
+
+    // Clock In on behalf of uid (kiosk mode, where the signed-in user is the admin).
+    public void clockIn(String uid, FirebaseCallback callback) {
+        recordPunch(uid, Punch.Type.IN, callback);
+    }
+
     /*
      * Clock Out:
-     * - Reads today's "shifts" array
-     * - Finds the last shift and verifies it is "open" (has inMillis but no outMillis)
-     * - Sets outMillis on that last shift
-     * - Recomputes totalShiftTime for the entire day by summing all closed shifts
-     * - Stores totalShiftTime rounded to nearest tenth
+     * - Records an OUT punch in the on-device journal and reports success as soon as it is on disk.
+     * - The sync stage later applies it to Firestore through applyClockOut().
+     * - Rejects a clock-out right away if this device already has the user clocked out.
      */
     public void clockOut(FirebaseCallback callback) {
         FirebaseUser user = auth.getCurrentUser();
@@ -200,140 +704,1541 @@ public class FirebaseHelper {
             callback.onFailure("No user signed in");
             return;
         }
+        clockOut(user.getUid(), callback);
+    }
 
-        String uid = user.getUid();
-        long outMillis = System.currentTimeMillis();
-
-        String todayKey = getDate();
-        String yesterdayKey = getDateOffset(-1);
+    // Clock Out on behalf of uid (kiosk mode, where the signed-in user is the admin).
+    public void clockOut(String uid, FirebaseCallback callback) {
+        recordPunch(uid, Punch.Type.OUT, callback);
+    }
 
-        DocumentReference todayRef = dayDoc(uid, todayKey);
-        DocumentReference yesterdayRef = dayDoc(uid, yesterdayKey);
+    /*
+     * One-tap punch:
+     * PIN -> uid (local PIN index in kiosk mode, otherwise a Firebase Auth sign-in),
+     * then open-shift check, then clock in or out, whichever is the opposite of the current state.
+     * - The state comes from this device's journal while the student's last punch here is still unsynced or under
+     *   JOURNAL_TRUST_MS old (see journalState), so a burst of punches needs no network. Otherwise the root doc's
+     *   open-shift pointer is read once, so an auto-close by the sweeper or a punch at another tablet is seen.
+     * - Taps for a uid whose punch is still being worked out join that punch instead of starting another,
+     *   and a repeat tap within DOUBLE_TAP_WINDOW_MS reports the punch that was just made.
+     */
+    public void punch(String pin, PunchCallback callback) {
+        long startedAt = SystemClock.elapsedRealtime();
+        long resolveStarted = Metrics.start();
+        resolvePunchUid(pin)
+                .addOnSuccessListener(uid -> {
+                    Metrics.recordSince(isKioskMode() ? "punch.resolvePin.us" : "punch.signIn.us", resolveStarted);
+                    punchUid(uid, startedAt, callback);
+                })
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
 
-        db.runTransaction(transaction -> {
-            // Look for an open shift to close.
-            DocumentSnapshot todaySnap = transaction.get(todayRef);
+    // Kiosk mode resolves the PIN locally; otherwise the student signs in with it as before.
+    private Task<String> resolvePunchUid(String pin) {
+        if (isKioskMode()) {
+            TaskCompletionSource<String> resolved = new TaskCompletionSource<>();
+            resolvePin(pin, new PinCallback() {
+                @Override
+                public void onResolved(String uid) {
+                    resolved.setResult(uid);
+                }
 
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> todayShifts =
-                    (List<Map<String, Object>>) todaySnap.get("shifts");
-            if (todayShifts == null) todayShifts = new ArrayList<>();
-
-            Map<String, Object> openToday = null;
-            for (int i = todayShifts.size() - 1; i >= 0; i--) {
-                Map<String, Object> s = todayShifts.get(i);
-                if (s.get("inMillis") != null && s.get("outMillis") == null) {
-                    openToday = s;
-                    break;
+                @Override
+                public void onFailure(String error) {
+                    resolved.setException(new IllegalStateException(error));
                 }
-            }
+            });
+            return resolved.getTask();
+        }
+        return auth.signInWithEmailAndPassword(pin + "@app.com", pin)
+                .onSuccessTask(result -> Tasks.forResult(Objects.requireNonNull(result.getUser()).getUid()));
+    }
 
-            if (openToday != null) {
-                // Close today's open shift
-                openToday.put("outMillis", outMillis);
+    private void punchUid(String uid, long startedAt, PunchCallback callback) {
+        Punch last = journal.lastPunch(uid);
+        if (last != null && System.currentTimeMillis() - last.millis < DOUBLE_TAP_WINDOW_MS) {
+            callback.onPunched(last.type);
+            return;
+        }
 
-                double totalShiftTime = 0.0;
+        synchronized (inFlightPunches) {
+            List<PunchCallback> waiting = inFlightPunches.get(uid);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlightPunches.put(uid, waiting);
+        }
 
-                for (Map<String, Object> s : todayShifts) {
-                    Object in = s.get("inMillis");
-                    Object out = s.get("outMillis");
+        Punch.Type known = journalState(uid);
+        long stateStarted = Metrics.start();
+        Task<Punch.Type> next = known != null
+                ? Tasks.forResult(known == Punch.Type.IN ? Punch.Type.OUT : Punch.Type.IN)
+                : isShiftOpen(uid).continueWith(t -> {
+                    Metrics.recordSince("punch.stateRead.us", stateStarted);
+                    return t.getResult() ? Punch.Type.OUT : Punch.Type.IN;
+                });
 
-                    if (in != null && out != null) {
-                        long inM = ((Number) in).longValue();
-                        long outM = ((Number) out).longValue();
-                        totalShiftTime += millisToHrs(Math.max(0, outM - inM));
-                    }
+        next.addOnCompleteListener(t -> {
+            if (!t.isSuccessful()) {
+                finishPunch(uid, null, Objects.requireNonNull(t.getException()).getMessage());
+                return;
+            }
+            Punch.Type type = t.getResult();
+            recordPunch(uid, type, new FirebaseCallback() {
+                @Override
+                public void onSuccess() {
+                    Log.d(TAG, "punch " + type + " took " + (SystemClock.elapsedRealtime() - startedAt) + " ms");
+                    Metrics.record("punch.total.us", (SystemClock.elapsedRealtime() - startedAt) * 1000);
+                    finishPunch(uid, type, null);
                 }
-                totalShiftTime = Math.round(totalShiftTime * 10.0) / 10.0;
 
-                Map<String, Object> updates = new HashMap<>();
-                updates.put("date", todayKey);
-                updates.put("shifts", todayShifts);
-                updates.put("totalShiftTime", totalShiftTime);
+                @Override
+                public void onFailure(String error) {
+                    finishPunch(uid, null, error);
+                }
+            });
+        });
+    }
 
-                transaction.set(todayRef, updates, SetOptions.merge());
-                return null;
+    // Answers every caller that was waiting on this uid's punch.
+    private void finishPunch(String uid, Punch.Type type, String error) {
+        List<PunchCallback> waiting;
+        synchronized (inFlightPunches) {
+            waiting = inFlightPunches.remove(uid);
+        }
+        if (waiting == null) return;
+        for (PunchCallback callback : waiting) {
+            if (type != null) {
+                callback.onPunched(type);
+            } else {
+                callback.onFailure(error);
             }
+        }
+    }
 
-            // If no open shift today, check yesterday for an open shift.
-            DocumentSnapshot ySnap = transaction.get(yesterdayRef);
+    /*
+     * True if the user has an open shift.
+     * One read of the root doc's open-shift pointer; users whose root doc predates the pointer
+     * fall back to looking through today's and yesterday's Days docs.
+     */
+    private Task<Boolean> isShiftOpen(String uid) {
+        String todayKey = days.today();
+        String yesterdayKey = dateKey(days.todayStart() - 1);
 
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> yShifts =
-                    (List<Map<String, Object>>) ySnap.get("shifts");
-            if (yShifts == null || yShifts.isEmpty()) {
-                throw new IllegalStateException("No active shift found to clock out from. Please clock in first.");
-            }
+        return userDoc(uid).get().onSuccessTask(user -> {
+            if (user.contains("openShift")) return Tasks.forResult(user.get("openShift") != null);
 
-            Map<String, Object> openYesterday = null;
-            for (int i = yShifts.size() - 1; i >= 0; i--) {
-                Map<String, Object> s = yShifts.get(i);
-                if (s.get("inMillis") != null && s.get("outMillis") == null) {
-                    openYesterday = s;
-                    break;
-                }
-            }
+            return dayDoc(uid, todayKey).get().onSuccessTask(today -> {
+                if (lastOpenIndex(shifts(today)) >= 0) return Tasks.forResult(true);
+                return dayDoc(uid, yesterdayKey).get().continueWith(y -> lastOpenIndex(shifts(y.getResult())) >= 0);
+            });
+        });
+    }
 
-            if (openYesterday == null) {
-                throw new IllegalStateException("No active shift found to clock out from. Please clock in first.");
-            }
+    /*
+     * The user's state as far as this device's journal can vouch for it: the type of their last punch here if it
+     * hasn't synced yet (Firestore can't know about it) or is under JOURNAL_TRUST_MS old, else null.
+     */
+    private Punch.Type journalState(String uid) {
+        Punch last = journal.lastPunch(uid);
+        if (last == null) return null;
+        if (journal.isPending(uid) || System.currentTimeMillis() - last.millis < JOURNAL_TRUST_MS) return last.type;
+        return null;
+    }
 
-            // Split the shift across midnight
-            long startToday = startOfDayMillis(outMillis); // today 00:00:00.000
-            long endYesterday = startToday - 1; // yesterday 23:59:59.999 (displays as 23:59)
-
-            // Close yesterday at 23:59-ish
-            openYesterday.put("outMillis", endYesterday);
-
-            // Create a new shift on TODAY from 00:00 to the real outMillis
-            Map<String, Object> spillShift = new HashMap<>();
-            spillShift.put("inMillis", startToday);
-            spillShift.put("outMillis", outMillis);
-            todayShifts.add(spillShift);
-
-            // Compute shift totals for both days
-            double yTotal = 0.0;
-            for (Map<String, Object> s : yShifts) {
-                Object in = s.get("inMillis");
-                Object out = s.get("outMillis");
-                if (in != null && out != null) {
-                    long inM = ((Number) in).longValue();
-                    long outM = ((Number) out).longValue();
-                    yTotal += millisToHrs(Math.max(0, outM - inM));
-                }
+    // Validates a punch against what this device can vouch for (journalState), journals it, and wakes the sync stage.
+    private void recordPunch(String uid, Punch.Type type, FirebaseCallback callback) {
+        Punch.Type last = journalState(uid);
+        if (type == Punch.Type.IN && last == Punch.Type.IN) {
+            callback.onFailure("Already clocked in. Please clock out first.");
+            return;
+        }
+        if (type == Punch.Type.OUT && last == Punch.Type.OUT) {
+            callback.onFailure("No active shift found to clock out from. Please clock in first.");
+            return;
+        }
+
+        boolean in = type == Punch.Type.IN;
+        long started = Metrics.start();
+        try {
+            journal.append(Punch.create(uid, type, System.currentTimeMillis()));
+        } catch (IOException e) {
+            callback.onFailure(e.getMessage());
+            return;
+        }
+        Metrics.recordSince(in ? "clockIn.journal.us" : "clockOut.journal.us", started);
+
+        long uiStarted = Metrics.start();
+        callback.onSuccess();
+        Metrics.recordSince(in ? "clockIn.ui.us" : "clockOut.ui.us", uiStarted);
+        syncer.requestSync();
+    }
+
+    /*
+     * Sync stage sink: records a batch of journaled punches, then applies them to the shift documents.
+     * - Only punches this session may write are taken: all of them in kiosk mode (the admin session), otherwise
+     *   the leading run that belongs to the signed-in student. The rest wait in the journal for their owner to
+     *   sign in again, rather than being written (and refused) under someone else's account.
+     * - First every punch is written as an immutable event under LoggedHours/{uid}/Punches, in one blind
+     *   WriteBatch: no reads, so tablets never contend with each other here, and the event id is the punch id,
+     *   so a re-sent batch rewrites identical documents. From then on the punch is safely in Firestore.
+     * - Then each punch is applied as its own transaction, in journal order, to the derived documents
+     *   (shifts, day totals, rollups, presence).
+     * - A punch the derived state rejects (double clock-in from another door, clock-out with nothing open)
+     *   is skipped there and its event is marked { rejected: reason }; PunchLog's merge ignores it the same way.
+     * - A punch Firestore will never accept (see isPermanentFailure) is quarantined in the journal and marked
+     *   the same way where its event exists, so it can't hold up every punch behind it.
+     * - Any other failure (offline, contention) fails the batch so the syncer retries it later.
+     */
+    private void applyPunches(List<Punch> batch, PunchSyncer.SinkCallback callback) {
+        List<Punch> owned = ownedPunches(batch);
+        if (owned.isEmpty()) {
+            Metrics.record("sync.batch.held", 1);
+            callback.onFailure("Waiting for " + batch.get(0).uid + " to sign in");
+            return;
+        }
+        Metrics.record("sync.batch.punches", owned.size());
+        long started = Metrics.start();
+        syncPunches(owned)
+                .addOnSuccessListener(v -> {
+                    Metrics.recordSince("sync.batch.us", started);
+                    callback.onApplied(owned.size());
+                })
+                .addOnFailureListener(e -> {
+                    Metrics.record("sync.batch.failures", 1);
+                    callback.onFailure(e.getMessage());
+                });
+    }
+
+    // The leading punches of a batch the current session is allowed to write (see applyPunches).
+    private List<Punch> ownedPunches(List<Punch> batch) {
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null) return Collections.emptyList();
+        if (isKioskMode()) return batch;
+
+        int owned = 0;
+        while (owned < batch.size() && batch.get(owned).uid.equals(user.getUid())) owned++;
+        return batch.subList(0, owned);
+    }
+
+    // The sync stage's Firestore work for one batch. Package-private so the load harness can drive it directly.
+    Task<Void> syncPunches(List<Punch> batch) {
+        Task<Void> chain = recordPunchEvents(batch).onSuccessTask(recorded -> {
+            Task<Void> applied = Tasks.forResult(null);
+            for (Punch punch : recorded) {
+                applied = applied.continueWithTask(previous -> {
+                    if (!previous.isSuccessful()) return previous;
+
+                    return applyPunch(punch).continueWithTask(t -> {
+                        if (t.isSuccessful()) return t;
+                        Exception e = t.getException();
+                        if (isRejected(e)) {
+                            String reason = e.getMessage();
+                            Log.w(TAG, "Not applying punch " + punch.id + ": " + reason);
+                            // Reported on its event doc for an admin to follow up; best effort, like the log line.
+                            return markRejected(punch, reason);
+                        }
+                        if (isPermanentFailure(e)) return quarantine(punch, e);
+                        return t;
+                    });
+                });
             }
-            yTotal = Math.round(yTotal * 10.0) / 10.0;
+            return applied;
+        });
+        return chain;
+    }
 
-            double tTotal = 0.0;
-            for (Map<String, Object> s : todayShifts) {
-                Object in = s.get("inMillis");
-                Object out = s.get("outMillis");
-                if (in != null && out != null) {
-                    long inM = ((Number) in).longValue();
-                    long outM = ((Number) out).longValue();
-                    tTotal += millisToHrs(Math.max(0, outM - inM));
-                }
+    // Writes each punch's event document and returns the punches that now have one, in journal order.
+    private Task<List<Punch>> recordPunchEvents(List<Punch> batch) {
+        // Built inside a task so a punch too malformed to address fails the task instead of throwing here.
+        return Tasks.<Void>forResult(null).continueWithTask(v -> {
+            // A batch is at most SYNC_BATCH_SIZE punches, well under MAX_BATCH_WRITES.
+            WriteBatch events = db.batch();
+            for (Punch punch : batch) {
+                events.set(punchDoc(punch.uid, punch.id), punchEvent(punch));
             }
-            tTotal = Math.round(tTotal * 10.0) / 10.0;
+            return events.commit();
+        }).continueWithTask(t -> {
+            if (t.isSuccessful()) return Tasks.forResult(batch);
+            if (!isPermanentFailure(t.getException())) return Tasks.forException(t.getException());
+            // One bad punch fails the whole batch; write them one at a time to find it.
+            return recordEachPunchEvent(batch);
+        });
+    }
 
-            // Update both documents
-            Map<String, Object> yUpdates = new HashMap<>();
-            yUpdates.put("date", yesterdayKey);
-            yUpdates.put("shifts", yShifts);
-            yUpdates.put("totalShiftTime", yTotal);
+    private Task<List<Punch>> recordEachPunchEvent(List<Punch> batch) {
+        List<Punch> recorded = new ArrayList<>();
+        Task<Void> chain = Tasks.forResult(null);
+        for (Punch punch : batch) {
+            chain = chain.continueWithTask(previous -> {
+                if (!previous.isSuccessful()) return previous;
 
-            Map<String, Object> tUpdates = new HashMap<>();
-            tUpdates.put("date", todayKey);
-            tUpdates.put("shifts", todayShifts);
-            tUpdates.put("totalShiftTime", tTotal);
+                return Tasks.<Void>forResult(null)
+                        .continueWithTask(v -> punchDoc(punch.uid, punch.id).set(punchEvent(punch)))
+                        .continueWithTask(t -> {
+                            if (t.isSuccessful()) {
+                                recorded.add(punch);
+                                return t;
+                            }
+                            if (isPermanentFailure(t.getException())) return quarantine(punch, t.getException());
+                            return t;
+                        });
+            });
+        }
+        return chain.onSuccessTask(v -> Tasks.forResult(recorded));
+    }
 
-            transaction.set(yesterdayRef, yUpdates, SetOptions.merge());
-            transaction.set(todayRef, tUpdates, SetOptions.merge());
+    private Map<String, Object> punchEvent(Punch punch) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", punch.type.name());
+        event.put("millis", punch.millis);
+        event.put("device", deviceId);
+        return event;
+    }
 
-            return null;
-        })
-                .addOnSuccessListener(v -> callback.onSuccess())
-                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    // Flags a punch's event doc as rejected; best effort, since the event may not exist or be writable.
+    private Task<Void> markRejected(Punch punch, String reason) {
+        return Tasks.<Void>forResult(null)
+                .continueWithTask(v -> punchDoc(punch.uid, punch.id).update("rejected", reason))
+                .continueWith(r -> (Void) null);
+    }
+
+    // Sets a punch that can never sync aside in the journal, so the batch can move past it.
+    private Task<Void> quarantine(Punch punch, Exception e) {
+        String reason = String.valueOf(e.getMessage());
+        Log.w(TAG, "Quarantining punch " + punch.id + ": " + reason, e);
+        Metrics.record("sync.quarantined", 1);
+        try {
+            journal.quarantine(punch, reason);
+        } catch (IOException io) {
+            // Not set aside yet, so keep it in the batch and try again later rather than lose it.
+            return Tasks.forException(io);
+        }
+        return markRejected(punch, reason);
+    }
+
+    /*
+     * A member's punch events from every tablet with millis in [fromMillis, untilMillis), as a PunchLog.
+     * Its shifts() are what the derived documents should hold for that window; the load harness checks this.
+     */
+    Task<PunchLog> loadPunchLog(String uid, long fromMillis, long untilMillis) {
+        return userDoc(uid).collection("Punches")
+                .whereGreaterThanOrEqualTo("millis", fromMillis)
+                .whereLessThan("millis", untilMillis)
+                .get()
+                .continueWith(t -> {
+                    PunchLog log = new PunchLog();
+                    for (DocumentSnapshot doc : t.getResult().getDocuments()) {
+                        String type = doc.getString("type");
+                        Long millis = doc.getLong("millis");
+                        String device = doc.getString("device");
+                        if (type == null || millis == null || device == null) continue;
+                        log.add(new PunchEvent(doc.getId(), device, PunchEvent.Type.valueOf(type), millis));
+                    }
+                    return log;
+                });
+    }
+
+    // Applies one punch, first migrating the user to per-shift documents if they are still on the old layout.
+    private Task<Void> applyPunch(Punch punch) {
+        return applyPunchOnce(punch).continueWithTask(t -> {
+            if (!t.isSuccessful() && isMigrationRequired(t.getException())) {
+                return migrateUser(punch.uid).onSuccessTask(v -> applyPunchOnce(punch));
+            }
+            return t;
+        });
+    }
+
+    private Task<Void> applyPunchOnce(Punch punch) {
+        return punch.type == Punch.Type.IN ? applyClockIn(punch) : applyClockOut(punch);
+    }
+
+    // Thrown inside a punch transaction when the user's data is older than USER_SCHEMA_ROLLUPS.
+    private static final class MigrationRequiredException extends RuntimeException {
+        MigrationRequiredException() {
+            super("User data needs migrating to per-shift documents");
+        }
+    }
+
+    private static boolean isMigrationRequired(Exception e) {
+        return e instanceof MigrationRequiredException
+                || (e != null && e.getCause() instanceof MigrationRequiredException);
+    }
+
+    private static void requireCurrentSchema(DocumentSnapshot userSnap) {
+        Long schema = userSnap.getLong("schema");
+        if (schema == null || schema < USER_SCHEMA_ROLLUPS) throw new MigrationRequiredException();
+    }
+
+    // True when a transaction failed because of our own validation rather than the network.
+    private static boolean isRejected(Exception e) {
+        return e instanceof IllegalStateException || (e != null && e.getCause() instanceof IllegalStateException);
+    }
+
+    /*
+     * True when retrying a punch can never succeed: Firestore refusing it outright (rules, a bad argument,
+     * a document that must exist and doesn't), or a punch too malformed to build its writes (a programming
+     * error deep in the cause chain). Offline, deadline, contention, quota and expired-auth errors are
+     * transient: the batch is kept and retried.
+     */
+    static boolean isPermanentFailure(Exception e) {
+        Throwable root = e;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FirebaseFirestoreException) {
+                switch (((FirebaseFirestoreException) cause).getCode()) {
+                    case INVALID_ARGUMENT:
+                    case NOT_FOUND:
+                    case ALREADY_EXISTS:
+                    case PERMISSION_DENIED:
+                    case OUT_OF_RANGE:
+                    case UNIMPLEMENTED:
+                    case DATA_LOSS:
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+            // Network and rate-limit errors.
+            if (cause instanceof FirebaseException) return false;
+            root = cause;
+        }
+        return root instanceof RuntimeException && !(root instanceof MigrationRequiredException);
+    }
+
+    // Reads the ids of punches already applied to a day document.
+    @SuppressWarnings("unchecked")
+    private static List<String> punchIds(DocumentSnapshot snapshot) {
+        List<String> ids = (List<String>) snapshot.get("punchIds");
+        return ids == null ? new ArrayList<>() : ids;
+    }
+
+    // Reads a schema 1 day document's shifts array. If the document is new, "shifts" will be null.
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> shifts(DocumentSnapshot snapshot) {
+        List<Map<String, Object>> shifts = (List<Map<String, Object>>) snapshot.get("shifts");
+        return shifts == null ? new ArrayList<>() : shifts;
+    }
+
+    /*
+     * Copies a schema 1 shifts array into ShiftLedger's parallel arrays, index for index.
+     * Entries without inMillis become empty closed shifts so indexes still line up with the array.
+     */
+    static void toLedger(List<Map<String, Object>> shifts, long[] ins, long[] outs) {
+        for (int i = 0; i < shifts.size(); i++) {
+            Object in = shifts.get(i).get("inMillis");
+            Object out = shifts.get(i).get("outMillis");
+            ins[i] = in == null ? 0 : ((Number) in).longValue();
+            outs[i] = in == null ? 0 : out == null ? ShiftLedger.OPEN : ((Number) out).longValue();
+        }
+    }
+
+    // Index of the last shift that has inMillis but no outMillis, or -1.
+    private static int lastOpenIndex(List<Map<String, Object>> shifts) {
+        long[] ins = new long[shifts.size()];
+        long[] outs = new long[shifts.size()];
+        toLedger(shifts, ins, outs);
+        return ShiftLedger.lastOpenIndex(outs, shifts.size());
+    }
+
+    // Sums the length of every closed shift in milliseconds.
+    private static long closedMillis(List<Map<String, Object>> shifts) {
+        long[] ins = new long[shifts.size()];
+        long[] outs = new long[shifts.size()];
+        toLedger(shifts, ins, outs);
+        return ShiftLedger.closedMillis(ins, outs, shifts.size());
+    }
+
+    /*
+     * A day's exact total. Day docs that never got one are summed from their legacy shifts array, and a legacy
+     * doc with no shifts array either falls back to its rounded totalShiftTime hours.
+     */
+    static long dayTotalMillis(DocumentSnapshot day) {
+        Long total = day.getLong("totalMillis");
+        if (total != null) return total;
+        List<Map<String, Object>> shifts = shifts(day);
+        Double roundedHours = day.getDouble("totalShiftTime");
+        if (shifts.isEmpty() && roundedHours != null) return Math.round(roundedHours * 3_600_000);
+        return closedMillis(shifts);
+    }
+
+    /*
+     * The days in one LoggedHours/{uid}/Archives/season-YYYY-N chunk (see SeasonArchiver).
+     * An unreadable chunk is logged and reads as empty, so one bad archive can't break a report.
+     */
+    static List<SeasonArchive.Day> archivedDays(DocumentSnapshot archive) {
+        Blob blob = archive.getBlob("archive");
+        if (blob == null) return new ArrayList<>();
+        try {
+            return SeasonArchive.decode(blob.toBytes());
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Unreadable season archive " + archive.getReference().getPath(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /*
+     * Day doc fields for a given total: exact totalMillis plus totalShiftTime rounded to the nearest tenth.
+     * packed is the day's complete PackedShifts blob, or null when it isn't known, in which case any stale
+     * blob is removed and readers go to the Shifts subcollection.
+     * updatedAt is the cursor MirrorSync uses to fetch only the day docs that changed.
+     */
+    private Map<String, Object> dayTotals(String dateKey, long totalMillis, byte[] packed) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("date", dateKey);
+        updates.put("totalMillis", totalMillis);
+        updates.put("totalShiftTime", ShiftLedger.roundedHours(totalMillis));
+        updates.put("packedShifts", packed == null ? FieldValue.delete() : Blob.fromBytes(packed));
+        updates.put("schema", packed == null ? DAY_SCHEMA_SHIFT_DOCS : DAY_SCHEMA_PACKED);
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return updates;
+    }
+
+    /*
+     * The day's packed shifts with one more closed shift appended, or null if that can't be done exactly:
+     * the day already has closed shifts from before packing (it has a total but no blob), or its blob is unreadable.
+     * A day doc that doesn't exist yet, or only has an open shift, starts a new blob.
+     */
+    private byte[] packedWith(DocumentSnapshot day, String dateKey, long inMillis, long outMillis) {
+        Blob packed = day == null ? null : day.getBlob("packedShifts");
+        if (packed == null && day != null && day.contains("totalMillis")) return null;
+        try {
+            return PackedShifts.append(packed == null ? null : packed.toBytes(), dayStartFromKey(dateKey), inMillis, outMillis);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Dropping unreadable packed shifts on " + dateKey, e);
+            return null;
+        }
+    }
+
+    // Adds millis worked on the day containing whenMillis to that day's week, month and season (negative: removes).
+    private void addToRollups(Map<String, Long> rollups, long whenMillis, long millis) {
+        if (millis == 0) return;
+        for (String key : new String[]{weekKey(whenMillis), monthKey(whenMillis), seasonKey(whenMillis)}) {
+            Long current = rollups.get(key);
+            rollups.put(key, current == null ? millis : current + millis);
+        }
+    }
+
+    /*
+     * Rollup doc fields. totalMillis is either an exact value or a FieldValue.increment().
+     * updatedAt changes with every write, so a month rollup's is the version MonthCache keys that month on.
+     */
+    private static Map<String, Object> rollupFields(String uid, String rollupKey, Object totalMillis) {
+        Map<String, Object> rollup = new HashMap<>();
+        rollup.put("uid", uid);
+        rollup.put("key", rollupKey);
+        rollup.put("period", rollupKey.substring(0, rollupKey.indexOf('-')));
+        rollup.put("totalMillis", totalMillis);
+        rollup.put("updatedAt", FieldValue.serverTimestamp());
+        return rollup;
+    }
+
+    private static Map<String, Object> shiftFields(long inMillis, long outMillis) {
+        Map<String, Object> shift = new HashMap<>();
+        shift.put("inMillis", inMillis);
+        shift.put("outMillis", outMillis);
+        return shift;
+    }
+
+    /*
+     * Applies a journaled IN punch:
+     * - Creates Days/{date}/Shifts/{punchId} = { inMillis } for the day of the punch time (not of the sync time)
+     * - Prevents double clock-in through the open-shift pointer on LoggedHours/{uid}
+     * - Points the open-shift pointer at the new shift: openShift = { date, shiftId, inMillis }
+     * - Adds the user to the team presence index Presence/team
+     * Only the small root doc and the (usually missing) shift doc are read; the day's other shifts are never touched.
+     * The shift id is the punch id, so a retried punch finds its shift already there and does nothing.
+     */
+    private Task<Void> applyClockIn(Punch punch) {
+        String dateKey = dateKey(punch.millis);
+        DocumentReference userRef = userDoc(punch.uid);
+        DocumentReference shiftRef = shiftDoc(punch.uid, dateKey, punch.id);
+        TxnStats stats = TxnStats.start();
+
+        Task<Void> applied = db.runTransaction(transaction -> {
+                    DocumentSnapshot userSnap = transaction.get(userRef);
+                    DocumentSnapshot shiftSnap = transaction.get(shiftRef);
+                    if (stats != null) stats.attempt(userSnap, shiftSnap);
+                    requireCurrentSchema(userSnap);
+
+                    // Already applied by an earlier attempt of this batch.
+                    if (shiftSnap.exists()) return null;
+
+                    // Prevent repeated clock-ins: the pointer is non-null while a shift is open.
+                    if (userSnap.get("openShift") != null) {
+                        throw new IllegalStateException("Already clocked in. Please clock out first.");
+                    }
+
+                    // Create the new shift. Later, applyClockOut() will fill in outMillis on this same document.
+                    Map<String, Object> newShift = new HashMap<>();
+                    newShift.put("inMillis", punch.millis);
+                    transaction.set(shiftRef, newShift);
+
+                    // Make sure the day doc exists so the day shows up in Days queries. Its schema is left to
+                    // the clock-out, which knows whether the day's packed shifts are complete.
+                    Map<String, Object> day = new HashMap<>();
+                    day.put("date", dateKey);
+                    day.put("updatedAt", FieldValue.serverTimestamp());
+                    transaction.set(dayDoc(punch.uid, dateKey), day, SetOptions.merge());
+
+                    // Remember where the open shift lives so clockOut can go straight to it.
+                    Map<String, Object> pointer = new HashMap<>();
+                    pointer.put("date", dateKey);
+                    pointer.put("shiftId", punch.id);
+                    pointer.put("inMillis", punch.millis);
+
+                    // A new shift also ends any chance of a late clock-out correcting the last auto-closed one.
+                    Map<String, Object> userUpdates = new HashMap<>();
+                    userUpdates.put("openShift", pointer);
+                    userUpdates.put("autoClosedShift", null);
+                    transaction.set(userRef, userUpdates, SetOptions.merge());
+
+                    // Add them to the team presence index (a blind write, no read).
+                    Map<String, Object> entry = new HashMap<>();
+                    entry.put("inMillis", punch.millis);
+                    entry.put("username", userSnap.getString("username"));
+                    transaction.set(presenceDoc(), presenceFields(punch.uid, entry), SetOptions.merge());
+                    return null;
+                });
+        if (stats != null) stats.recordWhenDone(applied, "clockIn");
+        return applied;
+    }
+
+    /*
+     * Applies a journaled OUT punch:
+     * - Follows the open-shift pointer on LoggedHours/{uid} to the open shift document,
+     *   however many days ago the shift was opened
+     * - Closes the shift, splitting it at every midnight it crosses:
+     *      opening day: in -> 23:59:59.999 (the open shift document itself)
+     *      each full day in between: 00:00 -> 23:59:59.999 (new Shifts/{punchId} document)
+     *      punch day: 00:00 -> outMillis (new Shifts/{punchId} document)
+     * - Adds each piece to its day's exact totalMillis and refreshes totalShiftTime (rounded to nearest tenth),
+     *   and to the day's packedShifts (see packedWith)
+     * - Adds each piece to the week, month and season rollups of its day (exact millis, FieldValue.increment),
+     *   and the season's to the member's team total shard (see teamShardDoc)
+     * - Clears the pointer and records the punch id on the punch's day doc so a retried batch is a no-op
+     * - Removes the user from the team presence index Presence/team
+     * A clock-out timed before its clock-in is rejected.
+     * Reads are the root doc and at most two small day docs; no shift list is downloaded or rewritten.
+     */
+    private Task<Void> applyClockOut(Punch punch) {
+        String uid = punch.uid;
+        long outMillis = punch.millis;
+
+        // Keys are relative to when the student punched, so a late sync still lands on the right days.
+        String todayKey = dateKey(outMillis);
+
+        DocumentReference userRef = userDoc(uid);
+        DocumentReference todayRef = dayDoc(uid, todayKey);
+        TxnStats stats = TxnStats.start();
+
+        Task<Void> applied = db.runTransaction(transaction -> {
+            DocumentSnapshot userSnap = transaction.get(userRef);
+            requireCurrentSchema(userSnap);
+            DocumentSnapshot todaySnap = transaction.get(todayRef);
+            if (stats != null) stats.attempt(userSnap, todaySnap);
+
+            // Already applied by an earlier attempt of this batch.
+            if (punchIds(todaySnap).contains(punch.id)) return null;
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> pointer = (Map<String, Object>) userSnap.get("openShift");
+            if (pointer == null) {
+                // Not indexed for meeting attendance here; the corrected shift is picked up on the next index build.
+                if (correctAutoClosed(transaction, punch, userSnap, todaySnap)) return null;
+                throw new IllegalStateException("No active shift found to clock out from. Please clock in first.");
+            }
+            String openKey = (String) pointer.get("date");
+            String shiftId = (String) pointer.get("shiftId");
+            long inMillis = ((Number) Objects.requireNonNull(pointer.get("inMillis"))).longValue();
+            if (outMillis < inMillis) {
+                // A skewed tablet clock, or a punch replayed from another tablet. Rejected (see syncPunches) and
+                // left open for the sweeper, rather than split backwards across days it never covered.
+                throw new IllegalStateException("Clock-out at " + outMillis + " is before the clock-in at " + inMillis);
+            }
+
+            DocumentSnapshot openDaySnap = todayKey.equals(openKey) ? todaySnap : transaction.get(dayDoc(uid, openKey));
+            if (stats != null && openDaySnap != todaySnap) stats.read(openDaySnap);
+            long todayTotal = dayTotalMillis(todaySnap);
+
+            // Split the shift at every midnight it crosses (see ShiftLedger.split).
+            int pieces = ShiftLedger.dayCount(inMillis, outMillis, days);
+            long[] starts = new long[pieces];
+            long[] ends = new long[pieces];
+            ShiftLedger.split(inMillis, outMillis, days, starts, ends);
+
+            // Every piece of the shift is also added to the rollups of the day it falls on.
+            Map<String, Long> rollups = new HashMap<>();
+
+            // Piece 0 closes the open shift itself: at the real outMillis, or at 23:59-ish (23:59:59.999)
+            // if the shift crossed midnight.
+            Map<String, Object> closed = new HashMap<>();
+            closed.put("outMillis", ends[0]);
+            transaction.set(shiftDoc(uid, openKey, shiftId), closed, SetOptions.merge());
+
+            long firstMillis = ShiftLedger.segmentMillis(starts[0], ends[0]);
+            addToRollups(rollups, starts[0], firstMillis);
+            byte[] openPacked = packedWith(openDaySnap, openKey, starts[0], ends[0]);
+            if (todayKey.equals(openKey)) {
+                todayTotal += firstMillis;
+            } else {
+                transaction.set(dayDoc(uid, openKey),
+                        dayTotals(openKey, dayTotalMillis(openDaySnap) + firstMillis, openPacked), SetOptions.merge());
+            }
+
+            // Later pieces are new shifts on their own days: every full day in between, then TODAY from 00:00
+            // to the real outMillis. Nobody can clock in while a shift is open, so the full days hold nothing
+            // else and are written blind.
+            for (int i = 1; i < pieces; i++) {
+                String pieceKey = dateKey(starts[i]);
+                long pieceMillis = ShiftLedger.segmentMillis(starts[i], ends[i]);
+                transaction.set(shiftDoc(uid, pieceKey, punch.id), shiftFields(starts[i], ends[i]));
+                addToRollups(rollups, starts[i], pieceMillis);
+
+                if (i == pieces - 1) {
+                    todayTotal += pieceMillis;
+                } else {
+                    byte[] piecePacked = PackedShifts.encode(dayStartFromKey(pieceKey),
+                            new long[]{starts[i]}, new long[]{ends[i]}, 1);
+                    transaction.set(dayDoc(uid, pieceKey), dayTotals(pieceKey, pieceMillis, piecePacked),
+                            SetOptions.merge());
+                }
+            }
+
+            // Rollups are blind increments, so they add no reads and no contention to the transaction.
+            for (Map.Entry<String, Long> rollup : rollups.entrySet()) {
+                transaction.set(rollupDoc(uid, rollup.getKey()),
+                        rollupFields(uid, rollup.getKey(), FieldValue.increment(rollup.getValue())),
+                        SetOptions.merge());
+            }
+
+            // So is the team's season total, on this member's shard only: a burst of clock-outs is spread
+            // over TEAM_TOTAL_SHARDS documents instead of all committing to one.
+            for (Map.Entry<DocumentReference, Map<String, Object>> shard
+                    : teamShardWrites(uid, userSnap.getString("username"), rollups).entrySet()) {
+                transaction.set(shard.getKey(), shard.getValue(), SetOptions.merge());
+            }
+
+            // Update the punch day: its packed shifts gain the one piece that lands on it. The open day's blob is
+            // only reused when it is the same document.
+            byte[] todayPacked = todayKey.equals(openKey) ? openPacked
+                    : packedWith(todaySnap, todayKey, starts[pieces - 1], ends[pieces - 1]);
+            Map<String, Object> tUpdates = dayTotals(todayKey, todayTotal, todayPacked);
+            tUpdates.put("punchIds", FieldValue.arrayUnion(punch.id));
+            transaction.set(todayRef, tUpdates, SetOptions.merge());
+
+            // Nothing is open any more.
+            Map<String, Object> userUpdates = new HashMap<>();
+            userUpdates.put("openShift", null);
+            transaction.set(userRef, userUpdates, SetOptions.merge());
+
+            // Take them out of the team presence index (a blind write, no read).
+            transaction.set(presenceDoc(), presenceFields(uid, FieldValue.delete()), SetOptions.merge());
+
+            return inMillis;
+        }).onSuccessTask(inMillis -> {
+            // null: this punch had already been applied, so its shift is already indexed.
+            if (inMillis != null) indexClosedShift(uid, inMillis, outMillis);
+            return Tasks.forResult(null);
+        });
+        if (stats != null) stats.recordWhenDone(applied, "clockOut");
+        return applied;
+    }
+
+    /*
+     * A clock-out that finds nothing open because the sweeper auto-closed the shift first (say the tablet was
+     * offline and synced late) corrects that shift instead of being dropped, as long as it lands on the shift's
+     * own day: the credited outMillis becomes the real one, and the day total, rollups and team shard move by
+     * the difference. One on a later day is still rejected, so nobody is credited a night by a morning punch.
+     * The day's packed shifts are dropped (readers fall back to the Shifts subcollection), since one of them
+     * changes. Returns false when there is no such shift, and writes nothing.
+     */
+    private boolean correctAutoClosed(Transaction transaction, Punch punch, DocumentSnapshot userSnap,
+                                      DocumentSnapshot daySnap) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> autoClosed = (Map<String, Object>) userSnap.get("autoClosedShift");
+        if (autoClosed == null) return false;
+        String key = (String) autoClosed.get("date");
+        String shiftId = (String) autoClosed.get("shiftId");
+        Number inMillis = (Number) autoClosed.get("inMillis");
+        Number creditedOut = (Number) autoClosed.get("outMillis");
+        if (key == null || shiftId == null || inMillis == null || creditedOut == null) return false;
+        if (!key.equals(dateKey(punch.millis)) || punch.millis <= inMillis.longValue()) return false;
+
+        String uid = punch.uid;
+        long delta = punch.millis - creditedOut.longValue();
+
+        Map<String, Object> shift = new HashMap<>();
+        shift.put("outMillis", punch.millis);
+        shift.put("autoClosed", FieldValue.delete());
+        transaction.set(shiftDoc(uid, key, shiftId), shift, SetOptions.merge());
+
+        Map<String, Object> day = dayTotals(key, dayTotalMillis(daySnap) + delta, null);
+        day.put("punchIds", FieldValue.arrayUnion(punch.id));
+        transaction.set(dayDoc(uid, key), day, SetOptions.merge());
+
+        Map<String, Long> rollups = new HashMap<>();
+        addToRollups(rollups, inMillis.longValue(), delta);
+        for (Map.Entry<String, Long> rollup : rollups.entrySet()) {
+            transaction.set(rollupDoc(uid, rollup.getKey()),
+                    rollupFields(uid, rollup.getKey(), FieldValue.increment(rollup.getValue())),
+                    SetOptions.merge());
+        }
+        for (Map.Entry<DocumentReference, Map<String, Object>> shard
+                : teamShardWrites(uid, userSnap.getString("username"), rollups).entrySet()) {
+            transaction.set(shard.getKey(), shard.getValue(), SetOptions.merge());
+        }
+
+        Map<String, Object> userUpdates = new HashMap<>();
+        userUpdates.put("autoClosedShift", null);
+        transaction.set(userDoc(uid), userUpdates, SetOptions.merge());
+        return true;
+    }
+
+    /*
+     * Per-transaction measurements, only allocated while Metrics is enabled:
+     * how many times Firestore ran the transaction function (1 = no contention retries),
+     * roughly how many bytes the final attempt read, and the time until the commit finished.
+     */
+    private static final class TxnStats {
+        private final long started = System.nanoTime();
+        private int attempts;
+        private long readBytes;
+
+        static TxnStats start() {
+            return Metrics.isEnabled() ? new TxnStats() : null;
+        }
+
+        // Called at the top of every run of the transaction function, with the docs it always reads.
+        synchronized void attempt(DocumentSnapshot... reads) {
+            attempts++;
+            readBytes = 0;
+            for (DocumentSnapshot snap : reads) read(snap);
+        }
+
+        synchronized void read(DocumentSnapshot snap) {
+            readBytes += approxDocBytes(snap);
+        }
+
+        void recordWhenDone(Task<?> task, String op) {
+            task.addOnCompleteListener(t -> {
+                synchronized (this) {
+                    Metrics.recordSince(op + ".txn.us", started);
+                    Metrics.record(op + ".attempts", attempts);
+                    Metrics.record(op + ".read.bytes", readBytes);
+                    if (!t.isSuccessful()) Metrics.record(op + ".failures", 1);
+                }
+            });
+        }
+    }
+
+    /*
+     * Migration of a user's data to the current schema.
+     * Runs automatically the first time a punch is applied for a user on an older schema.
+     * - Schema 1 -> 2: legacy shift i of a day becomes Days/{date}/Shifts/legacy-i,
+     *   and the day doc gets its exact totalMillis and schema 2.
+     *   The legacy arrays are left in place; readers use the Shifts subcollection for schema 2 day docs.
+     * - Schema 1: the newest open legacy shift becomes the open-shift pointer.
+     * - Any schema: rollups are rebuilt from scratch out of the day totals.
+     * Ids are deterministic and totals absolute, so an interrupted migration can simply rerun.
+     * Writes go out in batches of at most MAX_BATCH_WRITES; the root doc gets the new schema last.
+     */
+    private Task<Void> migrateUser(String uid) {
+        Task<DocumentSnapshot> userTask = userDoc(uid).get();
+        Task<QuerySnapshot> daysTask = userDoc(uid).collection("Days").get();
+
+        return Tasks.whenAllSuccess(userTask, daysTask).onSuccessTask(results -> {
+            DocumentSnapshot userSnap = userTask.getResult();
+            Long userSchema = userSnap.getLong("schema");
+            boolean hasShiftDocs = userSchema != null && userSchema >= USER_SCHEMA_SHIFT_DOCS;
+
+            List<WriteBatch> batches = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int ops = 0;
+
+            Map<String, Object> pointer = null;
+            String pointerKey = null;
+            Map<String, Long> rollups = new HashMap<>();
+
+            for (DocumentSnapshot day : daysTask.getResult().getDocuments()) {
+                Long daySchema = day.getLong("schema");
+                List<Map<String, Object>> shifts = shifts(day);
+                long dayMillis = dayTotalMillis(day);
+
+                if (daySchema == null || daySchema < DAY_SCHEMA_SHIFT_DOCS) {
+                    if (ops > 0 && ops + shifts.size() + 1 > MAX_BATCH_WRITES) {
+                        batches.add(batch);
+                        batch = db.batch();
+                        ops = 0;
+                    }
+
+                    for (int i = 0; i < shifts.size(); i++) {
+                        batch.set(shiftDoc(uid, day.getId(), "legacy-" + i), new HashMap<>(shifts.get(i)));
+                        ops++;
+                    }
+                    dayMillis = closedMillis(shifts);
+                    batch.set(day.getReference(), dayTotals(day.getId(), dayMillis, null), SetOptions.merge());
+                    ops++;
+                }
+
+                // Once the root is on shift documents the legacy arrays are stale, so only look for open ones before that.
+                int open = hasShiftDocs ? -1 : lastOpenIndex(shifts);
+                if (open >= 0 && (pointerKey == null || day.getId().compareTo(pointerKey) > 0)) {
+                    pointerKey = day.getId();
+                    pointer = new HashMap<>();
+                    pointer.put("date", pointerKey);
+                    pointer.put("shiftId", "legacy-" + open);
+                    pointer.put("inMillis", shifts.get(open).get("inMillis"));
+                }
+
+                addToRollups(rollups, dayStartFromKey(day.getId()), dayMillis);
+            }
+
+            for (Map.Entry<String, Long> rollup : rollups.entrySet()) {
+                if (ops + 1 > MAX_BATCH_WRITES) {
+                    batches.add(batch);
+                    batch = db.batch();
+                    ops = 0;
+                }
+                batch.set(rollupDoc(uid, rollup.getKey()), rollupFields(uid, rollup.getKey(), rollup.getValue()));
+                ops++;
+            }
+            if (ops > 0) batches.add(batch);
+
+            Task<Void> chain = Tasks.forResult(null);
+            for (WriteBatch b : batches) {
+                chain = chain.onSuccessTask(v -> b.commit());
+            }
+
+            Map<String, Object> userUpdates = new HashMap<>();
+            userUpdates.put("schema", USER_SCHEMA_ROLLUPS);
+            if (!hasShiftDocs) userUpdates.put("openShift", pointer);
+            return chain.onSuccessTask(v -> userDoc(uid).set(userUpdates, SetOptions.merge()));
+        });
+    }
+
+    /*
+     * Stale-shift sweeper: closes every open shift that started more than cutoffMillis ago.
+     * - Finds them with one query on the open-shift pointer (openShift.inMillis < now - cutoff), paged.
+     * - Closes each at ShiftLedger.staleCloseMillis: creditMillis after clock-in, capped at the end of
+     *   the clock-in day, so nothing is split and nobody is credited a near-full day by a late clock-out.
+     * - Per member, in one transaction: re-reads the pointer and skips the member unless it still names the
+     *   shift the query found, then closes the shift doc (marked autoClosed), rewrites the day's
+     *   totalMillis/totalShiftTime, increments the three rollups and the member's team shard, moves the pointer
+     *   to autoClosedShift so a late clock-out can still correct it, and removes them from presence.
+     * Every kiosk tablet runs the sweeper, and the rollup and shard increments are blind, so the pointer check is
+     * what keeps two tablets (or a clock-out landing meanwhile) from crediting the same shift twice: whichever
+     * commits first clears the pointer, and the other transaction retries, sees it gone and skips.
+     * Completes with how many shifts this run closed.
+     */
+    public Task<Integer> sweepStaleShifts(long cutoffMillis, long creditMillis) {
+        Query stale = db.collection("LoggedHours")
+                .whereLessThan("openShift.inMillis", System.currentTimeMillis() - cutoffMillis)
+                .orderBy("openShift.inMillis")
+                .limit(SWEEP_PAGE_SIZE);
+        return sweepPage(stale, null, creditMillis, 0);
+    }
+
+    private Task<Integer> sweepPage(Query query, DocumentSnapshot after, long creditMillis, int closedSoFar) {
+        Query page = after == null ? query : query.startAfter(after);
+        return page.get().onSuccessTask(snapshot -> {
+            List<DocumentSnapshot> members = snapshot.getDocuments();
+
+            List<Task<Boolean>> closes = new ArrayList<>();
+            for (DocumentSnapshot member : members) {
+                closes.add(closeStaleShift(member, creditMillis));
+            }
+
+            return Tasks.whenAllSuccess(closes).onSuccessTask(results -> {
+                int total = closedSoFar;
+                for (Object closed : results) {
+                    if (Boolean.TRUE.equals(closed)) total++;
+                }
+                if (members.size() < SWEEP_PAGE_SIZE) return Tasks.forResult(total);
+                return sweepPage(query, members.get(members.size() - 1), creditMillis, total);
+            });
+        });
+    }
+
+    // Closes one member's stale shift; completes with false if it was no longer open when the transaction ran.
+    private Task<Boolean> closeStaleShift(DocumentSnapshot member, long creditMillis) {
+        String uid = member.getId();
+        String openKey = (String) member.get("openShift.date");
+        String shiftId = (String) member.get("openShift.shiftId");
+        Long inMillis = member.getLong("openShift.inMillis");
+        if (openKey == null || shiftId == null || inMillis == null) return Tasks.forResult(false);
+
+        DocumentReference userRef = member.getReference();
+        DocumentReference dayRef = dayDoc(uid, openKey);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot userSnap = transaction.get(userRef);
+            // Another sweeper or a clock-out got here first, or they have since clocked in again.
+            if (!shiftId.equals(userSnap.getString("openShift.shiftId"))
+                    || !openKey.equals(userSnap.getString("openShift.date"))) {
+                return false;
+            }
+            DocumentSnapshot daySnap = transaction.get(dayRef);
+
+            long outMillis = ShiftLedger.staleCloseMillis(inMillis, creditMillis, days);
+            long shiftMillis = ShiftLedger.segmentMillis(inMillis, outMillis);
+            Map<String, Long> rollups = new HashMap<>();
+            addToRollups(rollups, inMillis, shiftMillis);
+
+            Map<String, Object> shiftUpdates = new HashMap<>();
+            shiftUpdates.put("outMillis", outMillis);
+            shiftUpdates.put("autoClosed", true);
+            transaction.set(shiftDoc(uid, openKey, shiftId), shiftUpdates, SetOptions.merge());
+
+            transaction.set(dayRef, dayTotals(openKey, dayTotalMillis(daySnap) + shiftMillis,
+                    packedWith(daySnap, openKey, inMillis, outMillis)), SetOptions.merge());
+
+            for (Map.Entry<String, Long> rollup : rollups.entrySet()) {
+                transaction.set(rollupDoc(uid, rollup.getKey()),
+                        rollupFields(uid, rollup.getKey(), FieldValue.increment(rollup.getValue())),
+                        SetOptions.merge());
+            }
+            for (Map.Entry<DocumentReference, Map<String, Object>> shard
+                    : teamShardWrites(uid, userSnap.getString("username"), rollups).entrySet()) {
+                transaction.set(shard.getKey(), shard.getValue(), SetOptions.merge());
+            }
+
+            // Remembered so a late clock-out for this shift can still correct it (see correctAutoClosed).
+            Map<String, Object> autoClosed = new HashMap<>();
+            autoClosed.put("date", openKey);
+            autoClosed.put("shiftId", shiftId);
+            autoClosed.put("inMillis", inMillis);
+            autoClosed.put("outMillis", outMillis);
+
+            Map<String, Object> userUpdates = new HashMap<>();
+            userUpdates.put("openShift", null);
+            userUpdates.put("autoClosedShift", autoClosed);
+            transaction.set(userRef, userUpdates, SetOptions.merge());
+
+            transaction.set(presenceDoc(), presenceFields(uid, FieldValue.delete()), SetOptions.merge());
+            return true;
+        });
+    }
+
+    /*
+     * Corrects a season's team shards from the members' season rollups, healing any count the increments got
+     * wrong (shifts closed before the shards existed, a shard write lost to a failed batch, and so on).
+     * - Lists the season's rollups with one collection-group query, and the usernames from the profiles.
+     * - One transaction per shard reads the shard itself plus the season rollup of every member that is in
+     *   either the shard or the query, then writes only the difference as FieldValue.increment()s (a member
+     *   whose rollup is gone is removed). Nothing is overwritten from the earlier query: a member created or
+     *   clocking out meanwhile either lands before the transaction reads the shard and is corrected with the
+     *   rest, or changes the shard under it and makes the transaction retry.
+     * (Needs a collection-group index exemption on Rollups.key.) Completes with how many members were counted.
+     */
+    public Task<Integer> rebuildTeamTotals(int season) {
+        String rollupKey = "season-" + season;
+        Task<QuerySnapshot> rollupsTask = db.collectionGroup("Rollups")
+                .whereEqualTo("key", rollupKey)
+                .get(Source.SERVER);
+        Task<QuerySnapshot> profilesTask = db.collection("LoggedHours").get(Source.SERVER);
+
+        return Tasks.whenAllSuccess(rollupsTask, profilesTask).onSuccessTask(results -> {
+            Map<String, String> usernames = new HashMap<>();
+            for (DocumentSnapshot profile : profilesTask.getResult().getDocuments()) {
+                usernames.put(profile.getId(), profile.getString("username"));
+            }
+
+            List<Set<String>> byShard = new ArrayList<>();
+            for (int shard = 0; shard < TEAM_TOTAL_SHARDS; shard++) byShard.add(new HashSet<>());
+            for (DocumentSnapshot rollup : rollupsTask.getResult().getDocuments()) {
+                String uid = rollup.getReference().getParent().getParent().getId();
+                byShard.get(TeamLeaderboard.shardOf(uid, TEAM_TOTAL_SHARDS)).add(uid);
+            }
+
+            List<Task<Void>> shardTasks = new ArrayList<>();
+            for (int s = 0; s < TEAM_TOTAL_SHARDS; s++) {
+                int shard = s;
+                DocumentReference shardRef = teamShardDoc(season, shard);
+                shardTasks.add(db.runTransaction(transaction -> {
+                    DocumentSnapshot shardSnap = transaction.get(shardRef);
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> counted = (Map<String, Object>) shardSnap.get("members");
+                    if (counted == null) counted = new HashMap<>();
+
+                    Set<String> uids = new HashSet<>(byShard.get(shard));
+                    uids.addAll(counted.keySet());
+                    Map<String, DocumentSnapshot> rollups = new HashMap<>();
+                    for (String uid : uids) rollups.put(uid, transaction.get(rollupDoc(uid, rollupKey)));
+
+                    long totalDelta = 0;
+                    Map<String, Object> members = new HashMap<>();
+                    for (String uid : uids) {
+                        long had = countedMillis(counted.get(uid));
+                        DocumentSnapshot rollup = rollups.get(uid);
+                        if (!rollup.exists()) {
+                            if (counted.containsKey(uid)) members.put(uid, FieldValue.delete());
+                            totalDelta -= had;
+                            continue;
+                        }
+                        Long millis = rollup.getLong("totalMillis");
+                        long delta = (millis == null ? 0 : millis) - had;
+                        Map<String, Object> member = new HashMap<>();
+                        member.put("millis", FieldValue.increment(delta));
+                        if (usernames.get(uid) != null) member.put("username", usernames.get(uid));
+                        members.put(uid, member);
+                        totalDelta += delta;
+                    }
+                    transaction.set(shardRef,
+                            teamShardFields(season, shard, FieldValue.increment(totalDelta), members),
+                            SetOptions.merge());
+                    return null;
+                }));
+            }
+            int membersCounted = rollupsTask.getResult().size();
+            return Tasks.whenAll(shardTasks).onSuccessTask(v -> Tasks.forResult(membersCounted));
+        });
+    }
+
+    // A member's millis as stored in a team shard's members map, or 0.
+    private static long countedMillis(Object member) {
+        if (!(member instanceof Map)) return 0;
+        Object millis = ((Map<?, ?>) member).get("millis");
+        return millis instanceof Number ? ((Number) millis).longValue() : 0;
+    }
+
+    /*
+     * Who is in the building right now.
+     * One snapshot listener on the single Presence/team document, so the whole team costs one read
+     * and every clock in/out is pushed as it happens. Entries are sorted by who arrived first.
+     * Call remove() on the returned registration when the screen goes away.
+     */
+    public ListenerRegistration listenToPresence(PresenceCallback callback) {
+        return presenceDoc().addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                callback.onFailure(e.getMessage());
+                return;
+            }
+
+            List<PresenceEntry> entries = new ArrayList<>();
+            @SuppressWarnings("unchecked")
+            Map<String, Object> present = snapshot == null ? null : (Map<String, Object>) snapshot.get("present");
+            if (present != null) {
+                for (Map.Entry<String, Object> member : present.entrySet()) {
+                    if (!(member.getValue() instanceof Map)) continue;
+                    Map<?, ?> fields = (Map<?, ?>) member.getValue();
+                    Object in = fields.get("inMillis");
+                    Object username = fields.get("username");
+                    entries.add(new PresenceEntry(member.getKey(),
+                            username == null ? member.getKey() : username.toString(),
+                            in instanceof Number ? ((Number) in).longValue() : 0));
+                }
+            }
+            entries.sort((a, b) -> Long.compare(a.inMillis, b.inMillis));
+            callback.onPresence(entries);
+        });
+    }
+
+    /*
+     * The team's season total and hours leaderboard, live.
+     * Every screen shares one listener on the current season's shards (see TeamBoard), so opening the board
+     * again costs nothing while another screen still has it. A new season gets a new board; screens still
+     * subscribed to the old one keep it until they remove their registration.
+     * Call remove() on the returned registration when the screen goes away.
+     */
+    public ListenerRegistration listenToTeamBoard(TeamBoard.BoardCallback callback) {
+        return teamBoard().listen(callback);
+    }
+
+    private TeamBoard teamBoard() {
+        int season = seasonStartYear(System.currentTimeMillis());
+        synchronized (FirebaseHelper.class) {
+            if (teamBoard == null || teamBoardSeason != season) {
+                teamBoard = new TeamBoard(teamShards(season));
+                teamBoardSeason = season;
+            }
+            return teamBoard;
+        }
+    }
+
+    /*
+     * Reads one rollup total (see weekKey/monthKey/seasonKey), e.g. a member's whole season in a single read.
+     * A rollup that doesn't exist yet means nothing was logged in that period.
+     */
+    public void getRollupMillis(String uid, String rollupKey, MillisCallback callback) {
+        rollupDoc(uid, rollupKey).get()
+                .addOnSuccessListener(snapshot -> {
+                    Long total = snapshot.getLong("totalMillis");
+                    callback.onResult(total == null ? 0 : total);
+                })
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+
+    // The instant hour:minute falls on a YYYY-MM-DD date key in the team's time zone, for meeting times.
+    public long teamTimeMillis(String dateKey, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(days.zone());
+        calendar.clear();
+        calendar.set(Integer.parseInt(dateKey.substring(0, 4)), Integer.parseInt(dateKey.substring(5, 7)) - 1,
+                Integer.parseInt(dateKey.substring(8, 10)), hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    // Adds a meeting to the team schedule (from the diagnostics screen's Add Meeting dialog). Needs verifyAdmin() first.
+    public void addMeeting(String title, long startMillis, long endMillis, FirebaseCallback callback) {
+        if (!isAdminUnlocked()) {
+            callback.onFailure("Admin password required");
+            return;
+        }
+        if (endMillis <= startMillis) {
+            callback.onFailure("A meeting has to end after it starts.");
+            return;
+        }
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("title", title);
+        fields.put("startMillis", startMillis);
+        fields.put("endMillis", endMillis);
+        meetingsRef().add(fields)
+                .addOnSuccessListener(ref -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+    /*
+     * Meeting attendance for the season that started in startYear.
+     * - The first call reads the season's meetings plus every closed shift of the season, once, into a
+     *   MeetingAttendance index. Shifts come from a Days collection-group query on date (the same index the
+     *   season report's aggregation uses): one read per member-day, decoded from packedShifts without building
+     *   maps. Only days from before packing fall back to reading their Shifts subcollection.
+     * - After that, "who was at meeting X" and per-member season percentages are answered from the index
+     *   in O(log n + k) per meeting, without going back to Firestore.
+     * - Clock-outs applied on this device are added to the index as they happen. Shifts closed on other
+     *   devices show up the next time the process builds the index.
+     */
+    public void getSeasonAttendance(int startYear, AttendanceCallback callback) {
+        long from = dayStartFromKey(SeasonReport.seasonStartKey(startYear));
+        long until = dayStartFromKey(SeasonReport.seasonStartKey(startYear + 1));
+
+        Task<List<Meeting>> meetings = meetingsRef()
+                .whereGreaterThanOrEqualTo("startMillis", from)
+                .whereLessThan("startMillis", until)
+                .orderBy("startMillis")
+                .get()
+                .continueWith(t -> {
+                    List<Meeting> result = new ArrayList<>();
+                    for (DocumentSnapshot doc : t.getResult().getDocuments()) {
+                        Long start = doc.getLong("startMillis");
+                        Long end = doc.getLong("endMillis");
+                        if (start == null || end == null) continue;
+                        result.add(new Meeting(doc.getId(), doc.getString("title"), start, end));
+                    }
+                    return result;
+                });
+
+        Tasks.whenAllSuccess(meetings, attendanceIndex(startYear))
+                .addOnSuccessListener(results -> {
+                    @SuppressWarnings("unchecked")
+                    List<Meeting> schedule = (List<Meeting>) results.get(0);
+                    callback.onAttendance(schedule, (MeetingAttendance) results.get(1));
+                })
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+    // Builds the season's index once per process; concurrent callers share the same load, a failed load is retried.
+    private Task<MeetingAttendance> attendanceIndex(int startYear) {
+        synchronized (FirebaseHelper.class) {
+            boolean failed = attendanceTask != null && attendanceTask.isComplete() && !attendanceTask.isSuccessful();
+            if (attendanceTask != null && attendanceSeason == startYear && !failed) return attendanceTask;
+
+            MeetingAttendance index = new MeetingAttendance();
+            Query days = db.collectionGroup("Days")
+                    .whereGreaterThanOrEqualTo("date", SeasonReport.seasonStartKey(startYear))
+                    .whereLessThan("date", SeasonReport.seasonStartKey(startYear + 1))
+                    .orderBy("date")
+                    .limit(ATTENDANCE_PAGE_SIZE);
+
+            attendanceSeason = startYear;
+            attendance = null;
+            Set<String> liveDays = new HashSet<>();
+            // Closed seasons may have been compacted into Archives; a day that also has a live doc is counted once.
+            attendanceTask = loadDayPages(days, null, index, liveDays).onSuccessTask(v ->
+                    db.collectionGroup("Archives").whereEqualTo("season", startYear).get()
+            ).onSuccessTask(archives -> {
+                indexArchivedShifts(archives, index, liveDays);
+                synchronized (FirebaseHelper.class) {
+                    if (attendanceSeason == startYear) attendance = index;
+                }
+                return Tasks.forResult(index);
+            });
+            return attendanceTask;
+        }
+    }
+
+    /*
+     * Pages through day docs with a startAfter cursor, adding each day's closed shifts to the index
+     * and each day's uid/date to seen.
+     * Packed days are decoded in place; the Shifts of unpacked days that have a total are fetched
+     * together before the next page is requested.
+     */
+    private Task<Void> loadDayPages(Query query, DocumentSnapshot after, MeetingAttendance index, Set<String> seen) {
+        Query page = after == null ? query : query.startAfter(after);
+        return page.get().onSuccessTask(snapshot -> {
+            List<Task<QuerySnapshot>> unpacked = new ArrayList<>();
+            long[] ins = new long[8];
+            long[] outs = new long[8];
+            for (DocumentSnapshot day : snapshot.getDocuments()) {
+                // LoggedHours/{uid}/Days/{date}
+                String uid = day.getReference().getParent().getParent().getId();
+                seen.add(uid + "/" + day.getId());
+                Blob blob = day.getBlob("packedShifts");
+                if (blob == null) {
+                    if (day.contains("totalMillis")) unpacked.add(day.getReference().collection("Shifts").get());
+                    continue;
+                }
+
+                byte[] packed = blob.toBytes();
+                try {
+                    int count = PackedShifts.count(packed);
+                    if (count > ins.length) {
+                        ins = new long[count];
+                        outs = new long[count];
+                    }
+                    PackedShifts.decode(packed, dayStartFromKey(day.getId()), ins, outs);
+                    for (int i = 0; i < count; i++) index.addShift(uid, ins[i], outs[i]);
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Unreadable packed shifts on " + day.getReference().getPath(), e);
+                    unpacked.add(day.getReference().collection("Shifts").get());
+                }
+            }
+
+            return Tasks.whenAllSuccess(unpacked).onSuccessTask(shiftPages -> {
+                for (Object shifts : shiftPages) {
+                    for (DocumentSnapshot shift : ((QuerySnapshot) shifts).getDocuments()) {
+                        Long in = shift.getLong("inMillis");
+                        Long out = shift.getLong("outMillis");
+                        if (in == null || out == null) continue; // still open
+
+                        // LoggedHours/{uid}/Days/{date}/Shifts/{id}
+                        String uid = shift.getReference().getParent().getParent().getParent().getParent().getId();
+                        index.addShift(uid, in, out);
+                    }
+                }
+                if (snapshot.size() < ATTENDANCE_PAGE_SIZE) return Tasks.forResult(null);
+                return loadDayPages(query, snapshot.getDocuments().get(snapshot.size() - 1), index, seen);
+            });
+        });
+    }
+
+    // Adds the packed shifts of every archived day not in liveDays (uid/date) to the index.
+    private void indexArchivedShifts(QuerySnapshot archives, MeetingAttendance index, Set<String> liveDays) {
+        long[] ins = new long[8];
+        long[] outs = new long[8];
+        for (DocumentSnapshot archive : archives.getDocuments()) {
+            // LoggedHours/{uid}/Archives/season-YYYY-N
+            String uid = archive.getReference().getParent().getParent().getId();
+            for (SeasonArchive.Day day : archivedDays(archive)) {
+                if (day.packedShifts == null || liveDays.contains(uid + "/" + day.date)) continue;
+                try {
+                    int count = PackedShifts.count(day.packedShifts);
+                    if (count > ins.length) {
+                        ins = new long[count];
+                        outs = new long[count];
+                    }
+                    PackedShifts.decode(day.packedShifts, dayStartFromKey(day.date), ins, outs);
+                    for (int i = 0; i < count; i++) index.addShift(uid, ins[i], outs[i]);
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Unreadable archived shifts for " + uid + " on " + day.date, e);
+                }
+            }
+        }
+    }
+
+    // Keeps a loaded attendance index current as clock-outs are applied on this device.
+    private static void indexClosedShift(String uid, long inMillis, long outMillis) {
+        MeetingAttendance index;
+        synchronized (FirebaseHelper.class) {
+            index = attendance;
+        }
+        if (index != null) index.addShift(uid, inMillis, outMillis);
+    }
+
+    /*
+     * Loads one month (YYYY-MM) of a member's Days, newest first, for the history screen.
+     * Closed months come from the local MonthCache when present at the month's current version (one read of the
+     * month rollup, see monthVersion). Anything else is read from Firestore in HISTORY_PAGE_SIZE pages ordered by
+     * the date key, and cached afterwards, with the version read first, if the month is closed.
+     * Months of past seasons also read the season's archive (one or two docs) and merge in the days it holds.
+     * cached tells whether the month came from MonthCache; bytesFetched estimates how much came from the server.
+     */
+    public void getHistoryMonth(String uid, String month, MonthCache cache, HistoryCallback callback) {
+        if (!MonthCache.isClosed(month, getDate())) {
+            loadHistoryMonth(uid, month, null, null, callback);
+            return;
+        }
+        monthVersion(uid, month).addOnCompleteListener(v -> {
+            // Can't check the version (offline): nothing is cached or served from the cache this time.
+            Long version = v.isSuccessful() ? v.getResult() : null;
+            if (version != null) {
+                try {
+                    List<HistoryDay> cached = cache.get(month, version);
+                    if (cached != null) {
+                        callback.onMonth(cached, true, 0);
+                        return;
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "History cache unreadable for " + month, e);
+                }
+            }
+            loadHistoryMonth(uid, month, cache, version, callback);
+        });
+    }
+
+    // A month's version for MonthCache: its rollup's updatedAt in millis, 0 for a month with no (stamped) rollup.
+    private Task<Long> monthVersion(String uid, String month) {
+        return rollupDoc(uid, "month-" + month).get(Source.SERVER).continueWith(t -> {
+            Timestamp updatedAt = t.getResult().getTimestamp("updatedAt");
+            return updatedAt == null ? 0L : updatedAt.toDate().getTime();
+        });
+    }
+
+    // Reads a month from Firestore; caches it under version when a cache and version are given.
+    private void loadHistoryMonth(String uid, String month, MonthCache cache, Long version, HistoryCallback callback) {
+        Query query = userDoc(uid).collection("Days")
+                .whereGreaterThanOrEqualTo("date", month + "-01")
+                .whereLessThan("date", MonthCache.nextMonth(month) + "-01")
+                .orderBy("date", Query.Direction.DESCENDING)
+                .limit(HISTORY_PAGE_SIZE);
+
+        int season = seasonOfKey(month);
+        Task<QuerySnapshot> archives = season < seasonStartYear(System.currentTimeMillis())
+                ? userDoc(uid).collection("Archives").whereEqualTo("season", season).get()
+                : Tasks.forResult(null);
+
+        loadHistoryPages(query, null, new HistoryLoad())
+                .continueWithTask(t -> archives.continueWith(a -> mergeArchivedMonth(t.getResult(), a.getResult(), month)))
+                .addOnSuccessListener(load -> {
+                    // Pages answered from Firestore's offline cache may be incomplete, so only cache server reads.
+                    if (cache != null && version != null && !load.fromCache) {
+                        try {
+                            cache.put(month, version, load.days);
+                        } catch (IOException e) {
+                            Log.w(TAG, "Could not cache history for " + month, e);
+                        }
+                    }
+                    callback.onMonth(load.days, false, load.bytes);
+                })
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
+    }
+
+    // What loadHistoryPages has collected so far.
+    private static class HistoryLoad {
+        final List<HistoryDay> days = new ArrayList<>();
+        long bytes;
+        boolean fromCache;
+    }
+
+    // Adds the archived days of month that have no live doc, keeping the list newest first.
+    private static HistoryLoad mergeArchivedMonth(HistoryLoad load, QuerySnapshot archives, String month) {
+        if (archives == null || archives.isEmpty()) return load;
+        load.fromCache |= archives.getMetadata().isFromCache();
+
+        Set<String> live = new HashSet<>();
+        for (HistoryDay day : load.days) live.add(day.date);
+        for (DocumentSnapshot archive : archives.getDocuments()) {
+            if (!archive.getMetadata().isFromCache()) load.bytes += approxDocBytes(archive);
+            for (SeasonArchive.Day day : archivedDays(archive)) {
+                if (day.date.startsWith(month) && !live.contains(day.date)) {
+                    load.days.add(new HistoryDay(day.date, day.totalMillis));
+                }
+            }
+        }
+        load.days.sort((a, b) -> b.date.compareTo(a.date));
+        return load;
+    }
+
+    // Follows the startAfter cursor until a short page, collecting every day along the way.
+    private Task<HistoryLoad> loadHistoryPages(Query query, DocumentSnapshot after, HistoryLoad load) {
+        Query page = after == null ? query : query.startAfter(after);
+        return page.get().onSuccessTask(snapshot -> {
+            load.fromCache |= snapshot.getMetadata().isFromCache();
+            for (DocumentSnapshot day : snapshot.getDocuments()) {
+                if (!day.getMetadata().isFromCache()) load.bytes += approxDocBytes(day);
+                load.days.add(new HistoryDay(day.getId(), dayTotalMillis(day)));
+            }
+            if (snapshot.size() < HISTORY_PAGE_SIZE) {
+                return Tasks.forResult(load);
+            }
+            return loadHistoryPages(query, snapshot.getDocuments().get(snapshot.size() - 1), load);
+        });
+    }
+
+    /*
+     * Rough size of a document using Firestore's storage size rules (path + field names + values + 32 bytes).
+     * The SDK doesn't expose wire sizes, so this is only good for comparing loads, not billing.
+     */
+    private static long approxDocBytes(DocumentSnapshot doc) {
+        long bytes = 32 + doc.getReference().getPath().length() + 1;
+        Map<String, Object> data = doc.getData();
+        if (data == null) return bytes;
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            bytes += field.getKey().length() + 1;
+            Object value = field.getValue();
+            if (value instanceof String) {
+                bytes += ((String) value).length() + 1;
+            } else if (value instanceof Blob) {
+                bytes += ((Blob) value).toBytes().length;
+            } else if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    bytes += item instanceof String ? ((String) item).length() + 1 : 8;
+                }
+            } else {
+                bytes += 8;
+            }
+        }
+        return bytes;
+    }
+
+    /*
+     * Finds the oldest month (YYYY-MM) with any Days, so the history screen knows where to stop paging.
+     * Two single-doc queries (live Days and Archives) the first time, cached after that.
+     * Calls onMonth(null) if there's no history yet.
+     */
+    public void getFirstHistoryMonth(String uid, MonthCache cache, MonthCallback callback) {
+        try {
+            String first = cache.getFirstMonth();
+            if (first != null) {
+                callback.onMonth(first);
+                return;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "History cache unreadable", e);
+        }
+
+        // The oldest live day, and the oldest archived one in case early seasons were compacted.
+        Task<QuerySnapshot> live = userDoc(uid).collection("Days").orderBy("date").limit(1).get();
+        Task<QuerySnapshot> archived = userDoc(uid).collection("Archives").orderBy("firstDate").limit(1).get();
+        Tasks.whenAllSuccess(live, archived)
+                .addOnSuccessListener(results -> {
+                    String first = null;
+                    boolean fromCache = false;
+                    for (Object result : results) {
+                        QuerySnapshot snapshot = (QuerySnapshot) result;
+                        fromCache |= snapshot.getMetadata().isFromCache();
+                        if (snapshot.isEmpty()) continue;
+                        DocumentSnapshot doc = snapshot.getDocuments().get(0);
+                        String date = doc.contains("firstDate") ? doc.getString("firstDate") : doc.getId();
+                        if (date != null && (first == null || date.compareTo(first) < 0)) first = date;
+                    }
+                    if (first == null) {
+                        callback.onMonth(null);
+                        return;
+                    }
+                    first = first.substring(0, 7);
+                    if (!fromCache) {
+                        try {
+                            cache.setFirstMonth(first);
+                        } catch (IOException e) {
+                            Log.w(TAG, "Could not cache first history month", e);
+                        }
+                    }
+                    callback.onMonth(first);
+                })
+                .addOnFailureListener(e -> callback.onFailure(e.getMessage()));
     }
 
 
@@ -342,4 +2247,46 @@ public class FirebaseHelper {
         void onSuccess();
         void onFailure(String error);
     }
+
+    // Callback for punch(): which way the student was clocked, or why the punch failed.
+    public interface PunchCallback {
+        void onPunched(Punch.Type type);
+        void onFailure(String error);
+    }
+
+    // Callback for listenToPresence(): the full list of members currently clocked in, on every change.
+    public interface PresenceCallback {
+        void onPresence(List<PresenceEntry> entries);
+        void onFailure(String error);
+    }
+
+    // Callback for reads that produce a duration in milliseconds.
+    public interface MillisCallback {
+        void onResult(long millis);
+        void onFailure(String error);
+    }
+
+    // Callback for getHistoryMonth(): one month of days, newest first, and the estimated bytes read from the server.
+    public interface HistoryCallback {
+        void onMonth(List<HistoryDay> days, boolean cached, long bytesFetched);
+        void onFailure(String error);
+    }
+
+    // Callback for getSeasonAttendance(): the season's meetings and the index to ask who attended them.
+    public interface AttendanceCallback {
+        void onAttendance(List<Meeting> meetings, MeetingAttendance attendance);
+        void onFailure(String error);
+    }
+
+    // Callback for getFirstHistoryMonth(): the oldest month with history, or null when there is none.
+    public interface MonthCallback {
+        void onMonth(String month);
+        void onFailure(String error);
+    }
+
+    // Callback for resolvePin(): the uid the PIN belongs to, or why it could not be resolved.
+    public interface PinCallback {
+        void onResolved(String uid);
+        void onFailure(String error);
+    }
 }
\ No newline at end of file
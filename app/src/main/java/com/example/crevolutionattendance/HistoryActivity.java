@@ -0,0 +1,211 @@
+package com.example.crevolutionattendance;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+import android.widget.ImageView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.EdgeToEdge;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * A member's past days, newest first, loaded a month at a time as they scroll.
+ *
+ * Months come from FirebaseHelper.getHistoryMonth, which serves closed months from the on-disk MonthCache,
+ * so after the first visit a closed month costs one rollup read (its version check) instead of its Days.
+ * The stats line shows bytes read from the server (estimated) and, while scrolling, frame times from FrameMetrics.
+ */
+public class HistoryActivity extends AppCompatActivity {
+    private static final String TAG = "HistoryActivity";
+
+    // Whose history to show; defaults to the signed-in user (in kiosk mode that is the admin, so it is always set).
+    public static final String EXTRA_UID = "uid";
+
+    // Start loading the next month when the user is this many rows from the bottom.
+    private static final int PREFETCH_ROWS = 10;
+    // Keep loading months until at least a screenful of rows is shown (skips empty summer months).
+    private static final int MIN_ROWS = 20;
+    private static final long FRAME_BUDGET_NANOS = 16_666_667L;
+
+    private TextView historyStats;
+    private RecyclerView historyList;
+    private ImageView returnButton;
+    private FirebaseHelper firebaseHelper;
+    private HistoryAdapter adapter;
+    private MonthCache cache;
+    private String uid;
+
+    private final List<HistoryDay> days = new ArrayList<>();
+    private String nextMonth;   // next (older) month to load
+    private String firstMonth;  // oldest month with history; stop after it
+    private boolean loading;
+    private long bytesFetched;
+    private int monthsFromCache, monthsFromNetwork;
+
+    // Frame stats, written on the metrics thread while the list is scrolling.
+    private HandlerThread metricsThread;
+    private volatile boolean scrolling;
+    private long frames, jankyFrames, worstFrameNanos, totalFrameNanos;
+    private final Window.OnFrameMetricsAvailableListener frameListener = (window, metrics, dropped) -> {
+        if (!scrolling) return;
+        long nanos = metrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        synchronized (this) {
+            frames++;
+            totalFrameNanos += nanos;
+            if (nanos > FRAME_BUDGET_NANOS) jankyFrames++;
+            if (nanos > worstFrameNanos) worstFrameNanos = nanos;
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_history);
+        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.history), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        historyStats = findViewById(R.id.historyStats);
+        historyList = findViewById(R.id.historyList);
+        returnButton = findViewById(R.id.returnButton);
+        firebaseHelper = AttendanceApp.firebaseHelper(this);
+
+        uid = getIntent().getStringExtra(EXTRA_UID);
+        if (uid == null) uid = FirebaseAuth.getInstance().getCurrentUser().getUid();
+
+        try {
+            cache = new MonthCache(new File(getFilesDir(), "history/" + uid));
+        } catch (IOException e) {
+            Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+
+        adapter = new HistoryAdapter();
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        historyList.setLayoutManager(layoutManager);
+        historyList.setAdapter(adapter);
+        historyList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                scrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_ROWS) {
+                    loadNextMonth();
+                }
+            }
+        });
+
+        returnButton.setOnClickListener(v -> finish());
+
+        nextMonth = firebaseHelper.getDate().substring(0, 7);
+        loading = true;
+        firebaseHelper.getFirstHistoryMonth(uid, cache, new FirebaseHelper.MonthCallback() {
+            @Override
+            public void onMonth(String month) {
+                loading = false;
+                firstMonth = month;
+                if (month == null) {
+                    historyStats.setText("No shifts yet");
+                    return;
+                }
+                loadNextMonth();
+            }
+
+            @Override
+            public void onFailure(String error) {
+                loading = false;
+                Toast.makeText(HistoryActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void loadNextMonth() {
+        if (loading || firstMonth == null || nextMonth.compareTo(firstMonth) < 0) return;
+        loading = true;
+        String month = nextMonth;
+
+        firebaseHelper.getHistoryMonth(uid, month, cache, new FirebaseHelper.HistoryCallback() {
+            @Override
+            public void onMonth(List<HistoryDay> monthDays, boolean cached, long bytes) {
+                loading = false;
+                if (isFinishing() || isDestroyed()) return;
+                if (cached) monthsFromCache++;
+                else monthsFromNetwork++;
+                bytesFetched += bytes;
+
+                days.addAll(monthDays);
+                adapter.submitList(new ArrayList<>(days));
+                nextMonth = MonthCache.previousMonth(month);
+                showStats();
+
+                if (days.size() < MIN_ROWS) loadNextMonth();
+            }
+
+            @Override
+            public void onFailure(String error) {
+                loading = false;
+                Toast.makeText(HistoryActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showStats() {
+        String stats = String.format(Locale.getDefault(), "%d months cached, %d fetched, ~%.1f KB read",
+                monthsFromCache, monthsFromNetwork, bytesFetched / 1024.0);
+        synchronized (this) {
+            if (frames > 0) {
+                stats += String.format(Locale.getDefault(), " · %d frames, avg %.1f ms, worst %.1f ms, %d janky",
+                        frames, totalFrameNanos / 1e6 / frames, worstFrameNanos / 1e6, jankyFrames);
+            }
+        }
+        historyStats.setText(stats);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        metricsThread = new HandlerThread("history-frame-metrics");
+        metricsThread.start();
+        getWindow().addOnFrameMetricsAvailableListener(frameListener, new Handler(metricsThread.getLooper()));
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (metricsThread != null) {
+            getWindow().removeOnFrameMetricsAvailableListener(frameListener);
+            metricsThread.quitSafely();
+            metricsThread = null;
+        }
+        showStats();
+        Log.i(TAG, historyStats.getText().toString());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.crevolutionattendance;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+
+import java.util.Locale;
+
+/*
+ * Rows of the history screen, one per day. ListAdapter diffs each submitted list on a background thread,
+ * so appending a month only binds the new rows and a refreshed current month only rebinds the days that changed.
+ */
+public class HistoryAdapter extends ListAdapter<HistoryDay, HistoryAdapter.DayHolder> {
+
+    private static final DiffUtil.ItemCallback<HistoryDay> DIFF = new DiffUtil.ItemCallback<HistoryDay>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull HistoryDay oldDay, @NonNull HistoryDay newDay) {
+            return oldDay.date.equals(newDay.date);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull HistoryDay oldDay, @NonNull HistoryDay newDay) {
+            return oldDay.equals(newDay);
+        }
+    };
+
+    public HistoryAdapter() {
+        super(DIFF);
+    }
+
+    @NonNull
+    @Override
+    public DayHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View row = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history_day, parent, false);
+        return new DayHolder(row);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull DayHolder holder, int position) {
+        HistoryDay day = getItem(position);
+        holder.date.setText(day.date);
+        holder.hours.setText(String.format(Locale.getDefault(), "%.1f h", ShiftLedger.roundedHours(day.totalMillis)));
+    }
+
+    static class DayHolder extends RecyclerView.ViewHolder {
+        final TextView date;
+        final TextView hours;
+
+        DayHolder(View row) {
+            super(row);
+            date = row.findViewById(R.id.dayDate);
+            hours = row.findViewById(R.id.dayHours);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.crevolutionattendance;
+
+import java.util.Objects;
+
+/*
+ * One day of a member's attendance history, as shown on the history screen (a Days/{date} doc's totals).
+ */
+public final class HistoryDay {
+    public final String date;
+    public final long totalMillis;
+
+    public HistoryDay(String date, long totalMillis) {
+        this.date = date;
+        this.totalMillis = totalMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HistoryDay)) return false;
+        HistoryDay other = (HistoryDay) o;
+        return totalMillis == other.totalMillis && date.equals(other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, totalMillis);
+    }
+}
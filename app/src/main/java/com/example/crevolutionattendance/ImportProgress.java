@@ -0,0 +1,73 @@
+package com.example.crevolutionattendance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Which roster PINs have been fully onboarded (auth account exists and profile is written), so an
+ * interrupted import can be rerun and skip straight past them.
+ *
+ * File format (roster_import in the given directory): one line per finished student: <pin>,<uid>
+ * Lines are only appended after their profile batch committed, and fsync'd, so the file never claims
+ * more than Firestore has. A torn last line from a crash is ignored (that student is simply redone).
+ */
+public class ImportProgress {
+    private static final String PROGRESS_FILE = "roster_import";
+
+    private final File file;
+    private final Map<String, String> uidByPin = new HashMap<>();
+
+    public ImportProgress(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create import directory " + dir);
+        }
+        file = new File(dir, PROGRESS_FILE);
+        load();
+    }
+
+    public synchronized boolean isDone(String pin) {
+        return uidByPin.containsKey(pin);
+    }
+
+    public synchronized int size() {
+        return uidByPin.size();
+    }
+
+    // Records students whose profiles are now in Firestore. pins and uids are parallel lists.
+    public synchronized void markDone(List<String> pins, List<String> uids) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < pins.size(); i++) {
+            lines.append(pins.get(i)).append(',').append(uids.get(i)).append('\n');
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(lines.toString());
+            writer.flush();
+            out.getFD().sync();
+        }
+        for (int i = 0; i < pins.size(); i++) uidByPin.put(pins.get(i), uids.get(i));
+    }
+
+    private void load() throws IOException {
+        if (!file.isFile()) return;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma <= 0 || comma == line.length() - 1) continue;
+                uidByPin.put(line.substring(0, comma), line.substring(comma + 1));
+            }
+        }
+    }
+}
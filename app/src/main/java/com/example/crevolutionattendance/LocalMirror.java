@@ -0,0 +1,198 @@
+package com.example.crevolutionattendance;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * On-device SQLite copy of every member's profile name and day totals, for mentor reports.
+ *
+ * Tables:
+ *      members(uid PRIMARY KEY, username)
+ *      days(uid, date, total_millis, PRIMARY KEY(uid, date)) plus an index on date
+ *      cursors(name PRIMARY KEY, millis): how far MirrorSync has read each Firestore source
+ * Reports are plain indexed SQL over these tables: no network, no Firestore reads, and nothing
+ * is re-downloaded once a day has been mirrored (MirrorSync only fetches what changed).
+ *
+ * Writes come from MirrorSync's thread; queries may run on any thread (SQLite serializes them).
+ */
+public class LocalMirror extends SQLiteOpenHelper {
+    private static final String DB_NAME = "mirror.db";
+    private static final int DB_VERSION = 1;
+
+    static final String CURSOR_MEMBERS = "members";
+    static final String CURSOR_DAYS = "days";
+    static final String CURSOR_ARCHIVES = "archives";
+
+    public LocalMirror(Context context) {
+        this(context, DB_NAME);
+    }
+
+    // A null name gives an in-memory database, for tests.
+    LocalMirror(Context context, String name) {
+        super(context.getApplicationContext(), name, null, DB_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Lets report queries run while a sync page is being written.
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE members (uid TEXT PRIMARY KEY, username TEXT)");
+        db.execSQL("CREATE TABLE days (uid TEXT NOT NULL, date TEXT NOT NULL, total_millis INTEGER NOT NULL,"
+                + " PRIMARY KEY (uid, date)) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX days_by_date ON days (date, uid, total_millis)");
+        db.execSQL("CREATE TABLE cursors (name TEXT PRIMARY KEY, millis INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here can be re-mirrored from Firestore, so an upgrade just starts over.
+        db.execSQL("DROP TABLE IF EXISTS members");
+        db.execSQL("DROP TABLE IF EXISTS days");
+        db.execSQL("DROP TABLE IF EXISTS cursors");
+        onCreate(db);
+    }
+
+    // How far a source has been mirrored, or -1 if it never has (MirrorSync then does a full copy).
+    long cursor(String name) {
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT millis FROM cursors WHERE name = ?", new String[]{name})) {
+            return c.moveToFirst() ? c.getLong(0) : -1;
+        }
+    }
+
+    // Upserts one page of members and days and advances the cursors, all in one SQLite transaction.
+    void apply(Map<String, String> usernames, List<MirroredDay> days, Map<String, Long> cursors) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (Map.Entry<String, String> member : usernames.entrySet()) {
+                values.clear();
+                values.put("uid", member.getKey());
+                values.put("username", member.getValue());
+                db.insertWithOnConflict("members", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (MirroredDay day : days) {
+                values.clear();
+                values.put("uid", day.uid);
+                values.put("date", day.date);
+                values.put("total_millis", day.totalMillis);
+                db.insertWithOnConflict("days", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (Map.Entry<String, Long> cursor : cursors.entrySet()) {
+                values.clear();
+                values.put("name", cursor.getKey());
+                values.put("millis", cursor.getValue());
+                db.insertWithOnConflict("cursors", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // One member's day as it goes into the mirror.
+    static final class MirroredDay {
+        final String uid;
+        final String date;
+        final long totalMillis;
+
+        MirroredDay(String uid, String date, long totalMillis) {
+            this.uid = uid;
+            this.date = date;
+            this.totalMillis = totalMillis;
+        }
+    }
+
+    // Every member's hours for dates in [fromKey, untilKey), most hours first. Members with no hours are left out.
+    public List<MemberTotal> totals(String fromKey, String untilKey) {
+        List<MemberTotal> totals = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT d.uid, m.username, SUM(d.total_millis) AS total, COUNT(*) FROM days d"
+                        + " LEFT JOIN members m ON m.uid = d.uid"
+                        + " WHERE d.date >= ? AND d.date < ? AND d.total_millis > 0"
+                        + " GROUP BY d.uid ORDER BY total DESC",
+                new String[]{fromKey, untilKey})) {
+            while (c.moveToNext()) {
+                totals.add(new MemberTotal(c.getString(0), c.isNull(1) ? c.getString(0) : c.getString(1),
+                        c.getLong(2), c.getInt(3)));
+            }
+        }
+        return totals;
+    }
+
+    // One member's days with hours in [fromKey, untilKey), oldest first.
+    public List<HistoryDay> days(String uid, String fromKey, String untilKey) {
+        List<HistoryDay> days = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT date, total_millis FROM days WHERE uid = ? AND date >= ? AND date < ? AND total_millis > 0"
+                        + " ORDER BY date",
+                new String[]{uid, fromKey, untilKey})) {
+            while (c.moveToNext()) days.add(new HistoryDay(c.getString(0), c.getLong(1)));
+        }
+        return days;
+    }
+
+    // One member's hours per week (keyed by the week's Monday, YYYY-MM-DD) in [fromKey, untilKey), oldest first.
+    public Map<String, Long> weeklyTotals(String uid, String fromKey, String untilKey) {
+        Map<String, Long> weeks = new LinkedHashMap<>();
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT date(date, '-6 days', 'weekday 1') AS week, SUM(total_millis) FROM days"
+                        + " WHERE uid = ? AND date >= ? AND date < ? AND total_millis > 0"
+                        + " GROUP BY week ORDER BY week",
+                new String[]{uid, fromKey, untilKey})) {
+            while (c.moveToNext()) weeks.put(c.getString(0), c.getLong(1));
+        }
+        return weeks;
+    }
+
+    /*
+     * Every member's attendance streak: how many weeks in a row, ending with the week of todayKey or the one
+     * before it (this week may not have had a meeting yet), they logged any hours. Members at 0 are left out.
+     */
+    public Map<String, Integer> weekStreaks(String todayKey) {
+        Map<String, Integer> streaks = new LinkedHashMap<>();
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT DISTINCT uid, CAST(julianday(date(date, '-6 days', 'weekday 1')) AS INTEGER) / 7 AS week"
+                        + " FROM days WHERE total_millis > 0 AND date <= ? ORDER BY uid, week DESC",
+                new String[]{todayKey})) {
+            long thisWeek = -1;
+            try (Cursor t = getReadableDatabase().rawQuery(
+                    "SELECT CAST(julianday(date(?, '-6 days', 'weekday 1')) AS INTEGER) / 7", new String[]{todayKey})) {
+                if (t.moveToFirst()) thisWeek = t.getLong(0);
+            }
+
+            String uid = null;
+            long expected = 0;
+            int streak = 0;
+            while (c.moveToNext()) {
+                String rowUid = c.getString(0);
+                long week = c.getLong(1);
+                if (!rowUid.equals(uid)) {
+                    if (streak > 0) streaks.put(uid, streak);
+                    uid = rowUid;
+                    streak = 0;
+                    // The newest week must be this one or last one, or there is no running streak.
+                    expected = week >= thisWeek - 1 ? week : Long.MIN_VALUE;
+                }
+                if (week == expected) {
+                    streak++;
+                    expected--;
+                }
+            }
+            if (streak > 0) streaks.put(uid, streak);
+        }
+        return streaks;
+    }
+}
@@ -1,81 +0,0 @@
-package com.example.crevolutionattendance;
-
-import android.content.Intent;
-import android.os.Bundle;
-import android.widget.ImageView;
-import android.widget.TextView;
-import android.widget.Toast;
-
-import androidx.activity.EdgeToEdge;
-import androidx.appcompat.app.AppCompatActivity;
-import androidx.appcompat.app.AppCompatDelegate;
-import androidx.core.graphics.Insets;
-import androidx.core.view.ViewCompat;
-import androidx.core.view.WindowInsetsCompat;
-
-import com.google.android.material.button.MaterialButton;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseUser;
-
-public class MainActivity extends AppCompatActivity {
-
-    private MaterialButton clockInButton, clockOutButton;
-    private TextView welcomeText;
-    private ImageView returnButton;
-    private FirebaseHelper firebaseHelper;
-
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        EdgeToEdge.enable(this);
-        setContentView(R.layout.activity_main);
-        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
-        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
-            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
-            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
-            return insets;
-        });
-
-
-        clockInButton = findViewById(R.id.clockInButton);
-        clockOutButton = findViewById(R.id.clockOutButton);
-        welcomeText = findViewById(R.id.welcomeText);
-        returnButton = findViewById(R.id.returnButton);
-        firebaseHelper = new FirebaseHelper();
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        String uid = user.getUid();
-
-        clockInButton.setOnClickListener(v -> {
-            firebaseHelper.clockIn(new FirebaseHelper.FirebaseCallback() {
-                @Override
-                public void onSuccess() {
-                    Toast.makeText(MainActivity.this, "Clocked in!", Toast.LENGTH_SHORT).show();
-                    startActivity(new Intent(MainActivity.this, SignInActivity.class));
-                }
-
-                @Override
-                public void onFailure(String error) {
-                    Toast.makeText(MainActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
-                }
-            });
-        });
-
-        clockOutButton.setOnClickListener(v -> {
-            firebaseHelper.clockOut(new FirebaseHelper.FirebaseCallback() {
-                @Override
-                public void onSuccess() {
-                    Toast.makeText(MainActivity.this, "Clocked out!", Toast.LENGTH_SHORT).show();
-                    startActivity(new Intent(MainActivity.this, SignInActivity.class));
-                }
-
-                @Override
-                public void onFailure(String error) {
-                    Toast.makeText(MainActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
-                }
-            });
-        });
-
-        returnButton.setOnClickListener(v -> startActivity(new Intent(MainActivity.this, SignInActivity.class)));
-
-    }
-}
@@ -0,0 +1,94 @@
+package com.example.crevolutionattendance;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+public class MainFragment extends Fragment {
+
+    // uid to punch for when the tablet is in kiosk mode (the signed-in user is then the admin).
+    private static final String ARG_UID = "uid";
+
+    public MainFragment() {
+        super(R.layout.fragment_main);
+    }
+
+    static MainFragment newInstance(String uid) {
+        MainFragment fragment = new MainFragment();
+        Bundle args = new Bundle();
+        args.putString(ARG_UID, uid);
+        fragment.setArguments(args);
+        return fragment;
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        MaterialButton clockInButton = view.findViewById(R.id.clockInButton);
+        MaterialButton clockOutButton = view.findViewById(R.id.clockOutButton);
+        MaterialButton historyButton = view.findViewById(R.id.historyButton);
+        ImageView returnButton = view.findViewById(R.id.returnButton);
+        SignInActivity kiosk = (SignInActivity) requireActivity();
+        FirebaseHelper firebaseHelper = kiosk.firebaseHelper();
+
+        String uid = requireArguments().getString(ARG_UID);
+        if (uid == null) {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if (user == null) {
+                // Signed out underneath this screen (e.g. kiosk mode was left); nobody to punch for.
+                kiosk.showSignIn();
+                return;
+            }
+            uid = user.getUid();
+        }
+        String punchUid = uid;
+
+        clockInButton.setOnClickListener(v -> {
+            firebaseHelper.clockIn(punchUid, new FirebaseHelper.FirebaseCallback() {
+                @Override
+                public void onSuccess() {
+                    Toast.makeText(kiosk, "Clocked in!", Toast.LENGTH_SHORT).show();
+                    if (isAdded()) kiosk.showSignIn();
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+
+        clockOutButton.setOnClickListener(v -> {
+            firebaseHelper.clockOut(punchUid, new FirebaseHelper.FirebaseCallback() {
+                @Override
+                public void onSuccess() {
+                    Toast.makeText(kiosk, "Clocked out!", Toast.LENGTH_SHORT).show();
+                    if (isAdded()) kiosk.showSignIn();
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+
+        historyButton.setOnClickListener(v -> {
+            Intent intent = new Intent(requireContext(), HistoryActivity.class);
+            intent.putExtra(HistoryActivity.EXTRA_UID, punchUid);
+            startActivity(intent);
+        });
+
+        returnButton.setOnClickListener(v -> kiosk.showSignIn());
+
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.crevolutionattendance;
+
+/*
+ * One member's hours over a date range, as answered by the local mirror (LocalMirror.totals).
+ */
+public final class MemberTotal {
+    public final String uid;
+    public final String username;
+    public final long totalMillis;
+    public final int days;
+
+    public MemberTotal(String uid, String username, long totalMillis, int days) {
+        this.uid = uid;
+        this.username = username;
+        this.totalMillis = totalMillis;
+        this.days = days;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.crevolutionattendance;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * In-process registry of LatencyHistograms, one per named measurement.
+ *
+ * Names end in their unit: ".us" for durations in microseconds, ".bytes" for payload sizes, no suffix for counts.
+ * Usage on a hot path:
+ *      long t = Metrics.start();
+ *      ...
+ *      Metrics.recordSince("clockOut.txn.us", t);
+ * Turned off (the default), start() returns 0 and every record call returns on its first check, so the
+ * instrumentation costs one volatile read and allocates nothing. Turned on, recording is lock-free and
+ * only allocates the first time a name is seen.
+ */
+public final class Metrics {
+    private static volatile boolean enabled;
+
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Function<String, LatencyHistogram> CREATE = name -> new LatencyHistogram();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Start time for recordSince(), or 0 when disabled.
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Records the microseconds since a start() value. Does nothing if start() was taken while disabled.
+    public static void recordSince(String name, long startNanos) {
+        if (!enabled || startNanos == 0) return;
+        histogram(name).record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    // Records a count or size.
+    public static void record(String name, long value) {
+        if (!enabled) return;
+        histogram(name).record(value);
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : histograms.values()) histogram.reset();
+    }
+
+    // One line per measurement, sorted by name, for the diagnostics screen.
+    public static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (String name : sortedNames()) {
+            LatencyHistogram h = histograms.get(name);
+            lines.add(String.format(Locale.ROOT, "%s  n=%d  p50=%d  p90=%d  p99=%d  max=%d",
+                    name, h.count(), h.valueAt(0.5), h.valueAt(0.9), h.valueAt(0.99), h.max()));
+        }
+        return lines;
+    }
+
+    // Every measurement as CSV: name, count, min, p50, p90, p99, max, mean.
+    public static void writeCsv(Writer out) throws IOException {
+        CsvWriter.writeRow(out, "name", "count", "min", "p50", "p90", "p99", "max", "mean");
+        for (String name : sortedNames()) {
+            LatencyHistogram h = histograms.get(name);
+            CsvWriter.writeRow(out, name, h.count(), h.min(), h.valueAt(0.5), h.valueAt(0.9), h.valueAt(0.99),
+                    h.max(), String.format(Locale.ROOT, "%.1f", h.mean()));
+        }
+    }
+
+    private static List<String> sortedNames() {
+        List<String> names = new ArrayList<>(histograms.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    private static LatencyHistogram histogram(String name) {
+        // get() first: computeIfAbsent can lock even when the key exists.
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, CREATE);
+    }
+}
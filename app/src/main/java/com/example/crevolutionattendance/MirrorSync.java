@@ -0,0 +1,172 @@
+package com.example.crevolutionattendance;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.crevolutionattendance.ledger.SeasonArchive;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Brings the LocalMirror up to date with Firestore.
+ *
+ * - First run: copies every profile and every Days doc (paged), then sets both cursors to the start of the
+ *   copy minus CLOCK_SKEW_MILLIS, so anything written while copying is picked up again next time.
+ * - Later runs only ask for what changed: profiles by profileUpdatedAt, day docs by the updatedAt that every
+ *   day write (clock in, clock out, stale sweep, migration) stamps with the server time. Both are paged,
+ *   and >= the cursor, so docs sharing the cursor's millisecond are re-read rather than missed.
+ * - Each delta page goes into SQLite in one transaction with its cursor, so an interrupted sync resumes;
+ *   a first copy only stores its cursor with its last page, so an interrupted copy starts over.
+ * - Season archives (see SeasonArchiver) are always read by updatedAt, from 0 the first time. Their days
+ *   replace the same rows; rows whose Days doc was archived away are never deleted, so the mirror
+ *   keeps every day whether it is live or archived.
+ * Reads always go to the server: a page served from the offline cache could move the cursor past docs
+ * the cache never had. (Needs collection-group index exemptions on Days.date,
+ * Days.updatedAt and Archives.updatedAt.)
+ *
+ * Runs on its own background thread (Tasks.await keeps paging sequential); callbacks arrive on the main thread.
+ */
+public class MirrorSync {
+    private static final int PAGE_SIZE = 500;
+    private static final long CLOCK_SKEW_MILLIS = 10 * 60_000L;
+
+    private final FirebaseFirestore db;
+    private final LocalMirror mirror;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface SyncCallback {
+        void onSynced(int members, int days);
+        void onFailure(String error);
+    }
+
+    public MirrorSync(FirebaseFirestore db, LocalMirror mirror) {
+        this.db = db;
+        this.mirror = mirror;
+    }
+
+    // Syncs in the background. Calls queue up behind each other, so a second one only fetches what is left.
+    public void sync(SyncCallback callback) {
+        executor.execute(() -> {
+            try {
+                int members = syncMembers();
+                int days = syncDays() + syncArchives();
+                mainHandler.post(() -> callback.onSynced(members, days));
+            } catch (Exception e) {
+                mainHandler.post(() -> callback.onFailure(e.getMessage()));
+            }
+        });
+    }
+
+    private int syncMembers() throws Exception {
+        long cursor = mirror.cursor(LocalMirror.CURSOR_MEMBERS);
+        boolean fullCopy = cursor < 0;
+        Query query = fullCopy
+                ? db.collection("LoggedHours").orderBy(FieldPath.documentId())
+                : db.collection("LoggedHours")
+                        .whereGreaterThanOrEqualTo("profileUpdatedAt", new Timestamp(new Date(cursor)))
+                        .orderBy("profileUpdatedAt");
+        long startedAt = System.currentTimeMillis();
+
+        int count = 0;
+        DocumentSnapshot after = null;
+        while (true) {
+            QuerySnapshot page = fetch(query, after);
+            Map<String, String> usernames = new HashMap<>();
+            for (DocumentSnapshot profile : page.getDocuments()) {
+                usernames.put(profile.getId(), profile.getString("username"));
+                cursor = Math.max(cursor, millis(profile.getTimestamp("profileUpdatedAt")));
+            }
+            boolean last = page.size() < PAGE_SIZE;
+            mirror.apply(usernames, new ArrayList<>(), cursorUpdate(LocalMirror.CURSOR_MEMBERS, fullCopy ? startedAt - CLOCK_SKEW_MILLIS : cursor, fullCopy && !last));
+            count += page.size();
+            if (last) return count;
+            after = page.getDocuments().get(page.size() - 1);
+        }
+    }
+
+    private int syncDays() throws Exception {
+        long cursor = mirror.cursor(LocalMirror.CURSOR_DAYS);
+        boolean fullCopy = cursor < 0;
+        Query query = fullCopy
+                ? db.collectionGroup("Days").orderBy("date")
+                : db.collectionGroup("Days")
+                        .whereGreaterThanOrEqualTo("updatedAt", new Timestamp(new Date(cursor)))
+                        .orderBy("updatedAt");
+        long startedAt = System.currentTimeMillis();
+
+        int count = 0;
+        DocumentSnapshot after = null;
+        while (true) {
+            QuerySnapshot page = fetch(query, after);
+            List<LocalMirror.MirroredDay> days = new ArrayList<>();
+            for (DocumentSnapshot day : page.getDocuments()) {
+                // LoggedHours/{uid}/Days/{date}
+                String uid = day.getReference().getParent().getParent().getId();
+                days.add(new LocalMirror.MirroredDay(uid, day.getId(), FirebaseHelper.dayTotalMillis(day)));
+                cursor = Math.max(cursor, millis(day.getTimestamp("updatedAt")));
+            }
+            boolean last = page.size() < PAGE_SIZE;
+            mirror.apply(new HashMap<>(), days, cursorUpdate(LocalMirror.CURSOR_DAYS, fullCopy ? startedAt - CLOCK_SKEW_MILLIS : cursor, fullCopy && !last));
+            count += page.size();
+            if (last) return count;
+            after = page.getDocuments().get(page.size() - 1);
+        }
+    }
+
+    private int syncArchives() throws Exception {
+        long cursor = Math.max(0, mirror.cursor(LocalMirror.CURSOR_ARCHIVES));
+        Query query = db.collectionGroup("Archives")
+                .whereGreaterThanOrEqualTo("updatedAt", new Timestamp(new Date(cursor)))
+                .orderBy("updatedAt");
+
+        int count = 0;
+        DocumentSnapshot after = null;
+        while (true) {
+            QuerySnapshot page = fetch(query, after);
+            List<LocalMirror.MirroredDay> days = new ArrayList<>();
+            for (DocumentSnapshot archive : page.getDocuments()) {
+                // LoggedHours/{uid}/Archives/season-YYYY-N
+                String uid = archive.getReference().getParent().getParent().getId();
+                for (SeasonArchive.Day day : FirebaseHelper.archivedDays(archive)) {
+                    days.add(new LocalMirror.MirroredDay(uid, day.date, day.totalMillis));
+                }
+                cursor = Math.max(cursor, millis(archive.getTimestamp("updatedAt")));
+            }
+            mirror.apply(new HashMap<>(), days, cursorUpdate(LocalMirror.CURSOR_ARCHIVES, cursor, false));
+            count += page.size();
+            if (page.size() < PAGE_SIZE) return count;
+            after = page.getDocuments().get(page.size() - 1);
+        }
+    }
+
+    private static QuerySnapshot fetch(Query query, DocumentSnapshot after) throws Exception {
+        Query page = (after == null ? query : query.startAfter(after)).limit(PAGE_SIZE);
+        return Tasks.await(page.get(Source.SERVER));
+    }
+
+    // A first full copy stores its cursor only with its last page, so an interrupted copy starts over.
+    private static Map<String, Long> cursorUpdate(String name, long cursor, boolean holdBack) {
+        Map<String, Long> update = new HashMap<>();
+        if (!holdBack) update.put(name, cursor);
+        return update;
+    }
+
+    private static long millis(Timestamp timestamp) {
+        return timestamp == null ? -1 : timestamp.toDate().getTime();
+    }
+}
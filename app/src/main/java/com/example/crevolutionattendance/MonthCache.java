@@ -0,0 +1,127 @@
+package com.example.crevolutionattendance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Local copy of one member's closed months of history, used by the history screen.
+ *
+ * A month is closed once the current month has moved past it by a couple of days (CLOSE_GRACE_DAYS), which is
+ * when caching it starts to pay off. Closed months can still change (a late sync, the stale-shift sweeper,
+ * a corrected clock-out), so each cached month is stored with its version: the updatedAt of the member's
+ * Rollups/month-YYYY-MM doc, which every write that changes the month's hours also bumps (0 if it has none).
+ * A cached month is only served while that version still matches (see FirebaseHelper.getHistoryMonth).
+ * The current month (and the previous one during the grace days) is never cached and always goes to the network.
+ *
+ * Files in the given directory:
+ *      <YYYY-MM>: first line #<version>, then one line per day, newest first: <date>,<totalMillis>
+ *          (no day lines = no shifts that month; a file without a version line is never served)
+ *      first: the oldest month with any history, so paging knows where to stop
+ */
+public class MonthCache {
+    private static final String FIRST_FILE = "first";
+    private static final int CLOSE_GRACE_DAYS = 2;
+
+    private final File dir;
+
+    public MonthCache(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create history directory " + dir);
+        }
+        this.dir = dir;
+    }
+
+    // Whether a YYYY-MM month can be cached, given today's YYYY-MM-DD date key.
+    // Both are zero-padded, so they compare the same way as strings and as dates.
+    public static boolean isClosed(String month, String today) {
+        String currentMonth = today.substring(0, 7);
+        if (month.compareTo(currentMonth) >= 0) return false;
+        if (!month.equals(previousMonth(currentMonth))) return true;
+        return Integer.parseInt(today.substring(8, 10)) > CLOSE_GRACE_DAYS;
+    }
+
+    public static String previousMonth(String month) {
+        int year = Integer.parseInt(month.substring(0, 4));
+        int monthOfYear = Integer.parseInt(month.substring(5, 7)) - 1;
+        if (monthOfYear == 0) {
+            monthOfYear = 12;
+            year--;
+        }
+        return String.format(Locale.ROOT, "%04d-%02d", year, monthOfYear);
+    }
+
+    public static String nextMonth(String month) {
+        int year = Integer.parseInt(month.substring(0, 4));
+        int monthOfYear = Integer.parseInt(month.substring(5, 7)) + 1;
+        if (monthOfYear == 13) {
+            monthOfYear = 1;
+            year++;
+        }
+        return String.format(Locale.ROOT, "%04d-%02d", year, monthOfYear);
+    }
+
+    // Returns the cached days of a month, or null if that month isn't cached at this version.
+    public synchronized List<HistoryDay> get(String month, long version) throws IOException {
+        File file = new File(dir, month);
+        if (!file.isFile()) return null;
+
+        List<HistoryDay> days = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!("#" + version).equals(reader.readLine())) return null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma < 0) continue;
+                days.add(new HistoryDay(line.substring(0, comma), Long.parseLong(line.substring(comma + 1))));
+            }
+        }
+        return Collections.unmodifiableList(days);
+    }
+
+    // Stores a closed month. Written to a temp file and renamed, so a crash never leaves half a month behind.
+    public synchronized void put(String month, long version, List<HistoryDay> days) throws IOException {
+        StringBuilder contents = new StringBuilder("#" + version + "\n");
+        for (HistoryDay day : days) {
+            contents.append(day.date).append(',').append(day.totalMillis).append('\n');
+        }
+        write(month, contents.toString());
+    }
+
+    public synchronized String getFirstMonth() throws IOException {
+        File file = new File(dir, FIRST_FILE);
+        if (!file.isFile()) return null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            return reader.readLine();
+        }
+    }
+
+    public synchronized void setFirstMonth(String month) throws IOException {
+        write(FIRST_FILE, month + "\n");
+    }
+
+    private void write(String name, String contents) throws IOException {
+        File tmp = new File(dir, name + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp, false)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(contents);
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(new File(dir, name))) {
+            throw new IOException("Could not replace " + name);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.crevolutionattendance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/*
+ * PIN -> uid index used by kiosk mode, kept on this tablet only.
+ *
+ * Nothing PIN-derived is ever written to Firestore: a 4-6 digit PIN is one brute-force loop away from any
+ * unkeyed hash, and the PIN is also the student's Auth password. Instead the index keys each entry on
+ * HMAC-SHA256(deviceKey, pin), where deviceKey is random, generated here and never leaves this file.
+ * Entries are only added for PINs this tablet has verified itself (a Firebase Auth sign-in on the verifier,
+ * or an account it created), so resolving a known PIN is one HMAC plus one HashMap lookup with no network.
+ *
+ * File format (pin_index in the given directory, app-private storage):
+ *      first line: <deviceKey as hex>
+ *      then one line per user: <uid>,<pinKey>
+ */
+public class PinIndex {
+    private static final String INDEX_FILE = "pin_index";
+    private static final int KEY_BYTES = 32;
+
+    private final File indexFile;
+
+    private byte[] deviceKey;
+    private final Map<String, String> uidByKey = new HashMap<>();
+    private final Map<String, String> keyByUid = new HashMap<>();
+
+    public PinIndex(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create index directory " + dir);
+        }
+        indexFile = new File(dir, INDEX_FILE);
+        load();
+        if (deviceKey == null) deviceKey = newKey();
+    }
+
+    // Returns the uid for a PIN, or null if this tablet hasn't verified that PIN yet.
+    public synchronized String resolve(String pin) {
+        return uidByKey.get(pinKey(pin));
+    }
+
+    public synchronized int size() {
+        return keyByUid.size();
+    }
+
+    // Adds or replaces the entry for a uid. Only call this with a PIN that has just been verified for that uid.
+    public synchronized void put(String uid, String pin) {
+        putKey(uid, pinKey(pin));
+    }
+
+    // Forgets every PIN and starts over with a new device key (leaving kiosk mode).
+    public synchronized void clear() {
+        uidByKey.clear();
+        keyByUid.clear();
+        deviceKey = newKey();
+    }
+
+    // Writes the index to a temp file and renames it into place.
+    public synchronized void save() throws IOException {
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp, false);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(hex(deviceKey) + "\n");
+            for (Map.Entry<String, String> entry : keyByUid.entrySet()) {
+                writer.write(entry.getKey() + "," + entry.getValue() + "\n");
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(indexFile)) {
+            throw new IOException("Could not save PIN index");
+        }
+    }
+
+    private void putKey(String uid, String key) {
+        String old = keyByUid.remove(uid);
+        if (old != null) uidByKey.remove(old);
+        keyByUid.put(uid, key);
+        uidByKey.put(key, uid);
+    }
+
+    private String pinKey(String pin) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(deviceKey, "HmacSHA256"));
+            return hex(mac.doFinal(pin.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] newKey() {
+        byte[] key = new byte[KEY_BYTES];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] unhex(String hex) {
+        if (hex.length() != KEY_BYTES * 2) throw new IllegalArgumentException("Bad device key");
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private void load() {
+        if (!indexFile.exists()) return;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) return;
+            deviceKey = unhex(header);
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", -1);
+                if (parts.length == 2) putKey(parts[0], parts[1]);
+            }
+        } catch (IOException | RuntimeException e) {
+            // A damaged (or old salted-format) index starts over empty; PINs are re-verified as students use them.
+            deviceKey = null;
+            uidByKey.clear();
+            keyByUid.clear();
+        }
+    }
+}
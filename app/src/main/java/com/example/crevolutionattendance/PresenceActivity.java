@@ -0,0 +1,182 @@
+package com.example.crevolutionattendance;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.widget.Button;
+import android.widget.ArrayAdapter;
+import android.widget.ImageView;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import com.example.crevolutionattendance.ledger.Meeting;
+import com.example.crevolutionattendance.ledger.MeetingAttendance;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+import com.example.crevolutionattendance.ledger.TeamLeaderboard;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class PresenceActivity extends AppCompatActivity {
+
+    private TextView presenceCount, teamHours;
+    private ListView presenceList, leaderboardList;
+    private ImageView returnButton;
+    private Button exportButton, reportsButton;
+    private FirebaseHelper firebaseHelper;
+    private ListenerRegistration presenceListener, boardListener;
+    private ArrayAdapter<String> adapter, leaderboardAdapter;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_presence);
+        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.presence), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        presenceCount = findViewById(R.id.presenceCount);
+        presenceList = findViewById(R.id.presenceList);
+        teamHours = findViewById(R.id.teamHours);
+        leaderboardList = findViewById(R.id.leaderboardList);
+        returnButton = findViewById(R.id.returnButton);
+        exportButton = findViewById(R.id.exportButton);
+        reportsButton = findViewById(R.id.reportsButton);
+        firebaseHelper = AttendanceApp.firebaseHelper(this);
+
+        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
+        presenceList.setAdapter(adapter);
+        leaderboardAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
+        leaderboardList.setAdapter(leaderboardAdapter);
+
+        returnButton.setOnClickListener(v -> finish());
+        exportButton.setOnClickListener(v -> exportSeason(false));
+        // Long-press also writes the per-day detail, which downloads every day doc of the season.
+        exportButton.setOnLongClickListener(v -> {
+            exportSeason(true);
+            return true;
+        });
+        reportsButton.setOnClickListener(v -> startActivity(new Intent(this, ReportsActivity.class)));
+    }
+
+    // Writes the current season's report into the app's external files dir (no storage permission needed).
+    private void exportSeason(boolean includeDetail) {
+        exportButton.setEnabled(false);
+        int season = firebaseHelper.seasonStartYear(System.currentTimeMillis());
+        File dir = new File(getExternalFilesDir(null), "reports");
+
+        firebaseHelper.getSeasonAttendance(season, new FirebaseHelper.AttendanceCallback() {
+            @Override
+            public void onAttendance(List<Meeting> meetings, MeetingAttendance attendance) {
+                Map<String, Double> attendancePct =
+                        attendance.attendancePercentages(meetings, MeetingAttendance.DEFAULT_PRESENT_FRACTION);
+                firebaseHelper.seasonReport().export(season, dir, attendancePct, includeDetail,
+                        new SeasonReport.ReportCallback() {
+                            @Override
+                            public void onProgress(int membersDone) {
+                                exportButton.setText(membersDone + " members...");
+                            }
+
+                            @Override
+                            public void onComplete(File summary, File detail) {
+                                exportDone();
+                                Toast.makeText(PresenceActivity.this, "Saved " + summary.getAbsolutePath(), Toast.LENGTH_LONG).show();
+                            }
+
+                            @Override
+                            public void onFailure(String error) {
+                                exportDone();
+                                Toast.makeText(PresenceActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+                            }
+                        });
+            }
+
+            @Override
+            public void onFailure(String error) {
+                exportDone();
+                Toast.makeText(PresenceActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void exportDone() {
+        exportButton.setEnabled(true);
+        exportButton.setText("Export Season");
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Only listen while the screen is visible.
+        presenceListener = firebaseHelper.listenToPresence(new FirebaseHelper.PresenceCallback() {
+            @Override
+            public void onPresence(List<PresenceEntry> entries) {
+                List<String> rows = new ArrayList<>();
+                for (PresenceEntry entry : entries) {
+                    rows.add(entry.username + "  —  since "
+                            + DateFormat.getTimeFormat(PresenceActivity.this).format(new Date(entry.inMillis)));
+                }
+                presenceCount.setText(entries.size() + " in the shop");
+                adapter.clear();
+                adapter.addAll(rows);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                Toast.makeText(PresenceActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        // Season total and leaderboard, from the kiosk's shared team board listener.
+        boardListener = firebaseHelper.listenToTeamBoard(new TeamBoard.BoardCallback() {
+            @Override
+            public void onBoard(long teamMillis, List<TeamLeaderboard.Entry> top) {
+                List<String> rows = new ArrayList<>();
+                for (int i = 0; i < top.size(); i++) {
+                    TeamLeaderboard.Entry entry = top.get(i);
+                    rows.add(String.format(Locale.getDefault(), "%d. %s  —  %.1f hrs",
+                            i + 1, entry.username, ShiftLedger.millisToHrs(entry.millis)));
+                }
+                teamHours.setText(String.format(Locale.getDefault(), "%.1f team hours this season",
+                        ShiftLedger.millisToHrs(teamMillis)));
+                leaderboardAdapter.clear();
+                leaderboardAdapter.addAll(rows);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                Toast.makeText(PresenceActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (presenceListener != null) {
+            presenceListener.remove();
+            presenceListener = null;
+        }
+        if (boardListener != null) {
+            boardListener.remove();
+            boardListener = null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.crevolutionattendance;
+
+/*
+ * One student who is currently clocked in, as listed in the team presence index (Presence/team).
+ */
+public final class PresenceEntry {
+    public final String uid;
+    public final String username;
+    public final long inMillis;
+
+    public PresenceEntry(String uid, String username, long inMillis) {
+        this.uid = uid;
+        this.username = username;
+        this.inMillis = inMillis;
+    }
+}
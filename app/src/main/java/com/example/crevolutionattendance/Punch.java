@@ -0,0 +1,46 @@
+package com.example.crevolutionattendance;
+
+import java.util.UUID;
+
+/*
+ * A single clock-in or clock-out as recorded on this device.
+ * The id is generated once when the student punches and travels with the punch all the way to Firestore,
+ * so a punch that gets retried by the sync stage can be recognized and skipped.
+ */
+public final class Punch {
+
+    public enum Type { IN, OUT }
+
+    public final String id;
+    public final String uid;
+    public final Type type;
+    public final long millis;
+
+    public Punch(String id, String uid, Type type, long millis) {
+        this.id = id;
+        this.uid = uid;
+        this.type = type;
+        this.millis = millis;
+    }
+
+    // Creates a brand new punch with a random id.
+    public static Punch create(String uid, Type type, long millis) {
+        return new Punch(UUID.randomUUID().toString(), uid, type, millis);
+    }
+
+    // One line of the journal file: id,uid,TYPE,millis
+    String encode() {
+        return id + "," + uid + "," + type.name() + "," + millis;
+    }
+
+    // Returns null for lines that are not a complete punch (for example a write torn by a crash).
+    static Punch decode(String line) {
+        String[] parts = line.split(",", -1);
+        if (parts.length != 4) return null;
+        try {
+            return new Punch(parts[0], parts[1], Type.valueOf(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
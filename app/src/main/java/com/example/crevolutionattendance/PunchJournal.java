@@ -0,0 +1,199 @@
+package com.example.crevolutionattendance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Append-only, on-device log of punches that have not reached Firestore yet.
+ *
+ * Layout inside the journal directory:
+ * - punches.log: one punch per line (see Punch.encode()), fsync'd before append() returns.
+ * - punches.cursor: how many lines of punches.log have already been synced.
+ * - punches.quarantine: punches Firestore will never accept, set aside so they don't hold up the rest
+ *   (one "<punch>,<reason>" line each, kept for an admin to follow up).
+ *
+ * A punch is durable as soon as append() returns, so the UI can acknowledge it right away
+ * and the sync stage (PunchSyncer) drains it later.
+ * Once every line has been synced the log is truncated so it never grows without bound.
+ */
+public class PunchJournal {
+    private static final String LOG_FILE = "punches.log";
+    private static final String CURSOR_FILE = "punches.cursor";
+    private static final String QUARANTINE_FILE = "punches.quarantine";
+
+    private final File logFile;
+    private final File cursorFile;
+    private final File quarantineFile;
+
+    // Every punch currently in punches.log, in append order.
+    private final List<Punch> entries = new ArrayList<>();
+    private int syncedCount;
+
+    // Last punch seen per uid, kept across compactions so double punches can be rejected locally.
+    private final Map<String, Punch> lastPunches = new HashMap<>();
+
+    public PunchJournal(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create journal directory " + dir);
+        }
+        logFile = new File(dir, LOG_FILE);
+        cursorFile = new File(dir, CURSOR_FILE);
+        quarantineFile = new File(dir, QUARANTINE_FILE);
+        load();
+    }
+
+    // Durably records a punch. Returns only after the bytes are on disk.
+    public synchronized void append(Punch punch) throws IOException {
+        byte[] line = (punch.encode() + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(line);
+            out.getFD().sync();
+        }
+        entries.add(punch);
+        lastPunches.put(punch.uid, punch);
+    }
+
+    // Returns up to max punches that still need to be synced, oldest first.
+    public synchronized List<Punch> pending(int max) {
+        int end = Math.min(entries.size(), syncedCount + max);
+        return new ArrayList<>(entries.subList(syncedCount, end));
+    }
+
+    public synchronized int pendingCount() {
+        return entries.size() - syncedCount;
+    }
+
+    // The type of the most recent punch this device has recorded for a user, or null if none.
+    public synchronized Punch.Type lastType(String uid) {
+        Punch last = lastPunches.get(uid);
+        return last == null ? null : last.type;
+    }
+
+    // The most recent punch this device has recorded for a user, or null if none.
+    public synchronized Punch lastPunch(String uid) {
+        return lastPunches.get(uid);
+    }
+
+    // True while the user's most recent punch on this device is still waiting to be synced.
+    public synchronized boolean isPending(String uid) {
+        for (int i = entries.size() - 1; i >= syncedCount; i--) {
+            if (entries.get(i).uid.equals(uid)) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Durably sets aside a punch that can never be synced. The caller still marks it synced afterwards,
+     * so a crash in between only means it is quarantined twice.
+     */
+    public synchronized void quarantine(Punch punch, String reason) throws IOException {
+        String line = punch.encode() + "," + String.valueOf(reason).replace('\n', ' ') + "\n";
+        try (FileOutputStream out = new FileOutputStream(quarantineFile, true)) {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+    }
+
+    // Every quarantined punch, oldest first.
+    public synchronized List<Punch> quarantined() throws IOException {
+        List<Punch> punches = new ArrayList<>();
+        if (!quarantineFile.exists()) return punches;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(quarantineFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // The reason is free text after the punch's four fields.
+                String[] parts = line.split(",", 5);
+                if (parts.length < 4) continue;
+                Punch punch = Punch.decode(String.join(",", parts[0], parts[1], parts[2], parts[3]));
+                if (punch != null) punches.add(punch);
+            }
+        }
+        return punches;
+    }
+
+    // Marks the oldest count pending punches as synced.
+    public synchronized void markSynced(int count) throws IOException {
+        syncedCount = Math.min(entries.size(), syncedCount + count);
+
+        if (syncedCount == entries.size()) {
+            // Everything has been delivered, start a fresh log.
+            // The cursor is reset before the log is truncated: a crash in between only re-sends punches the
+            // sink already has, whereas a cursor left past an emptied log would hide the next punches.
+            writeCursor(0);
+            new FileOutputStream(logFile, false).close();
+            entries.clear();
+            syncedCount = 0;
+            return;
+        }
+        writeCursor(syncedCount);
+    }
+
+    private void load() throws IOException {
+        entries.clear();
+        long validLength = 0;
+
+        if (logFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+                String line;
+                long offset = 0;
+                while ((line = reader.readLine()) != null) {
+                    offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    Punch punch = Punch.decode(line);
+                    if (punch == null || offset > logFile.length()) break;
+                    entries.add(punch);
+                    lastPunches.put(punch.uid, punch);
+                    validLength = offset;
+                }
+            }
+
+            // Drop a partially written last line so the next append starts on a clean line.
+            if (validLength < logFile.length()) {
+                try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+                    raf.setLength(validLength);
+                }
+            }
+        }
+
+        // A cursor past the end of the log (a journal from before the cursor was reset first) is put back on
+        // disk clamped, or punches appended after this load would count as synced at the next one.
+        int cursor = readCursor();
+        syncedCount = Math.min(cursor, entries.size());
+        if (cursor != syncedCount) writeCursor(syncedCount);
+    }
+
+    private int readCursor() {
+        if (!cursorFile.exists()) return 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(cursorFile), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            return line == null ? 0 : Math.max(0, Integer.parseInt(line.trim()));
+        } catch (IOException | NumberFormatException e) {
+            // A damaged cursor only means some punches get re-sent, which the sync stage tolerates.
+            return 0;
+        }
+    }
+
+    // Writes the cursor to a temp file and renames it over the old one so it is never half written.
+    private void writeCursor(int value) throws IOException {
+        File tmp = new File(cursorFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp, false)) {
+            out.write(Integer.toString(value).getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(cursorFile)) {
+            throw new IOException("Could not update journal cursor");
+        }
+    }
+}
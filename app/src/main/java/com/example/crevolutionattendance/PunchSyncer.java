@@ -0,0 +1,111 @@
+package com.example.crevolutionattendance;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Background stage that drains the PunchJournal into a PunchSink in batches.
+ *
+ * - Only one batch is in flight at a time, so punches reach the sink in the order they were taken.
+ * - Punches are only marked synced once the sink reports them done, and only from the front of the batch.
+ *   A sink that can take just the first few (the rest belong to someone who isn't signed in) says how many;
+ *   the rest stay pending. If the sink fails part way through, the whole batch is retried later; the sink
+ *   must therefore ignore punch ids it has already applied.
+ * - Failures back off exponentially (capped) so an offline tablet doesn't spin.
+ *
+ * All state is touched on the single-threaded executor.
+ */
+public class PunchSyncer {
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    // Where drained punches go. Firestore in the app, an in-memory stand-in in tests.
+    public interface PunchSink {
+        void apply(List<Punch> batch, SinkCallback callback);
+    }
+
+    public interface SinkCallback {
+        // The first count punches of the batch are done; 0 means none could be taken yet, so back off.
+        void onApplied(int count);
+        void onFailure(String error);
+    }
+
+    private final PunchJournal journal;
+    private final PunchSink sink;
+    private final ScheduledExecutorService executor;
+    private final int batchSize;
+
+    private boolean draining = false;
+    private boolean retryScheduled = false;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+
+    public PunchSyncer(PunchJournal journal, PunchSink sink, ScheduledExecutorService executor, int batchSize) {
+        this.journal = journal;
+        this.sink = sink;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    // Asks the syncer to drain whatever is pending. Safe to call from any thread, any number of times.
+    public void requestSync() {
+        executor.execute(this::drainNext);
+    }
+
+    private void drainNext() {
+        if (draining) return;
+
+        List<Punch> batch = journal.pending(batchSize);
+        if (batch.isEmpty()) return;
+
+        draining = true;
+        boolean handedOff = false;
+        try {
+            sink.apply(batch, new SinkCallback() {
+                @Override
+                public void onApplied(int count) {
+                    executor.execute(() -> onBatchDone(Math.min(count, batch.size())));
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    executor.execute(() -> onBatchFailed());
+                }
+            });
+            handedOff = true;
+        } finally {
+            // A sink that throws instead of calling back would otherwise leave draining set forever.
+            if (!handedOff) onBatchFailed();
+        }
+    }
+
+    private void onBatchDone(int count) {
+        draining = false;
+        if (count <= 0) {
+            onBatchFailed();
+            return;
+        }
+        try {
+            journal.markSynced(count);
+        } catch (IOException e) {
+            // The batch is still pending on disk and will be re-sent; the sink skips what it already has.
+            onBatchFailed();
+            return;
+        }
+        backoffMs = INITIAL_BACKOFF_MS;
+        drainNext();
+    }
+
+    private void onBatchFailed() {
+        draining = false;
+        if (retryScheduled) return;
+
+        retryScheduled = true;
+        executor.schedule(() -> {
+            retryScheduled = false;
+            drainNext();
+        }, backoffMs, TimeUnit.MILLISECONDS);
+        backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+    }
+}
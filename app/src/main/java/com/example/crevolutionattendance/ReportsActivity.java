@@ -0,0 +1,150 @@
+package com.example.crevolutionattendance;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.ImageView;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Mentor reports straight from the LocalMirror: every member's hours for the season or this week,
+ * with their weekly attendance streak. The mirrored numbers show as soon as the screen opens;
+ * a delta sync then runs in the background and the report is re-queried if anything changed.
+ */
+public class ReportsActivity extends AppCompatActivity {
+    private static final long WEEK_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+
+    private TextView reportsTitle, reportsStats;
+    private ListView reportsList;
+    private ImageView returnButton;
+    private Button rangeButton;
+    private FirebaseHelper firebaseHelper;
+    private LocalMirror mirror;
+    private ArrayAdapter<String> adapter;
+    private boolean showWeek;
+    private String syncStatus = "syncing...";
+
+    // SQLite queries stay off the UI thread even though they are quick.
+    private final ExecutorService queries = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_reports);
+        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.reports), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        reportsTitle = findViewById(R.id.reportsTitle);
+        reportsStats = findViewById(R.id.reportsStats);
+        reportsList = findViewById(R.id.reportsList);
+        returnButton = findViewById(R.id.returnButton);
+        rangeButton = findViewById(R.id.rangeButton);
+        firebaseHelper = AttendanceApp.firebaseHelper(this);
+        mirror = firebaseHelper.localMirror();
+
+        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
+        reportsList.setAdapter(adapter);
+
+        returnButton.setOnClickListener(v -> finish());
+        rangeButton.setOnClickListener(v -> {
+            showWeek = !showWeek;
+            rangeButton.setText(showWeek ? "Season" : "This Week");
+            reportsTitle.setText(showWeek ? "Week Hours" : "Season Hours");
+            showReport();
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        showReport();
+        firebaseHelper.mirrorSync().sync(new MirrorSync.SyncCallback() {
+            @Override
+            public void onSynced(int members, int days) {
+                if (isDestroyed()) return;
+                syncStatus = (members + days) + " changes synced";
+                showReport();
+            }
+
+            @Override
+            public void onFailure(String error) {
+                if (isDestroyed()) return;
+                syncStatus = "offline, showing last sync";
+                Toast.makeText(ReportsActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
+                showReport();
+            }
+        });
+    }
+
+    // Queries the mirror for the selected range and fills the list.
+    private void showReport() {
+        long now = System.currentTimeMillis();
+        String todayKey = firebaseHelper.getDate();
+        String fromKey, untilKey;
+        if (showWeek) {
+            fromKey = firebaseHelper.weekKey(now).substring("week-".length());
+            untilKey = firebaseHelper.weekKey(now + WEEK_MILLIS).substring("week-".length());
+        } else {
+            int season = firebaseHelper.seasonStartYear(now);
+            fromKey = SeasonReport.seasonStartKey(season);
+            untilKey = SeasonReport.seasonStartKey(season + 1);
+        }
+
+        queries.execute(() -> {
+            long started = SystemClock.elapsedRealtimeNanos();
+            List<MemberTotal> totals = mirror.totals(fromKey, untilKey);
+            Map<String, Integer> streaks = mirror.weekStreaks(todayKey);
+            double queryMs = (SystemClock.elapsedRealtimeNanos() - started) / 1e6;
+
+            List<String> rows = new ArrayList<>();
+            for (MemberTotal total : totals) {
+                Integer streak = streaks.get(total.uid);
+                rows.add(String.format(Locale.getDefault(), "%s  —  %.1f h · %d days · %d wk streak",
+                        total.username, ShiftLedger.roundedHours(total.totalMillis), total.days,
+                        streak == null ? 0 : streak));
+            }
+            String stats = String.format(Locale.getDefault(), "%d members · queried in %.1f ms · %s",
+                    totals.size(), queryMs, syncStatus);
+
+            mainHandler.post(() -> {
+                if (isDestroyed()) return;
+                reportsStats.setText(stats);
+                adapter.clear();
+                adapter.addAll(rows);
+            });
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        queries.shutdown();
+    }
+}
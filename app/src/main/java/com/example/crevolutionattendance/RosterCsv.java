@@ -0,0 +1,100 @@
+package com.example.crevolutionattendance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Parses a roster CSV: first name, last name, PIN; one student per line.
+ * - A first line whose PIN column isn't a number is taken as a header and skipped.
+ * - Cells may be quoted ("Smith, Jr."), blank lines are ignored.
+ * - Bad rows (missing cells, PIN not 6+ digits, which Firebase Auth requires of a password, or a PIN
+ *   already used earlier in the file) are collected in errors instead of failing the whole file.
+ */
+public final class RosterCsv {
+    public static final int MIN_PIN_LENGTH = 6;
+
+    public final List<RosterEntry> entries = new ArrayList<>();
+    public final List<String> errors = new ArrayList<>();
+
+    private RosterCsv() {
+    }
+
+    public static RosterCsv parse(Reader source) throws IOException {
+        RosterCsv roster = new RosterCsv();
+        Set<String> pins = new HashSet<>();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) continue;
+
+            List<String> cells = splitLine(line);
+            if (cells.size() < 3) {
+                roster.errors.add("Line " + lineNumber + ": expected first name, last name, PIN");
+                continue;
+            }
+            String first = cells.get(0).trim();
+            String last = cells.get(1).trim();
+            String pin = cells.get(2).trim();
+
+            if (!isDigits(pin)) {
+                if (lineNumber == 1) continue; // header
+                roster.errors.add("Line " + lineNumber + ": PIN must be a number");
+            } else if (pin.length() < MIN_PIN_LENGTH) {
+                roster.errors.add("Line " + lineNumber + ": PIN must be at least " + MIN_PIN_LENGTH + " digits");
+            } else if (first.isEmpty() || last.isEmpty()) {
+                roster.errors.add("Line " + lineNumber + ": missing name");
+            } else if (!pins.add(pin)) {
+                roster.errors.add("Line " + lineNumber + ": PIN " + pin + " is used twice");
+            } else {
+                roster.entries.add(new RosterEntry(first, last, pin));
+            }
+        }
+        return roster;
+    }
+
+    // Splits one line on commas outside of quotes; "" inside quotes is a literal quote.
+    static List<String> splitLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) return false;
+        }
+        return true;
+    }
+}
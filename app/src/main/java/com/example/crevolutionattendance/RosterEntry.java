@@ -0,0 +1,25 @@
+package com.example.crevolutionattendance;
+
+/*
+ * One student from a roster CSV. The PIN doubles as the Firebase Auth password (and <pin>@app.com as the email),
+ * exactly like CreateAccountFragment.
+ */
+public final class RosterEntry {
+    public final String firstName;
+    public final String lastName;
+    public final String pin;
+
+    public RosterEntry(String firstName, String lastName, String pin) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.pin = pin;
+    }
+
+    public String username() {
+        return firstName + " " + lastName;
+    }
+
+    public String email() {
+        return pin + "@app.com";
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.crevolutionattendance;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseTooManyRequestsException;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthUserCollisionException;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Bulk onboarding of a roster (see RosterCsv) instead of one registerUser per student.
+ *
+ * Pipeline:
+ * - WORKERS threads take students off a shared queue. Each has its own secondary FirebaseApp, because
+ *   creating an account signs that Auth instance in, and the admin's own session must stay put.
+ * - Account creates are spaced at least CREATE_SPACING_MS apart across all workers. A too-many-requests
+ *   answer backs the worker off exponentially and retries the same student.
+ * - Profiles aren't written one by one: finished accounts are collected and written PROFILE_BATCH_SIZE
+ *   at a time in one WriteBatch.
+ * - Resume: ImportProgress records every student whose profile batch committed, and those are skipped.
+ *   A student whose account exists but whose profile never landed hits "email already in use". They are then
+ *   signed in with their PIN to get the uid and their profile is merged, so a rerun never creates a duplicate.
+ *   An existing account whose profile carries another name is reported as a failure, never renamed.
+ * Callbacks arrive on the main thread.
+ */
+public class RosterImport {
+    private static final String TAG = "RosterImport";
+    private static final int WORKERS = 4;
+    private static final int PROFILE_BATCH_SIZE = 25;
+    private static final long CREATE_SPACING_MS = 300;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final int MAX_ATTEMPTS = 6;
+
+    private final Context appContext;
+    private final FirebaseFirestore db;
+    private final ImportProgress progress;
+    private final PinIndex pinIndex;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Object createLock = new Object();
+    private long nextCreateMillis;
+
+    private final Object batchLock = new Object();
+    private final List<RosterEntry> pendingEntries = new ArrayList<>();
+    private final List<String> pendingUids = new ArrayList<>();
+    private final List<Boolean> pendingNew = new ArrayList<>();
+
+    public interface ImportCallback {
+        void onProgress(int done, int total);
+        void onComplete(int imported, int skipped, List<String> failures);
+        void onFailure(String error);
+    }
+
+    RosterImport(Context context, FirebaseFirestore db, ImportProgress progress, PinIndex pinIndex) {
+        this.appContext = context.getApplicationContext();
+        this.db = db;
+        this.progress = progress;
+        this.pinIndex = pinIndex;
+    }
+
+    public void start(List<RosterEntry> roster, ImportCallback callback) {
+        Executors.newSingleThreadExecutor().execute(() -> {
+            try {
+                run(roster, callback);
+            } catch (Exception e) {
+                mainHandler.post(() -> callback.onFailure(e.getMessage()));
+            }
+        });
+    }
+
+    private void run(List<RosterEntry> roster, ImportCallback callback) throws Exception {
+        ConcurrentLinkedQueue<RosterEntry> queue = new ConcurrentLinkedQueue<>();
+        int skipped = 0;
+        for (RosterEntry entry : roster) {
+            if (progress.isDone(entry.pin)) {
+                skipped++;
+            } else {
+                queue.add(entry);
+            }
+        }
+
+        int total = roster.size();
+        AtomicInteger done = new AtomicInteger(skipped);
+        AtomicInteger imported = new AtomicInteger();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        int startedDone = skipped;
+        mainHandler.post(() -> callback.onProgress(startedDone, total));
+
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        for (int w = 0; w < WORKERS; w++) {
+            FirebaseAuth auth = FirebaseAuth.getInstance(workerApp(w));
+            workers.execute(() -> {
+                RosterEntry entry;
+                while ((entry = queue.poll()) != null) {
+                    try {
+                        onboard(auth, entry);
+                        imported.incrementAndGet();
+                    } catch (Exception e) {
+                        Log.w(TAG, "Could not import " + entry.username(), e);
+                        failures.add(entry.username() + ": " + e.getMessage());
+                    }
+                    int d = done.incrementAndGet();
+                    mainHandler.post(() -> callback.onProgress(d, total));
+                }
+                auth.signOut();
+            });
+        }
+        workers.shutdown();
+        boolean finished = workers.awaitTermination(1, TimeUnit.HOURS);
+        if (!finished) workers.shutdownNow();
+
+        // Whatever finished is recorded either way, so a rerun after a timeout picks up from there.
+        flushProfiles();
+        if (!finished) throw new IllegalStateException("Roster import timed out, run it again to finish");
+        int skippedCount = skipped;
+        mainHandler.post(() -> callback.onComplete(imported.get(), skippedCount, new ArrayList<>(failures)));
+    }
+
+    // Creates (or finds) one student's account and queues their profile for the next batch.
+    private void onboard(FirebaseAuth auth, RosterEntry entry) throws Exception {
+        long backoff = 2_000;
+        for (int attempt = 1; ; attempt++) {
+            awaitCreateSlot();
+            try {
+                String uid = Objects.requireNonNull(Tasks.await(
+                        auth.createUserWithEmailAndPassword(entry.email(), entry.pin)).getUser()).getUid();
+                queueProfile(entry, uid, true);
+                return;
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof FirebaseAuthUserCollisionException) {
+                    resume(auth, entry);
+                    return;
+                }
+                if (!(cause instanceof FirebaseTooManyRequestsException) || attempt == MAX_ATTEMPTS) throw e;
+
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /*
+     * The PIN's account already exists. The PIN is the password, so sign in to find the uid, then only take it
+     * over if it is this student's: created by an earlier, interrupted run (no profile yet, or one under the
+     * same name). A profile under another name means the PIN is someone else's, and the student fails instead.
+     */
+    private void resume(FirebaseAuth auth, RosterEntry entry) throws Exception {
+        String uid = Objects.requireNonNull(Tasks.await(
+                auth.signInWithEmailAndPassword(entry.email(), entry.pin)).getUser()).getUid();
+        DocumentSnapshot profile = Tasks.await(db.collection("LoggedHours").document(uid).get());
+        if (!profile.exists()) {
+            queueProfile(entry, uid, true);
+            return;
+        }
+        if (!entry.username().equals(profile.getString("username"))) {
+            throw new IllegalStateException("PIN " + entry.pin + " already belongs to another student");
+        }
+        queueProfile(entry, uid, false);
+    }
+
+    // Spaces account creates across every worker.
+    private void awaitCreateSlot() throws InterruptedException {
+        long wait;
+        synchronized (createLock) {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, nextCreateMillis);
+            nextCreateMillis = slot + CREATE_SPACING_MS;
+            wait = slot - now;
+        }
+        if (wait > 0) Thread.sleep(wait);
+    }
+
+    private void queueProfile(RosterEntry entry, String uid, boolean isNew) {
+        synchronized (batchLock) {
+            pendingEntries.add(entry);
+            pendingUids.add(uid);
+            pendingNew.add(isNew);
+            if (pendingEntries.size() < PROFILE_BATCH_SIZE) return;
+            try {
+                flushProfiles();
+            } catch (Exception e) {
+                // Stays queued; the next flush (at the latest the final one) tries again.
+                Log.w(TAG, "Profile batch failed, will retry", e);
+            }
+        }
+    }
+
+    /*
+     * Writes every queued profile in one batch, then records them as done.
+     * New accounts get the full new-user profile. Existing ones (resumed) only get name and timestamp merged in,
+     * so a returning student's open shift or schema is never overwritten. Each PIN was just verified by creating
+     * (or signing in to) its account, so it also goes into this tablet's PinIndex.
+     */
+    private void flushProfiles() throws Exception {
+        synchronized (batchLock) {
+            if (pendingEntries.isEmpty()) return;
+
+            WriteBatch batch = db.batch();
+            List<String> pins = new ArrayList<>();
+            for (int i = 0; i < pendingEntries.size(); i++) {
+                RosterEntry entry = pendingEntries.get(i);
+                Map<String, Object> profile = pendingNew.get(i)
+                        ? FirebaseHelper.newProfileFields(entry.username())
+                        : FirebaseHelper.profileFields(entry.username());
+                batch.set(db.collection("LoggedHours").document(pendingUids.get(i)), profile, SetOptions.merge());
+                pins.add(entry.pin);
+            }
+            Tasks.await(batch.commit());
+            for (int i = 0; i < pendingEntries.size(); i++) {
+                pinIndex.put(pendingUids.get(i), pendingEntries.get(i).pin);
+            }
+            try {
+                pinIndex.save();
+            } catch (IOException e) {
+                // Still in memory; any PIN lost with the file is verified again on first use.
+                Log.w(TAG, "Could not save PIN index", e);
+            }
+
+            try {
+                progress.markDone(pins, new ArrayList<>(pendingUids));
+            } catch (IOException e) {
+                // Profiles are in; a rerun would just merge them again.
+                Log.w(TAG, "Could not record import progress", e);
+            }
+            pendingEntries.clear();
+            pendingUids.clear();
+            pendingNew.clear();
+        }
+    }
+
+    private FirebaseApp workerApp(int index) {
+        String name = "roster-import-" + index;
+        try {
+            return FirebaseApp.getInstance(name);
+        } catch (IllegalStateException e) {
+            return FirebaseApp.initializeApp(appContext, FirebaseApp.getInstance().getOptions(), name);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.crevolutionattendance;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Periodic job that compacts closed seasons into archive docs (see SeasonArchiver).
+ * Scheduled on kiosk tablets only, like the stale-shift sweeper, since it needs the admin account.
+ * Once a season is archived a run costs two small queries, so weekly is plenty.
+ */
+public class SeasonArchiveWorker extends Worker {
+    private static final String TAG = "SeasonArchiveWorker";
+    private static final String WORK_NAME = "season-archive";
+
+    public SeasonArchiveWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Runs weekly while charging on an unmetered network. Keeps an existing schedule if there is one.
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(SeasonArchiveWorker.class, 7, TimeUnit.DAYS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .setRequiresCharging(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            // Workers run on a background thread, so the archiver can block on each step.
+            int archived = AttendanceApp.firebaseHelper(getApplicationContext()).seasonArchiver().archiveClosedSeasons();
+            Log.i(TAG, "Archived " + archived + " days");
+            return Result.success();
+        } catch (Exception e) {
+            Log.w(TAG, "Season archive failed", e);
+            return Result.retry();
+        }
+    }
+}
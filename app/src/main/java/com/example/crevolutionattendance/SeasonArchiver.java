@@ -0,0 +1,234 @@
+package com.example.crevolutionattendance;
+
+import android.util.Log;
+
+import com.example.crevolutionattendance.ledger.DayClock;
+import com.example.crevolutionattendance.ledger.PackedShifts;
+import com.example.crevolutionattendance.ledger.SeasonArchive;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+ * Compacts closed seasons: each member's Days (and their Shifts) for the season become
+ * LoggedHours/{uid}/Archives/season-YYYY-N with
+ *      { season, chunk, chunks, firstDate, lastDate, days, totalMillis, archive (SeasonArchive blob), schema, updatedAt }
+ * and the day docs are deleted. Reading a past season is then one or two docs instead of hundreds.
+ *
+ * Per member:
+ * 1. Read the season's live Days, each day's Shifts, and any archive chunks written before.
+ * 2. Merge (a live day replaces an archived one with the same date) and write every chunk in one batch.
+ * 3. Delete the live Shifts and Days in batches, each day's Shifts no later than the day itself.
+ * A run that stops between 2 and 3 leaves days that are both live and archived; readers prefer the live
+ * doc and the next run folds it in again, so nothing is counted twice or lost.
+ * Members with a shift still open in the season are skipped (the stale-shift sweeper closes those first).
+ *
+ * Blocking: call from a background thread (SeasonArchiveWorker). Reads go to the server so a partial
+ * offline cache can't make a day look deleted. (Needs a collection-group index exemption on Archives.season.)
+ */
+public class SeasonArchiver {
+    private static final String TAG = "SeasonArchiver";
+
+    // A season is archived once it has been over this long, so late edits and sweeps have landed.
+    static final long CLOSED_GRACE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    // Chunk size cap, well under Firestore's 1 MiB document limit. A season is usually a few KB.
+    static final int ARCHIVE_CHUNK_BYTES = 256 * 1024;
+
+    private static final int MEMBER_PAGE_SIZE = 50;
+
+    private final FirebaseFirestore db;
+    private final DayClock days;
+
+    SeasonArchiver(FirebaseFirestore db, DayClock days) {
+        this.db = db;
+        this.days = days;
+    }
+
+    // Archives every closed season that still has live Days, oldest first. Returns the number of days archived.
+    public int archiveClosedSeasons() throws Exception {
+        QuerySnapshot oldest = Tasks.await(db.collectionGroup("Days").orderBy("date").limit(1).get(Source.SERVER));
+        if (oldest.isEmpty()) return 0;
+
+        int archived = 0;
+        int season = FirebaseHelper.seasonOfKey(oldest.getDocuments().get(0).getId());
+        for (; isClosed(season); season++) archived += archiveSeason(season);
+        return archived;
+    }
+
+    private boolean isClosed(int season) {
+        return days.startOfKey(SeasonReport.seasonStartKey(season + 1)) + CLOSED_GRACE_MILLIS <= days.now();
+    }
+
+    // Archives one season for every member, a page of members at a time.
+    int archiveSeason(int season) throws Exception {
+        Query members = db.collection("LoggedHours").orderBy(FieldPath.documentId()).limit(MEMBER_PAGE_SIZE);
+        DocumentSnapshot lastMember = null;
+        int archived = 0;
+        while (true) {
+            Query page = lastMember == null ? members : members.startAfter(lastMember);
+            QuerySnapshot memberPage = Tasks.await(page.get(Source.SERVER));
+            for (DocumentSnapshot member : memberPage.getDocuments()) {
+                archived += archiveMember(member.getReference(), season);
+            }
+            if (memberPage.size() < MEMBER_PAGE_SIZE) {
+                Log.i(TAG, "Season " + season + ": archived " + archived + " days");
+                return archived;
+            }
+            lastMember = memberPage.getDocuments().get(memberPage.size() - 1);
+        }
+    }
+
+    private int archiveMember(DocumentReference member, int season) throws Exception {
+        QuerySnapshot live = Tasks.await(member.collection("Days")
+                .whereGreaterThanOrEqualTo("date", SeasonReport.seasonStartKey(season))
+                .whereLessThan("date", SeasonReport.seasonStartKey(season + 1))
+                .get(Source.SERVER));
+        if (live.isEmpty()) return 0;
+
+        QuerySnapshot existing = Tasks.await(member.collection("Archives")
+                .whereEqualTo("season", season)
+                .get(Source.SERVER));
+        TreeMap<String, SeasonArchive.Day> merged = new TreeMap<>();
+        for (DocumentSnapshot chunk : existing.getDocuments()) {
+            Blob blob = chunk.getBlob("archive");
+            try {
+                for (SeasonArchive.Day day : SeasonArchive.decode(blob == null ? new byte[0] : blob.toBytes())) {
+                    merged.put(day.date, day);
+                }
+            } catch (IllegalArgumentException e) {
+                // Rewriting would drop whatever this chunk holds, so leave the member alone.
+                Log.w(TAG, "Unreadable archive " + chunk.getReference().getPath() + ", skipping member", e);
+                return 0;
+            }
+        }
+
+        // Shifts first, then their day, so a partial delete never orphans a day's Shifts.
+        List<DocumentReference> deletes = new ArrayList<>();
+        for (DocumentSnapshot day : live.getDocuments()) {
+            QuerySnapshot shifts = Tasks.await(day.getReference().collection("Shifts").get(Source.SERVER));
+            SeasonArchive.Day archived = archivedDay(day, shifts.getDocuments());
+            if (archived == null) {
+                Log.i(TAG, "Open shift on " + day.getReference().getPath() + ", skipping member");
+                return 0;
+            }
+            merged.put(archived.date, archived);
+            for (DocumentSnapshot shift : shifts.getDocuments()) deletes.add(shift.getReference());
+            deletes.add(day.getReference());
+        }
+
+        writeChunks(member, season, new ArrayList<>(merged.values()), existing);
+        for (int from = 0; from < deletes.size(); from += FirebaseHelper.MAX_BATCH_WRITES) {
+            int until = Math.min(deletes.size(), from + FirebaseHelper.MAX_BATCH_WRITES);
+            WriteBatch batch = db.batch();
+            for (DocumentReference ref : deletes.subList(from, until)) batch.delete(ref);
+            Tasks.await(batch.commit());
+        }
+        return live.size();
+    }
+
+    /*
+     * One live day as it goes into the archive, or null if it still has an open shift.
+     * Shifts come from the packed blob when it reads, else the Shifts docs, else a schema 1 shifts array;
+     * a day with none of those keeps only its total.
+     */
+    private SeasonArchive.Day archivedDay(DocumentSnapshot day, List<DocumentSnapshot> shiftDocs) {
+        long dayStart = days.startOfKey(day.getId());
+        long total = FirebaseHelper.dayTotalMillis(day);
+
+        long[] ins = new long[shiftDocs.size()];
+        long[] outs = new long[shiftDocs.size()];
+        for (int i = 0; i < shiftDocs.size(); i++) {
+            Long in = shiftDocs.get(i).getLong("inMillis");
+            Long out = shiftDocs.get(i).getLong("outMillis");
+            if (in != null && out == null) return null;
+            ins[i] = in == null ? dayStart : in;
+            outs[i] = out == null ? dayStart : out;
+        }
+
+        Blob blob = day.getBlob("packedShifts");
+        if (blob != null) {
+            try {
+                PackedShifts.count(blob.toBytes());
+                return new SeasonArchive.Day(day.getId(), total, blob.toBytes());
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Unreadable packed shifts on " + day.getReference().getPath() + ", using Shifts", e);
+            }
+        }
+
+        if (shiftDocs.isEmpty()) {
+            List<Map<String, Object>> legacy = FirebaseHelper.shifts(day);
+            if (legacy.isEmpty()) return new SeasonArchive.Day(day.getId(), total, null);
+            ins = new long[legacy.size()];
+            outs = new long[legacy.size()];
+            FirebaseHelper.toLedger(legacy, ins, outs);
+            for (long out : outs) {
+                if (out == ShiftLedger.OPEN) return null;
+            }
+        }
+        sortByIn(ins, outs);
+        return new SeasonArchive.Day(day.getId(), total, PackedShifts.encode(dayStart, ins, outs, ins.length));
+    }
+
+    // Orders parallel shift arrays by clock-in, so packed deltas stay small.
+    private static void sortByIn(long[] ins, long[] outs) {
+        long[][] pairs = new long[ins.length][];
+        for (int i = 0; i < ins.length; i++) pairs[i] = new long[]{ins[i], outs[i]};
+        Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 0; i < ins.length; i++) {
+            ins[i] = pairs[i][0];
+            outs[i] = pairs[i][1];
+        }
+    }
+
+    // Writes the season's chunks in one batch and deletes any older chunks the new set doesn't reuse.
+    private void writeChunks(DocumentReference member, int season, List<SeasonArchive.Day> all,
+                             QuerySnapshot existing) throws Exception {
+        List<byte[]> chunks = SeasonArchive.encodeChunks(all, ARCHIVE_CHUNK_BYTES);
+        WriteBatch batch = db.batch();
+        Set<String> written = new HashSet<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            List<SeasonArchive.Day> chunkDays = SeasonArchive.decode(chunks.get(i));
+            long totalMillis = 0;
+            for (SeasonArchive.Day day : chunkDays) totalMillis += day.totalMillis;
+
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("season", season);
+            fields.put("chunk", i);
+            fields.put("chunks", chunks.size());
+            fields.put("firstDate", chunkDays.isEmpty() ? null : chunkDays.get(0).date);
+            fields.put("lastDate", chunkDays.isEmpty() ? null : chunkDays.get(chunkDays.size() - 1).date);
+            fields.put("days", chunkDays.size());
+            fields.put("totalMillis", totalMillis);
+            fields.put("archive", Blob.fromBytes(chunks.get(i)));
+            fields.put("schema", SeasonArchive.FORMAT_VERSION);
+            fields.put("updatedAt", FieldValue.serverTimestamp());
+
+            String id = "season-" + season + "-" + i;
+            written.add(id);
+            batch.set(member.collection("Archives").document(id), fields);
+        }
+        for (DocumentSnapshot old : existing.getDocuments()) {
+            if (!written.contains(old.getId())) batch.delete(old.getReference());
+        }
+        Tasks.await(batch.commit());
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.crevolutionattendance;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.crevolutionattendance.ledger.SeasonArchive;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Season hours report for award eligibility.
+ *
+ * - Per-member totals come from Firestore aggregation queries (sum/count over the member's Days in the
+ *   season's date range), so the server adds up the days and only three numbers come back per member.
+ * - The team total is one collection-group aggregation over every Days doc in the range.
+ *   (Needs a collection-group scope index exemption on Days.date.)
+ * - The per-day detail is opt-in, since it means downloading every day doc of the season. When asked for,
+ *   it is streamed page by page with cursors and written as it arrives.
+ * - Days of an archived (compacted) season come from the member's archive chunks and are added to both;
+ *   a day that is still live as well is taken from the live doc only (see SeasonArchiver). Only a member
+ *   with archive chunks for the season has their live dates listed for that, and archiving deletes the live
+ *   docs, so there are few.
+ * - Legacy (schema 1) day docs that were never migrated have totalShiftTime but no totalMillis, so they count
+ *   in days and roundedDayHours but not in hours until the member's next punch migrates them.
+ *
+ * The CSV files are written incrementally, so memory use is one page of documents no matter how big the team is:
+ *      season-YYYY-summary.csv: uid, username, days, hours, roundedDayHours, meetingAttendancePct
+ *      season-YYYY-detail.csv:  uid, date, totalMillis, totalShiftTime   (only with includeDetail)
+ * Runs on its own background thread (Tasks.await keeps the paging loop sequential); callbacks arrive on the main thread.
+ */
+public class SeasonReport {
+    private static final int MEMBER_PAGE_SIZE = 50;
+    private static final int DAY_PAGE_SIZE = 200;
+
+    private final FirebaseFirestore db;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface ReportCallback {
+        void onProgress(int membersDone);
+        // detail is null unless the export asked for it.
+        void onComplete(File summary, File detail);
+        void onFailure(String error);
+    }
+
+    // Takes the Firestore instance to read from, so tests can point it at the emulator.
+    public SeasonReport(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    // First date key of the season that starts in startYear, e.g. 2026-08-01.
+    static String seasonStartKey(int startYear) {
+        return String.format(Locale.ROOT, "%04d-%02d-01", startYear, FirebaseHelper.SEASON_START_MONTH + 1);
+    }
+
+    /*
+     * Writes the report for the season that started in startYear into dir.
+     * attendancePct is each member's meeting attendance percentage (see MeetingAttendance.attendancePercentages);
+     * members missing from it attended no meetings. includeDetail also writes the per-day detail file.
+     */
+    public void export(int startYear, File dir, Map<String, Double> attendancePct, boolean includeDetail,
+                       ReportCallback callback) {
+        executor.execute(() -> {
+            File summary = new File(dir, "season-" + startYear + "-summary.csv");
+            File detail = includeDetail ? new File(dir, "season-" + startYear + "-detail.csv") : null;
+            try {
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("Could not create " + dir);
+                }
+                write(startYear, attendancePct, summary, detail, callback);
+                mainHandler.post(() -> callback.onComplete(summary, detail));
+            } catch (Exception e) {
+                mainHandler.post(() -> callback.onFailure(e.getMessage()));
+            } finally {
+                executor.shutdown();
+            }
+        });
+    }
+
+    private void write(int startYear, Map<String, Double> attendancePct,
+                       File summaryFile, File detailFile, ReportCallback callback) throws Exception {
+        String fromKey = seasonStartKey(startYear);
+        String untilKey = seasonStartKey(startYear + 1);
+        long teamArchivedDays = 0;
+        long teamArchivedMillis = 0;
+        try (Writer summary = open(summaryFile); Writer detail = detailFile == null ? null : open(detailFile)) {
+            CsvWriter.writeRow(summary, "uid", "username", "days", "hours", "roundedDayHours", "meetingAttendancePct");
+            if (detail != null) CsvWriter.writeRow(detail, "uid", "date", "totalMillis", "totalShiftTime");
+
+            Query members = db.collection("LoggedHours")
+                    .orderBy(FieldPath.documentId())
+                    .limit(MEMBER_PAGE_SIZE);
+            DocumentSnapshot lastMember = null;
+            int membersDone = 0;
+
+            while (true) {
+                Query page = lastMember == null ? members : members.startAfter(lastMember);
+                QuerySnapshot memberPage = Tasks.await(page.get());
+
+                for (DocumentSnapshot member : memberPage.getDocuments()) {
+                    Query days = member.getReference().collection("Days")
+                            .whereGreaterThanOrEqualTo("date", fromKey)
+                            .whereLessThan("date", untilKey);
+
+                    AggregateQuerySnapshot totals = Tasks.await(days.aggregate(
+                            AggregateField.count(),
+                            AggregateField.sum("totalMillis"),
+                            AggregateField.sum("totalShiftTime")).get(AggregateSource.SERVER));
+
+                    QuerySnapshot archives = Tasks.await(member.getReference().collection("Archives")
+                            .whereEqualTo("season", startYear).get());
+
+                    // Live days are only downloaded for the detail file, or to skip archived days that are live too.
+                    Set<String> liveDates = detail != null || !archives.isEmpty()
+                            ? streamDays(member.getId(), days, detail)
+                            : Collections.emptySet();
+
+                    // Archived days without a live doc, added to the totals (and the detail, if written).
+                    long archivedDays = 0;
+                    long archivedMillis = 0;
+                    double archivedRounded = 0;
+                    for (DocumentSnapshot archive : archives.getDocuments()) {
+                        for (SeasonArchive.Day day : FirebaseHelper.archivedDays(archive)) {
+                            if (liveDates.contains(day.date)) continue;
+                            double rounded = ShiftLedger.roundedHours(day.totalMillis);
+                            if (detail != null) CsvWriter.writeRow(detail, member.getId(), day.date, day.totalMillis, rounded);
+                            archivedDays++;
+                            archivedMillis += day.totalMillis;
+                            archivedRounded += rounded;
+                        }
+                    }
+                    teamArchivedDays += archivedDays;
+                    teamArchivedMillis += archivedMillis;
+
+                    Long millis = totals.getLong(AggregateField.sum("totalMillis"));
+                    Double roundedDays = totals.getDouble(AggregateField.sum("totalShiftTime"));
+                    Double attended = attendancePct.get(member.getId());
+                    CsvWriter.writeRow(summary, member.getId(), member.getString("username"),
+                            totals.getCount() + archivedDays,
+                            hours((millis == null ? 0 : millis) + archivedMillis),
+                            String.format(Locale.ROOT, "%.1f", (roundedDays == null ? 0.0 : roundedDays) + archivedRounded),
+                            String.format(Locale.ROOT, "%.0f", attended == null ? 0.0 : attended));
+
+                    int done = ++membersDone;
+                    mainHandler.post(() -> callback.onProgress(done));
+                }
+
+                if (memberPage.size() < MEMBER_PAGE_SIZE) break;
+                lastMember = memberPage.getDocuments().get(memberPage.size() - 1);
+            }
+
+            // Whole team in one server-side aggregation over the Days collection group.
+            AggregateQuerySnapshot team = Tasks.await(db.collectionGroup("Days")
+                    .whereGreaterThanOrEqualTo("date", fromKey)
+                    .whereLessThan("date", untilKey)
+                    .aggregate(AggregateField.count(), AggregateField.sum("totalMillis"))
+                    .get(AggregateSource.SERVER));
+            Long teamMillis = team.getLong(AggregateField.sum("totalMillis"));
+            CsvWriter.writeRow(summary, "TEAM", "", team.getCount() + teamArchivedDays,
+                    hours((teamMillis == null ? 0 : teamMillis) + teamArchivedMillis), "", "");
+        }
+    }
+
+    // Pages through one member's Days in date order, writing each page to detail (when given) before fetching
+    // the next. Returns the dates seen.
+    private Set<String> streamDays(String uid, Query days, Writer detail) throws Exception {
+        Query ordered = days.orderBy("date").limit(DAY_PAGE_SIZE);
+        DocumentSnapshot lastDay = null;
+        Set<String> dates = new HashSet<>();
+
+        while (true) {
+            Query page = lastDay == null ? ordered : ordered.startAfter(lastDay);
+            QuerySnapshot dayPage = Tasks.await(page.get());
+
+            for (DocumentSnapshot day : dayPage.getDocuments()) {
+                if (detail != null) {
+                    long millis = FirebaseHelper.dayTotalMillis(day);
+                    Double rounded = day.getDouble("totalShiftTime");
+                    CsvWriter.writeRow(detail, uid, day.getId(), millis,
+                            rounded == null ? ShiftLedger.roundedHours(millis) : rounded);
+                }
+                dates.add(day.getId());
+            }
+
+            if (dayPage.size() < DAY_PAGE_SIZE) return dates;
+            lastDay = dayPage.getDocuments().get(dayPage.size() - 1);
+        }
+    }
+
+    private static String hours(long millis) {
+        return String.format(Locale.ROOT, "%.2f", ShiftLedger.millisToHrs(millis));
+    }
+
+    private static Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8));
+    }
+}
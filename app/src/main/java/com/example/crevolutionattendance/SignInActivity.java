@@ -1,66 +1,107 @@
 package com.example.crevolutionattendance;
 
-import android.content.Intent;
 import android.os.Bundle;
-import android.widget.EditText;
-import android.widget.Toast;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
 
 import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
 
-import com.google.android.material.button.MaterialButton;
-
+/*
+ * The kiosk: one activity that stays up all day and swaps the sign-in, punch and create-account screens in place.
+ *
+ * Sign-in is the root and every other screen sits at most one entry above it, so however many students punch
+ * the back stack never grows past one fragment. All three screens share this activity's FirebaseHelper
+ * (the process-wide one from AttendanceApp) instead of building their own each time.
+ */
 public class SignInActivity extends AppCompatActivity {
 
-    private EditText signInPin;
-    private MaterialButton signInButton, createAccountButton;
     private FirebaseHelper firebaseHelper;
+    // Startup is only reported for the first sign-in screen this process shows.
+    private static boolean reportedInteractive;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        EdgeToEdge.enable(this);
-        setContentView(R.layout.activity_sign_in);
-        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
-        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.signIn), (v, insets) -> {
-            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
-            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
-            return insets;
-        });
-
-        signInPin = findViewById(R.id.signInPIN);
-        signInButton = findViewById(R.id.signInButton);
-        createAccountButton = findViewById(R.id.createAccountButton);
-        firebaseHelper = new FirebaseHelper();
-
-        signInButton.setOnClickListener(v -> {
-            String email = signInPin.getText().toString() + "@app.com";
-            String password = signInPin.getText().toString();
+        Trace.beginSection("SignInActivity.onCreate");
+        try {
+            super.onCreate(savedInstanceState);
+            EdgeToEdge.enable(this);
+            setContentView(R.layout.activity_sign_in);
+            AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
+            ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.kiosk), (v, insets) -> {
+                Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+                v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+                return insets;
+            });
 
-            if (password.isEmpty()) {
-                Toast.makeText(this, "Fill in all fields", Toast.LENGTH_SHORT).show();
+            // Usually already built by AttendanceApp's warm-up; otherwise this waits for it.
+            try {
+                firebaseHelper = AttendanceApp.firebaseHelper(this);
+            } catch (IllegalStateException e) {
+                // A build without a usable configuration (e.g. team_time_zone) can't take punches; say why and stop.
+                new AlertDialog.Builder(this)
+                        .setTitle("Attendance can't start")
+                        .setMessage(e.getMessage())
+                        .setCancelable(false)
+                        .setPositiveButton("Close", (dialog, which) -> finish())
+                        .show();
                 return;
             }
 
-            firebaseHelper.signInUser(email, password, new FirebaseHelper.FirebaseCallback() {
-                @Override
-                public void onSuccess() {
-                    Toast.makeText(SignInActivity.this, "Signed in!", Toast.LENGTH_SHORT).show();
-                    startActivity(new Intent(SignInActivity.this, MainActivity.class));
-                    finish();
-                }
+            // After a rotation or process restore the fragment manager has already put the screens back.
+            if (savedInstanceState == null) {
+                getSupportFragmentManager().beginTransaction()
+                        .setReorderingAllowed(true)
+                        .add(R.id.kiosk, new SignInFragment())
+                        .commit();
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
 
-                @Override
-                public void onFailure(String error) {
-                    Toast.makeText(SignInActivity.this, "Error: " + error, Toast.LENGTH_SHORT).show();
-                }
-            });
-        });
+    // Called by the sign-in screen once it can take a PIN: time-to-interactive for this launch.
+    void reportInteractive() {
+        if (reportedInteractive) return;
+        reportedInteractive = true;
+        reportFullyDrawn();
+        Metrics.record("startup.fullyDrawn.us", (SystemClock.uptimeMillis() - Process.getStartUptimeMillis()) * 1000);
+    }
+
+    FirebaseHelper firebaseHelper() {
+        return firebaseHelper;
+    }
+
+    // Back to the sign-in screen, dropping whatever was above it.
+    void showSignIn() {
+        getSupportFragmentManager().popBackStack(null, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+    }
+
+    // Clock in/out screen for uid, or for the signed-in user when uid is null.
+    void showMain(String uid) {
+        show(MainFragment.newInstance(uid));
+    }
+
+    void showCreateAccount() {
+        show(new CreateAccountFragment());
+    }
 
-        createAccountButton.setOnClickListener(v -> startActivity(new Intent(SignInActivity.this, CreateAccountActivity.class)));
+    // Replaces the current screen, first popping anything above sign-in so the stack stays one deep.
+    private void show(Fragment screen) {
+        FragmentManager fragments = getSupportFragmentManager();
+        fragments.popBackStack(null, FragmentManager.POP_BACK_STACK_INCLUSIVE);
+        fragments.beginTransaction()
+                .setReorderingAllowed(true)
+                .replace(R.id.kiosk, screen)
+                .addToBackStack(null)
+                .commit();
     }
 }
@@ -0,0 +1,120 @@
+package com.example.crevolutionattendance;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Trace;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.google.android.material.button.MaterialButton;
+
+public class SignInFragment extends Fragment {
+
+    public SignInFragment() {
+        super(R.layout.fragment_sign_in);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        Trace.beginSection("SignInFragment.onViewCreated");
+        try {
+            // Views are looked up here rather than kept in fields: this fragment sits under every other screen,
+            // and fields would hold its old view tree alive after the fragment manager has dropped it.
+            EditText signInPin = view.findViewById(R.id.signInPIN);
+            MaterialButton signInButton = view.findViewById(R.id.signInButton);
+            MaterialButton punchButton = view.findViewById(R.id.punchButton);
+            MaterialButton presenceButton = view.findViewById(R.id.presenceButton);
+            MaterialButton createAccountButton = view.findViewById(R.id.createAccountButton);
+            SignInActivity kiosk = (SignInActivity) requireActivity();
+            FirebaseHelper firebaseHelper = kiosk.firebaseHelper();
+
+            // Hidden: long-press the title for the diagnostics screen.
+            view.findViewById(R.id.signInTitle).setOnLongClickListener(v -> {
+                startActivity(new Intent(requireContext(), DiagnosticsActivity.class));
+                return true;
+            });
+
+            signInButton.setOnClickListener(v -> {
+                String email = signInPin.getText().toString() + "@app.com";
+                String password = signInPin.getText().toString();
+
+                if (password.isEmpty()) {
+                    Toast.makeText(requireContext(), "Fill in all fields", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                // Kiosk mode: the PIN is resolved locally and the tablet's admin session punches for the student.
+                if (firebaseHelper.isKioskMode()) {
+                    firebaseHelper.resolvePin(password, new FirebaseHelper.PinCallback() {
+                        @Override
+                        public void onResolved(String uid) {
+                            if (!isAdded()) return;
+                            signInPin.setText("");
+                            kiosk.showMain(uid);
+                        }
+
+                        @Override
+                        public void onFailure(String error) {
+                            Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+                        }
+                    });
+                    return;
+                }
+
+                firebaseHelper.signInUser(email, password, new FirebaseHelper.FirebaseCallback() {
+                    @Override
+                    public void onSuccess() {
+                        if (!isAdded()) return;
+                        Toast.makeText(kiosk, "Signed in!", Toast.LENGTH_SHORT).show();
+                        signInPin.setText("");
+                        kiosk.showMain(null);
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+                    }
+                });
+            });
+
+            // One tap: sign in, check whether the student is on the clock, and toggle it,
+            // all without leaving this screen.
+            punchButton.setOnClickListener(v -> {
+                String pin = signInPin.getText().toString();
+
+                if (pin.isEmpty()) {
+                    Toast.makeText(requireContext(), "Fill in all fields", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                firebaseHelper.punch(pin, new FirebaseHelper.PunchCallback() {
+                    @Override
+                    public void onPunched(Punch.Type type) {
+                        String message = type == Punch.Type.IN ? "Clocked in!" : "Clocked out!";
+                        Toast.makeText(kiosk, message, Toast.LENGTH_SHORT).show();
+                        signInPin.setText("");
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        Toast.makeText(kiosk, "Error: " + error, Toast.LENGTH_SHORT).show();
+                    }
+                });
+            });
+
+            createAccountButton.setOnClickListener(v -> kiosk.showCreateAccount());
+
+            presenceButton.setOnClickListener(v -> startActivity(new Intent(requireContext(), PresenceActivity.class)));
+
+            // Interactive once the first frame with the buttons wired up is on screen.
+            view.post(kiosk::reportInteractive);
+        } finally {
+            Trace.endSection();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.crevolutionattendance;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Periodic job that closes forgotten shifts (see FirebaseHelper.sweepStaleShifts), then rebuilds the
+ * current season's team totals from the rollups (see FirebaseHelper.rebuildTeamTotals).
+ * Scheduled on kiosk tablets only, since sweeping needs the admin account they're signed in with.
+ *
+ * Input data (defaults in brackets):
+ *      cutoffMillis: how old an open shift must be to count as forgotten [16 hours]
+ *      creditMillis: how much of a forgotten shift is credited, capped at the end of its day [2 hours]
+ * A clock-out that turns up later the same day replaces the credit with the real time (see
+ * FirebaseHelper.correctAutoClosed).
+ */
+public class StaleShiftWorker extends Worker {
+    private static final String TAG = "StaleShiftWorker";
+    private static final String WORK_NAME = "stale-shift-sweep";
+
+    public static final String KEY_CUTOFF_MILLIS = "cutoffMillis";
+    public static final String KEY_CREDIT_MILLIS = "creditMillis";
+    public static final long DEFAULT_CUTOFF_MILLIS = TimeUnit.HOURS.toMillis(16);
+    public static final long DEFAULT_CREDIT_MILLIS = TimeUnit.HOURS.toMillis(2);
+
+    public StaleShiftWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Runs the sweep every 6 hours while there's a network. An existing schedule keeps its timing but takes the
+    // current input data, so tablets scheduled with an older default credit pick up the new one.
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(StaleShiftWorker.class, 6, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+                .setInputData(new Data.Builder()
+                        .putLong(KEY_CUTOFF_MILLIS, DEFAULT_CUTOFF_MILLIS)
+                        .putLong(KEY_CREDIT_MILLIS, DEFAULT_CREDIT_MILLIS)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.UPDATE, request);
+    }
+
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        long cutoff = getInputData().getLong(KEY_CUTOFF_MILLIS, DEFAULT_CUTOFF_MILLIS);
+        long credit = getInputData().getLong(KEY_CREDIT_MILLIS, DEFAULT_CREDIT_MILLIS);
+        FirebaseHelper helper = AttendanceApp.firebaseHelper(getApplicationContext());
+        try {
+            // Workers run on a background thread, so the sweep can simply be waited on.
+            int closed = Tasks.await(helper.sweepStaleShifts(cutoff, credit), 10, TimeUnit.MINUTES);
+            Log.i(TAG, "Closed " + closed + " stale shifts");
+
+            // After the sweep, so the shifts it just closed are in the rollups being counted.
+            int season = helper.seasonStartYear(System.currentTimeMillis());
+            int members = Tasks.await(helper.rebuildTeamTotals(season), 10, TimeUnit.MINUTES);
+            Log.i(TAG, "Rebuilt season " + season + " team totals from " + members + " members");
+            return Result.success();
+        } catch (Exception e) {
+            Log.w(TAG, "Stale shift sweep failed", e);
+            return Result.retry();
+        }
+    }
+}
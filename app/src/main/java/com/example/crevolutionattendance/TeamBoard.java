@@ -0,0 +1,105 @@
+package com.example.crevolutionattendance;
+
+import com.example.crevolutionattendance.ledger.TeamLeaderboard;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The one listener on a season's team shards (TeamTotals/season-YYYY/Shards, see FirebaseHelper.teamShardDoc),
+ * shared by every screen showing the team total or the leaderboard.
+ * - The listener is attached for the first subscriber and removed with the last one, so screens coming and
+ *   going don't re-read the shards each time; a new subscriber gets the latest board straight away.
+ * - Each snapshot only hands the shards that changed to the TeamLeaderboard, which re-ranks just their members.
+ * Snapshot listeners call back on the main thread, and subscribe/unsubscribe happen there too.
+ */
+public class TeamBoard {
+    // Members shown on the leaderboard.
+    public static final int TOP_SIZE = 10;
+
+    private final CollectionReference shards;
+    private TeamLeaderboard board = new TeamLeaderboard();
+    private final List<BoardCallback> callbacks = new ArrayList<>();
+    private ListenerRegistration registration;
+    private boolean loaded;
+
+    // Callback for listen(): the team's season total and the top TOP_SIZE members, on every change.
+    public interface BoardCallback {
+        void onBoard(long teamMillis, List<TeamLeaderboard.Entry> top);
+        void onFailure(String error);
+    }
+
+    TeamBoard(CollectionReference shards) {
+        this.shards = shards;
+    }
+
+    // Call remove() on the returned registration when the screen goes away.
+    public ListenerRegistration listen(BoardCallback callback) {
+        callbacks.add(callback);
+        if (registration == null) {
+            registration = shards.addSnapshotListener((snapshot, e) -> {
+                if (e != null) {
+                    for (BoardCallback c : new ArrayList<>(callbacks)) c.onFailure(e.getMessage());
+                    return;
+                }
+                if (snapshot == null) return;
+                for (DocumentChange change : snapshot.getDocumentChanges()) {
+                    apply(change);
+                }
+                loaded = true;
+                List<TeamLeaderboard.Entry> top = board.top(TOP_SIZE);
+                for (BoardCallback c : new ArrayList<>(callbacks)) c.onBoard(board.teamMillis(), top);
+            });
+        } else if (loaded) {
+            callback.onBoard(board.teamMillis(), board.top(TOP_SIZE));
+        }
+        return () -> unsubscribe(callback);
+    }
+
+    private void unsubscribe(BoardCallback callback) {
+        if (!callbacks.remove(callback) || !callbacks.isEmpty() || registration == null) return;
+        // Nobody is watching: stop listening and start from a fresh snapshot next time.
+        registration.remove();
+        registration = null;
+        loaded = false;
+        board = new TeamLeaderboard();
+    }
+
+    // Shard doc: { season, shard, totalMillis, members: { uid: { millis, username } } }
+    private void apply(DocumentChange change) {
+        DocumentSnapshot doc = change.getDocument();
+        int shard;
+        try {
+            shard = Integer.parseInt(doc.getId());
+        } catch (NumberFormatException ignored) {
+            return;
+        }
+        if (change.getType() == DocumentChange.Type.REMOVED) {
+            board.removeShard(shard);
+            return;
+        }
+
+        Map<String, Long> memberMillis = new HashMap<>();
+        Map<String, String> usernames = new HashMap<>();
+        Object members = doc.get("members");
+        if (members instanceof Map) {
+            for (Map.Entry<?, ?> member : ((Map<?, ?>) members).entrySet()) {
+                if (!(member.getValue() instanceof Map)) continue;
+                Map<?, ?> fields = (Map<?, ?>) member.getValue();
+                String uid = member.getKey().toString();
+                Object millis = fields.get("millis");
+                Object username = fields.get("username");
+                memberMillis.put(uid, millis instanceof Number ? ((Number) millis).longValue() : 0);
+                if (username != null) usernames.put(uid, username.toString());
+            }
+        }
+        Long total = doc.getLong("totalMillis");
+        board.applyShard(shard, total == null ? 0 : total, memberMillis, usernames);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class CsvWriterTest {
+    @Test
+    public void plainCellsAreNotQuoted() throws Exception {
+        StringWriter out = new StringWriter();
+        CsvWriter.writeRow(out, "uid1", "Ada Lovelace", 12, 3.5);
+        assertEquals("uid1,Ada Lovelace,12,3.5\r\n", out.toString());
+    }
+
+    @Test
+    public void specialCellsAreQuotedAndEscaped() throws Exception {
+        StringWriter out = new StringWriter();
+        CsvWriter.writeRow(out, "Smith, Jr.", "say \"hi\"", null);
+        assertEquals("\"Smith, Jr.\",\"say \"\"hi\"\"\",\r\n", out.toString());
+    }
+}
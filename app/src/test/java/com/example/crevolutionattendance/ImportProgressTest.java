@@ -0,0 +1,44 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ImportProgressTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void progressSurvivesRestart() throws Exception {
+        File dir = folder.newFolder();
+        ImportProgress progress = new ImportProgress(dir);
+        progress.markDone(Arrays.asList("123456", "234567"), Arrays.asList("uidA", "uidB"));
+        progress.markDone(Collections.singletonList("345678"), Collections.singletonList("uidC"));
+
+        ImportProgress reopened = new ImportProgress(dir);
+        assertEquals(3, reopened.size());
+        assertTrue(reopened.isDone("234567"));
+        assertFalse(reopened.isDone("999999"));
+    }
+
+    @Test
+    public void tornLastLineIsRedone() throws Exception {
+        File dir = folder.newFolder();
+        new ImportProgress(dir).markDone(Collections.singletonList("123456"), Collections.singletonList("uidA"));
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "roster_import"), true)) {
+            out.write("2345".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportProgress reopened = new ImportProgress(dir);
+        assertEquals(1, reopened.size());
+        assertFalse(reopened.isDone("2345"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketsStayWithinPrecision() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long v : values) {
+            long top = LatencyHistogram.bucketTop(LatencyHistogram.bucketOf(v));
+            assertTrue(v + " above its bucket", top >= v);
+            assertTrue(v + " bucket too wide", top - v <= v / 16);
+        }
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) h.record(i);
+
+        assertEquals(1000, h.count());
+        assertEquals(1, h.min());
+        assertEquals(1000, h.max());
+        assertEquals(500.5, h.mean(), 1e-9);
+        assertEquals(500, h.valueAt(0.5), 500 / 16.0);
+        assertEquals(990, h.valueAt(0.99), 990 / 16.0);
+        assertEquals(1000, h.valueAt(1.0));
+    }
+
+    @Test
+    public void disabledMetricsRecordNothing() throws Exception {
+        Metrics.setEnabled(false);
+        assertEquals(0, Metrics.start());
+        Metrics.record("test.disabled", 5);
+
+        Metrics.setEnabled(true);
+        Metrics.record("test.enabled", 5);
+        Metrics.setEnabled(false);
+
+        StringWriter csv = new StringWriter();
+        Metrics.writeCsv(csv);
+        assertFalse(csv.toString().contains("test.disabled"));
+        assertTrue(csv.toString().contains("test.enabled,1,5,5,5,5,5,5.0"));
+    }
+}
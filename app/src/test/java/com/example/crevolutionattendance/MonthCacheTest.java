@@ -0,0 +1,65 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MonthCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void monthArithmeticCrossesYears() {
+        assertEquals("2025-12", MonthCache.previousMonth("2026-01"));
+        assertEquals("2026-01", MonthCache.nextMonth("2025-12"));
+        assertFalse(MonthCache.isClosed("2026-01", "2026-01-20"));
+        assertFalse(MonthCache.isClosed("2025-12", "2026-01-02"));
+        assertTrue(MonthCache.isClosed("2025-12", "2026-01-03"));
+        assertTrue(MonthCache.isClosed("2025-11", "2026-01-01"));
+    }
+
+    @Test
+    public void closedMonthsSurviveReopen() throws Exception {
+        File dir = folder.newFolder();
+        List<HistoryDay> march = Arrays.asList(new HistoryDay("2026-03-20", 7_200_000L), new HistoryDay("2026-03-02", 60_000L));
+
+        MonthCache cache = new MonthCache(dir);
+        assertNull(cache.get("2026-03", 0));
+        cache.put("2026-03", 1_000L, march);
+        cache.put("2026-02", 0, Collections.emptyList());
+        cache.setFirstMonth("2025-09");
+
+        MonthCache reopened = new MonthCache(dir);
+        assertEquals(march, reopened.get("2026-03", 1_000L));
+        assertEquals(Collections.emptyList(), reopened.get("2026-02", 0));
+        assertEquals("2025-09", reopened.getFirstMonth());
+    }
+
+    @Test
+    public void changedMonthIsNotServed() throws Exception {
+        File dir = folder.newFolder();
+        MonthCache cache = new MonthCache(dir);
+        cache.put("2026-03", 1_000L, Collections.singletonList(new HistoryDay("2026-03-20", 7_200_000L)));
+
+        // A late clock-out (or the sweeper) wrote to March after it was cached, bumping its rollup.
+        assertNull(cache.get("2026-03", 2_000L));
+    }
+
+    @Test
+    public void unversionedFileIsNotServed() throws Exception {
+        File dir = folder.newFolder();
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "2026-03"))) {
+            out.write("2026-03-20,7200000\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertNull(new MonthCache(dir).get("2026-03", 0));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class PinIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resolvesPinsAndSurvivesReload() throws Exception {
+        File dir = folder.newFolder("kiosk");
+        PinIndex index = new PinIndex(dir);
+        index.put("alice", "1234");
+        index.put("bob", "5678");
+        index.save();
+
+        PinIndex reloaded = new PinIndex(dir);
+        assertEquals("alice", reloaded.resolve("1234"));
+        assertEquals("bob", reloaded.resolve("5678"));
+        assertNull(reloaded.resolve("0000"));
+    }
+
+    @Test
+    public void changedPinReplacesOldEntry() throws Exception {
+        PinIndex index = new PinIndex(folder.newFolder("kiosk"));
+        index.put("alice", "1234");
+        index.put("alice", "4321");
+
+        assertNull(index.resolve("1234"));
+        assertEquals("alice", index.resolve("4321"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void pinKeysDifferPerTablet() throws Exception {
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        PinIndex a = new PinIndex(first);
+        PinIndex b = new PinIndex(second);
+        a.put("alice", "1234");
+        b.put("alice", "1234");
+        a.save();
+        b.save();
+
+        String entryA = entryLine(first);
+        String entryB = entryLine(second);
+        assertNotEquals(entryA, entryB);
+        assertFalse(entryA.contains("1234"));
+    }
+
+    @Test
+    public void clearForgetsEveryPin() throws Exception {
+        File dir = folder.newFolder("kiosk");
+        PinIndex index = new PinIndex(dir);
+        index.put("alice", "1234");
+        index.clear();
+        index.save();
+
+        assertNull(index.resolve("1234"));
+        assertNull(new PinIndex(dir).resolve("1234"));
+    }
+
+    private static String entryLine(File dir) throws Exception {
+        return Files.readAllLines(new File(dir, "pin_index").toPath(), StandardCharsets.UTF_8).get(1);
+    }
+}
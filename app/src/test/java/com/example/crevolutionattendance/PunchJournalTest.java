@@ -0,0 +1,117 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PunchJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void pendingPunchesSurviveReopen() throws Exception {
+        File dir = folder.newFolder("journal");
+        PunchJournal journal = new PunchJournal(dir);
+        journal.append(new Punch("p1", "alice", Punch.Type.IN, 1000L));
+        journal.append(new Punch("p2", "bob", Punch.Type.IN, 2000L));
+        journal.markSynced(1);
+
+        PunchJournal reopened = new PunchJournal(dir);
+        List<Punch> pending = reopened.pending(10);
+        assertEquals(1, pending.size());
+        assertEquals("p2", pending.get(0).id);
+        assertEquals(Punch.Type.IN, reopened.lastType("alice"));
+    }
+
+    @Test
+    public void fullySyncedJournalIsTruncated() throws Exception {
+        File dir = folder.newFolder("journal");
+        PunchJournal journal = new PunchJournal(dir);
+        journal.append(new Punch("p1", "alice", Punch.Type.IN, 1000L));
+        journal.append(new Punch("p2", "alice", Punch.Type.OUT, 2000L));
+        journal.markSynced(2);
+
+        assertEquals(0, journal.pendingCount());
+        assertEquals(0, new File(dir, "punches.log").length());
+        // The last known state is kept even though the log was emptied.
+        assertEquals(Punch.Type.OUT, journal.lastType("alice"));
+    }
+
+    @Test
+    public void tornLastLineIsDropped() throws Exception {
+        File dir = folder.newFolder("journal");
+        PunchJournal journal = new PunchJournal(dir);
+        journal.append(new Punch("p1", "alice", Punch.Type.IN, 1000L));
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "punches.log"), true)) {
+            out.write("p2,bob,OU".getBytes(StandardCharsets.UTF_8));
+        }
+
+        PunchJournal reopened = new PunchJournal(dir);
+        assertEquals(1, reopened.pendingCount());
+
+        reopened.append(new Punch("p3", "bob", Punch.Type.IN, 3000L));
+        List<Punch> pending = new PunchJournal(dir).pending(10);
+        assertEquals(2, pending.size());
+        assertEquals("p3", pending.get(1).id);
+    }
+
+    @Test
+    public void cursorLeftPastAnEmptiedLogDoesNotHideNewPunches() throws Exception {
+        File dir = folder.newFolder("journal");
+        PunchJournal journal = new PunchJournal(dir);
+        journal.append(new Punch("p1", "alice", Punch.Type.IN, 1000L));
+        journal.append(new Punch("p2", "alice", Punch.Type.OUT, 2000L));
+
+        // A crash after truncating the log but before resetting the cursor: cursor 2 over an empty log.
+        new FileOutputStream(new File(dir, "punches.log"), false).close();
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "punches.cursor"), false)) {
+            out.write("2".getBytes(StandardCharsets.UTF_8));
+        }
+
+        PunchJournal restarted = new PunchJournal(dir);
+        restarted.append(new Punch("p3", "bob", Punch.Type.IN, 3000L));
+        restarted.append(new Punch("p4", "bob", Punch.Type.OUT, 4000L));
+
+        List<Punch> pending = new PunchJournal(dir).pending(10);
+        assertEquals(2, pending.size());
+        assertEquals("p3", pending.get(0).id);
+    }
+
+    @Test
+    public void onlyUnsyncedPunchesArePending() throws Exception {
+        PunchJournal journal = new PunchJournal(folder.newFolder("journal"));
+        journal.append(new Punch("p1", "alice", Punch.Type.IN, 1000L));
+        journal.append(new Punch("p2", "bob", Punch.Type.IN, 2000L));
+        journal.markSynced(1);
+
+        assertFalse(journal.isPending("alice"));
+        assertTrue(journal.isPending("bob"));
+
+        // Synced punches still answer lastPunch(), they just no longer count as pending.
+        journal.markSynced(1);
+        assertFalse(journal.isPending("bob"));
+        assertEquals(Punch.Type.IN, journal.lastPunch("bob").type);
+    }
+
+    @Test
+    public void quarantinedPunchesAreKept() throws Exception {
+        File dir = folder.newFolder("journal");
+        PunchJournal journal = new PunchJournal(dir);
+        Punch bad = new Punch("p1", "alice", Punch.Type.IN, 1000L);
+        journal.append(bad);
+        journal.quarantine(bad, "PERMISSION_DENIED: Missing or insufficient permissions, \nsee rules");
+        journal.markSynced(1);
+
+        List<Punch> quarantined = new PunchJournal(dir).quarantined();
+        assertEquals(1, quarantined.size());
+        assertEquals("p1", quarantined.get(0).id);
+        assertEquals(0, journal.pendingCount());
+    }
+}
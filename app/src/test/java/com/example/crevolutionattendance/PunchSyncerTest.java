@@ -0,0 +1,153 @@
+package com.example.crevolutionattendance;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PunchSyncerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // In-memory stand-in for Firestore that skips punch ids it has already stored, like the real sink.
+    private static class InMemorySink implements PunchSyncer.PunchSink {
+        final List<Punch> stored = Collections.synchronizedList(new ArrayList<>());
+        final Set<String> ids = Collections.synchronizedSet(new HashSet<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        volatile int failuresLeft = 0;
+        volatile int failAfter = Integer.MAX_VALUE;
+        int expected;
+        CountDownLatch done;
+
+        @Override
+        public void apply(List<Punch> batch, PunchSyncer.SinkCallback callback) {
+            batchSizes.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (failuresLeft > 0 && i == failAfter) {
+                    failuresLeft--;
+                    callback.onFailure("offline");
+                    return;
+                }
+                Punch punch = batch.get(i);
+                if (ids.add(punch.id)) stored.add(punch);
+            }
+            callback.onApplied(batch.size());
+            if (stored.size() == expected) done.countDown();
+        }
+    }
+
+    @Test
+    public void drainsJournalInBatches() throws Exception {
+        PunchJournal journal = new PunchJournal(folder.newFolder("journal"));
+        for (int i = 0; i < 45; i++) {
+            journal.append(new Punch("p" + i, "u" + i, Punch.Type.IN, i));
+        }
+
+        InMemorySink sink = new InMemorySink();
+        sink.expected = 45;
+        sink.done = new CountDownLatch(1);
+        new PunchSyncer(journal, sink, executor, 20).requestSync();
+
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(20, 20, 5), sink.batchSizes);
+        for (int i = 0; i < 45; i++) {
+            assertEquals("p" + i, sink.stored.get(i).id);
+        }
+    }
+
+    @Test
+    public void retriedBatchDoesNotDoubleWrite() throws Exception {
+        PunchJournal journal = new PunchJournal(folder.newFolder("journal"));
+        for (int i = 0; i < 5; i++) {
+            journal.append(new Punch("p" + i, "u", i % 2 == 0 ? Punch.Type.IN : Punch.Type.OUT, i));
+        }
+
+        // The first attempt stores two punches and then "goes offline".
+        InMemorySink sink = new InMemorySink();
+        sink.failuresLeft = 1;
+        sink.failAfter = 2;
+        sink.expected = 5;
+        sink.done = new CountDownLatch(1);
+        new PunchSyncer(journal, sink, executor, 20).requestSync();
+
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        assertEquals(5, sink.stored.size());
+        assertEquals(List.of(5, 5), sink.batchSizes);
+    }
+
+    @Test
+    public void sinkThatThrowsIsRetried() throws Exception {
+        PunchJournal journal = new PunchJournal(folder.newFolder("journal"));
+        for (int i = 0; i < 3; i++) {
+            journal.append(new Punch("p" + i, "u" + i, Punch.Type.IN, i));
+        }
+
+        // The first apply() throws before calling back; the syncer must still try again.
+        InMemorySink sink = new InMemorySink() {
+            boolean thrown;
+
+            @Override
+            public void apply(List<Punch> batch, PunchSyncer.SinkCallback callback) {
+                if (!thrown) {
+                    thrown = true;
+                    throw new IllegalStateException("not signed in");
+                }
+                super.apply(batch, callback);
+            }
+        };
+        sink.expected = 3;
+        sink.done = new CountDownLatch(1);
+        new PunchSyncer(journal, sink, executor, 20).requestSync();
+
+        assertTrue(sink.done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, sink.stored.size());
+    }
+
+    @Test
+    public void punchesTheSinkCannotTakeYetStayPending() throws Exception {
+        PunchJournal journal = new PunchJournal(folder.newFolder("journal"));
+        journal.append(new Punch("p0", "alice", Punch.Type.IN, 0));
+        journal.append(new Punch("p1", "alice", Punch.Type.OUT, 1));
+        journal.append(new Punch("p2", "bob", Punch.Type.IN, 2));
+
+        // Like the app outside kiosk mode: only the signed-in student's leading punches are taken.
+        CountDownLatch taken = new CountDownLatch(1);
+        PunchSyncer.PunchSink sink = (batch, callback) -> {
+            int owned = 0;
+            while (owned < batch.size() && batch.get(owned).uid.equals("alice")) owned++;
+            callback.onApplied(owned);
+            if (owned == 0) taken.countDown();
+        };
+        new PunchSyncer(journal, sink, executor, 20).requestSync();
+
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        List<Punch> pending = journal.pending(10);
+        assertEquals(1, pending.size());
+        assertEquals("p2", pending.get(0).id);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.crevolutionattendance;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class RosterCsvTest {
+    @Test
+    public void parsesRowsAndCollectsErrors() throws Exception {
+        String csv = "First,Last,PIN\n"
+                + "Ada,Lovelace,123456\n"
+                + "\"Sam\",\"Smith, Jr.\",234567\n"
+                + "\n"
+                + "Short,Pin,123\n"
+                + "Dup,Pin,123456\n"
+                + "Missing,Cells\n";
+
+        RosterCsv roster = RosterCsv.parse(new StringReader(csv));
+
+        assertEquals(2, roster.entries.size());
+        assertEquals("Ada Lovelace", roster.entries.get(0).username());
+        assertEquals("123456@app.com", roster.entries.get(0).email());
+        assertEquals("Smith, Jr.", roster.entries.get(1).lastName);
+        assertEquals(3, roster.errors.size());
+        assertTrue(roster.errors.get(1).contains("used twice"));
+    }
+}
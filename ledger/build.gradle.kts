@@ -0,0 +1,22 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+// Pure-JVM shift math shared by the app. No Android or Firebase dependencies,
+// so it can be unit tested and benchmarked on a desktop JVM.
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+// Run with: ./gradlew :ledger:jmh
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+}
@@ -0,0 +1,76 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Today's date key and midnight the way the app used to get them (a fresh Calendar and
+ * String.format per call) versus DayClock. The punch time moves a little each call, as it
+ * does on a kiosk, but stays within one day, which is the case clock-in and clock-out hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DayClockBenchmark {
+    private static final long NOON = 1_760_716_800_000L;
+
+    private DayClock clock;
+    private long when;
+
+    @Setup
+    public void setUp() {
+        clock = new DayClock(TimeZone.getTimeZone("America/New_York"), () -> when);
+        when = NOON;
+    }
+
+    private long next() {
+        when = NOON + (when + 7_919) % 3_600_000L;
+        return when;
+    }
+
+    @Benchmark
+    public String calendarDateKey() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(next());
+        return String.format(Locale.getDefault(), "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+                calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    @Benchmark
+    public String dayClockDateKey() {
+        return clock.dateKey(next());
+    }
+
+    @Benchmark
+    public long calendarStartOfDay() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(next());
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    @Benchmark
+    public long dayClockStartOfDay() {
+        return clock.startOfDay(next());
+    }
+
+    // A new day on every call: the cache never hits, so this is DayClock's worst case.
+    @Benchmark
+    public String dayClockDateKeyEveryCallANewDay() {
+        when += 86_400_000L;
+        return clock.dateKey(when);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Getting a day's shifts into ShiftLedger arrays: from a packed blob versus from the list of
+ * { inMillis, outMillis } maps with boxed Longs that Firestore hands back for map-encoded shifts.
+ * The map side only measures the copy out of already-built maps, so it understates the real cost
+ * (Firestore also has to build those maps and Longs).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PackedShiftsBenchmark {
+    private static final long MIDNIGHT = 1_760_000_000_000L;
+
+    @Param({"2", "16", "256"})
+    public int shiftsPerDay;
+
+    private byte[] packed;
+    private List<Map<String, Object>> maps;
+    private long[] ins;
+    private long[] outs;
+
+    @Setup
+    public void setUp() {
+        ins = new long[shiftsPerDay];
+        outs = new long[shiftsPerDay];
+        maps = new ArrayList<>();
+        long at = MIDNIGHT + 15 * 60 * 60_000L;
+        for (int i = 0; i < shiftsPerDay; i++) {
+            ins[i] = at + 1_234;
+            outs[i] = ins[i] + 60_000L + i;
+            at = outs[i];
+            Map<String, Object> shift = new HashMap<>();
+            shift.put("inMillis", ins[i]);
+            shift.put("outMillis", outs[i]);
+            maps.add(shift);
+        }
+        packed = PackedShifts.encode(MIDNIGHT, ins, outs, shiftsPerDay);
+    }
+
+    @Benchmark
+    public long decodePacked() {
+        int count = PackedShifts.decode(packed, MIDNIGHT, ins, outs);
+        return ShiftLedger.closedMillis(ins, outs, count);
+    }
+
+    @Benchmark
+    public long decodeMaps() {
+        int count = maps.size();
+        for (int i = 0; i < count; i++) {
+            Object in = maps.get(i).get("inMillis");
+            Object out = maps.get(i).get("outMillis");
+            ins[i] = in == null ? 0 : ((Number) in).longValue();
+            outs[i] = in == null ? 0 : out == null ? ShiftLedger.OPEN : ((Number) out).longValue();
+        }
+        return ShiftLedger.closedMillis(ins, outs, count);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return PackedShifts.encode(MIDNIGHT, ins, outs, shiftsPerDay);
+    }
+}
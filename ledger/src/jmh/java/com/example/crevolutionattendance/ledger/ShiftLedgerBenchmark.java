@@ -0,0 +1,73 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Benchmarks for the shift math on realistic and pathological inputs.
+ * - shiftsPerDay: 4 is a normal meeting day, 10000 is a day doc that has been punched far too often.
+ * - openDays: how many midnights a forgotten shift crosses before it is closed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShiftLedgerBenchmark {
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    @Param({"4", "10000"})
+    public int shiftsPerDay;
+
+    @Param({"1", "30"})
+    public int openDays;
+
+    private final DayCalendar days = new CalendarDays(TimeZone.getTimeZone("America/New_York"));
+
+    private long[] ins;
+    private long[] outs;
+    private long splitIn;
+    private long splitOut;
+    private long[] segStarts;
+    private long[] segEnds;
+
+    @Setup
+    public void setUp() {
+        long base = 1_760_000_000_000L;
+        ins = new long[shiftsPerDay];
+        outs = new long[shiftsPerDay];
+        for (int i = 0; i < shiftsPerDay; i++) {
+            ins[i] = base + i * 2L * 60_000L;
+            outs[i] = ins[i] + 60_000L;
+        }
+        // Only the first shift is open, so the lookup has to scan the whole day.
+        outs[0] = ShiftLedger.OPEN;
+
+        splitIn = base;
+        splitOut = base + openDays * 24L * HOUR;
+        segStarts = new long[openDays + 2];
+        segEnds = new long[openDays + 2];
+    }
+
+    @Benchmark
+    public long totals() {
+        return ShiftLedger.closedMillis(ins, outs, shiftsPerDay);
+    }
+
+    @Benchmark
+    public int openShiftLookup() {
+        return ShiftLedger.lastOpenIndex(outs, shiftsPerDay);
+    }
+
+    @Benchmark
+    public int split() {
+        return ShiftLedger.split(splitIn, splitOut, days, segStarts, segEnds);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/*
+ * DayCalendar backed by java.util.Calendar in a fixed time zone.
+ * Calendar handles 23- and 25-hour days around DST changes.
+ * One Calendar is reused under a lock instead of allocating one per call.
+ */
+public final class CalendarDays implements DayCalendar {
+    private final Calendar calendar;
+
+    public CalendarDays(TimeZone timeZone) {
+        calendar = Calendar.getInstance(timeZone);
+    }
+
+    @Override
+    public synchronized long startOfDay(long whenMillis) {
+        calendar.setTimeInMillis(whenMillis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    @Override
+    public synchronized long nextDayStart(long dayStartMillis) {
+        calendar.setTimeInMillis(dayStartMillis);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.crevolutionattendance.ledger;
+
+/*
+ * Where local days start and end. Kept behind an interface so the ledger doesn't care
+ * which time zone (or which clock implementation) the app uses.
+ */
+public interface DayCalendar {
+
+    // Returns the local midnight (00:00:00.000) of the day containing whenMillis.
+    long startOfDay(long whenMillis);
+
+    // Returns the local midnight that starts the day after the one beginning at dayStartMillis.
+    long nextDayStart(long dayStartMillis);
+}
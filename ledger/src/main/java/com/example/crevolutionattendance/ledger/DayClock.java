@@ -0,0 +1,219 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.function.LongSupplier;
+
+/*
+ * Day keys and day boundaries in the team's time zone, read off an injectable clock.
+ *
+ * Date keys are always "YYYY-MM-DD" in ASCII digits, whatever the device locale, so Days documents
+ * keep sorting by id. The zone is fixed at construction (the team's, not whatever the tablet is set to).
+ *
+ * The two most recently used days are cached with their key, midnight and next midnight, so the usual
+ * calls (today's key, today's midnight, splitting a shift that ends today) are a range check and no
+ * allocation. Crossing a boundary, including a 23- or 25-hour DST day, just misses the cache: the new
+ * day is worked out once with a Calendar in the team zone and replaces the older cached day.
+ *
+ * Thread-safe: cached days are immutable and the Calendar is only used under its lock.
+ */
+public final class DayClock implements DayCalendar {
+
+    // One local day: [start, end) in epoch millis, with its key and calendar fields.
+    private static final class Day {
+        final long start;
+        final long end;
+        final String key;
+        final int year;
+        final int month;        // 1-12
+        final int dayOfWeek;    // 0 = Monday ... 6 = Sunday
+
+        Day(long start, long end, int year, int month, int dayOfMonth) {
+            this.start = start;
+            this.end = end;
+            this.year = year;
+            this.month = month;
+            this.key = formatKey(year, month, dayOfMonth);
+            this.dayOfWeek = (int) Math.floorMod(epochDay(year, month, dayOfMonth) + 3, 7L);
+        }
+
+        boolean contains(long whenMillis) {
+            return whenMillis >= start && whenMillis < end;
+        }
+    }
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final TimeZone zone;
+    private final LongSupplier clock;
+    private final Calendar calendar;
+
+    private volatile Day recent;
+    private volatile Day older;
+
+    public DayClock(TimeZone zone, LongSupplier clock) {
+        this.zone = (TimeZone) zone.clone();
+        this.clock = clock;
+        this.calendar = Calendar.getInstance(this.zone);
+    }
+
+    public TimeZone zone() {
+        return (TimeZone) zone.clone();
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    // Today's date key; the same String instance until the clock crosses midnight.
+    public String today() {
+        return day(clock.getAsLong()).key;
+    }
+
+    // Midnight that started today.
+    public long todayStart() {
+        return day(clock.getAsLong()).start;
+    }
+
+    // The date key (YYYY-MM-DD) of the day containing whenMillis.
+    public String dateKey(long whenMillis) {
+        return day(whenMillis).key;
+    }
+
+    @Override
+    public long startOfDay(long whenMillis) {
+        return day(whenMillis).start;
+    }
+
+    @Override
+    public long nextDayStart(long dayStartMillis) {
+        return day(dayStartMillis).end;
+    }
+
+    // Midnight that starts the week (Monday) containing whenMillis.
+    public long weekStart(long whenMillis) {
+        Day day = day(whenMillis);
+        if (day.dayOfWeek == 0) return day.start;
+        // Noon of that Monday: DST moves midnight by at most an hour or two, never by half a day.
+        return day(day.start - day.dayOfWeek * DAY_MILLIS + 12 * HOUR_MILLIS).start;
+    }
+
+    // Calendar year (e.g. 2026) and month (1-12) of the day containing whenMillis.
+    public int year(long whenMillis) {
+        return day(whenMillis).year;
+    }
+
+    public int month(long whenMillis) {
+        return day(whenMillis).month;
+    }
+
+    // Midnight that starts the day named by a YYYY-MM-DD key. Throws IllegalArgumentException on anything else.
+    public long startOfKey(String dateKey) {
+        Day cached = recent;
+        if (cached != null && cached.key.equals(dateKey)) return cached.start;
+        cached = older;
+        if (cached != null && cached.key.equals(dateKey)) return cached.start;
+
+        int year = digits(dateKey, 0, 4);
+        int month = digits(dateKey, 5, 2);
+        int dayOfMonth = digits(dateKey, 8, 2);
+        requireKey(dateKey, month, dayOfMonth);
+        synchronized (calendar) {
+            calendar.clear();
+            calendar.set(year, month - 1, dayOfMonth);
+            return calendar.getTimeInMillis();
+        }
+    }
+
+    private Day day(long whenMillis) {
+        Day cached = recent;
+        if (cached != null && cached.contains(whenMillis)) return cached;
+        Day other = older;
+        if (other != null && other.contains(whenMillis)) return other;
+
+        Day day = compute(whenMillis);
+        older = cached;
+        recent = day;
+        return day;
+    }
+
+    private Day compute(long whenMillis) {
+        synchronized (calendar) {
+            calendar.setTimeInMillis(whenMillis);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            long start = calendar.getTimeInMillis();
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH) + 1; // Calendar months are 0-based
+            int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            return new Day(start, calendar.getTimeInMillis(), year, month, dayOfMonth);
+        }
+    }
+
+    // Zero-padded ASCII, so keys sort as strings and never pick up locale digits.
+    static String formatKey(int year, int month, int dayOfMonth) {
+        char[] key = {
+                (char) ('0' + year / 1000 % 10), (char) ('0' + year / 100 % 10),
+                (char) ('0' + year / 10 % 10), (char) ('0' + year % 10), '-',
+                (char) ('0' + month / 10), (char) ('0' + month % 10), '-',
+                (char) ('0' + dayOfMonth / 10), (char) ('0' + dayOfMonth % 10)};
+        return new String(key);
+    }
+
+    // Days since 1970-01-01 of a YYYY-MM-DD key (no time zone involved). Throws IllegalArgumentException on anything else.
+    static long epochDayOfKey(String dateKey) {
+        int year = digits(dateKey, 0, 4);
+        int month = digits(dateKey, 5, 2);
+        int dayOfMonth = digits(dateKey, 8, 2);
+        requireKey(dateKey, month, dayOfMonth);
+        return epochDay(year, month, dayOfMonth);
+    }
+
+    // The YYYY-MM-DD key of a day counted from 1970-01-01 (Howard Hinnant's civil_from_days).
+    static String keyOfEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int dayOfMonth = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        if (year < 0 || year > 9999) throw new IllegalArgumentException("Day out of range: " + epochDay);
+        return formatKey(year, month, dayOfMonth);
+    }
+
+    private static void requireKey(String dateKey, int month, int dayOfMonth) {
+        if (dateKey.length() != 10 || dateKey.charAt(4) != '-' || dateKey.charAt(7) != '-'
+                || month < 1 || month > 12 || dayOfMonth < 1 || dayOfMonth > 31) {
+            throw new IllegalArgumentException("Not a date key: " + dateKey);
+        }
+    }
+
+    private static int digits(String s, int from, int count) {
+        if (s.length() < from + count) throw new IllegalArgumentException("Not a date key: " + s);
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') throw new IllegalArgumentException("Not a date key: " + s);
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date (Howard Hinnant's days_from_civil).
+    private static long epochDay(int year, int month, int dayOfMonth) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
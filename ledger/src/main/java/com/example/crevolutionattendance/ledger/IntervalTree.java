@@ -0,0 +1,127 @@
+package com.example.crevolutionattendance.ledger;
+
+/*
+ * Shifts as half-open intervals [start, end), each tagged with a small int member id.
+ *
+ * An AVL tree ordered by start where every node also keeps the largest end in its subtree (maxEnd).
+ * - add is O(log n) and keeps the tree balanced, so shifts can be added as they close, in any order.
+ * - Finding the intervals that overlap a window is O(log n + k) for k matches: subtrees whose maxEnd
+ *   is before the window, or whose starts are after it, are skipped without being visited.
+ */
+public final class IntervalTree {
+
+    // Receives each interval that overlaps a query window.
+    public interface Visitor {
+        void visit(int member, long start, long end);
+    }
+
+    private static final class Node {
+        final long start;
+        final long end;
+        final int member;
+        long maxEnd;
+        int height = 1;
+        Node left, right;
+
+        Node(long start, long end, int member) {
+            this.start = start;
+            this.end = end;
+            this.member = member;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    // Adds [start, end). Empty or inverted intervals can't overlap anything and are ignored.
+    public void add(long start, long end, int member) {
+        if (end <= start) return;
+        root = insert(root, new Node(start, end, member));
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // True if any interval overlaps [from, to).
+    public boolean anyOverlap(long from, long to) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < to && node.end > from) return true;
+            // If the left subtree reaches past from but holds no overlap, everything in it (and so everything
+            // to the right) starts at or after to, so going left is never wrong when it can reach.
+            node = node.left != null && node.left.maxEnd > from ? node.left : node.right;
+        }
+        return false;
+    }
+
+    // Calls visitor for every interval that overlaps [from, to), in start order.
+    public void forEachOverlap(long from, long to, Visitor visitor) {
+        if (from < to) visit(root, from, to, visitor);
+    }
+
+    private static void visit(Node node, long from, long to, Visitor visitor) {
+        if (node == null || node.maxEnd <= from) return;
+        visit(node.left, from, to, visitor);
+        // This node and its whole right subtree start at or after the window's end.
+        if (node.start >= to) return;
+        if (node.end > from) visitor.visit(node.member, node.start, node.end);
+        visit(node.right, from, to, visitor);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node top = node.left;
+        node.left = top.right;
+        top.right = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node top = node.right;
+        node.right = top.left;
+        top.left = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) maxEnd = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > maxEnd) maxEnd = node.right.maxEnd;
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
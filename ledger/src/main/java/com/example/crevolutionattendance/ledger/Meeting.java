@@ -0,0 +1,22 @@
+package com.example.crevolutionattendance.ledger;
+
+/*
+ * One scheduled team meeting (build session, general meeting, ...) over [startMillis, endMillis).
+ */
+public final class Meeting {
+    public final String id;
+    public final String title;
+    public final long startMillis;
+    public final long endMillis;
+
+    public Meeting(String id, String title, long startMillis, long endMillis) {
+        this.id = id;
+        this.title = title;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+    }
+
+    public long durationMillis() {
+        return Math.max(0, endMillis - startMillis);
+    }
+}
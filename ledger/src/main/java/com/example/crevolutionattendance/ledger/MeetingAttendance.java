@@ -0,0 +1,128 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Who attended which meeting, answered from an IntervalTree over every closed shift.
+ *
+ * A member attended a meeting when their shifts cover at least minFraction of it (e.g. 0.75 for
+ * "present for at least 75% of Tuesday's build session"). Shifts can be added at any time,
+ * e.g. as clock-outs are applied, and every query sees them immediately.
+ * Members are uids; the tree stores them as small ints, mapped here.
+ */
+public final class MeetingAttendance {
+
+    // The team's usual rule: present for at least three quarters of the meeting.
+    public static final double DEFAULT_PRESENT_FRACTION = 0.75;
+
+    private final IntervalTree shifts = new IntervalTree();
+    private final Map<String, Integer> memberIds = new HashMap<>();
+    private final List<String> uids = new ArrayList<>();
+
+    // Per-member overlap scratch space, indexed by member id, reused across queries.
+    private long[] overlap = new long[16];
+    private int[] touched = new int[16];
+    private int touchedCount;
+
+    public synchronized void addShift(String uid, long inMillis, long outMillis) {
+        Integer id = memberIds.get(uid);
+        if (id == null) {
+            id = uids.size();
+            memberIds.put(uid, id);
+            uids.add(uid);
+        }
+        shifts.add(inMillis, outMillis, id);
+    }
+
+    public synchronized int shiftCount() {
+        return shifts.size();
+    }
+
+    // Whether anybody was clocked in at some point during [fromMillis, toMillis).
+    public synchronized boolean anyonePresent(long fromMillis, long toMillis) {
+        return shifts.anyOverlap(fromMillis, toMillis);
+    }
+
+    // How long each member was clocked in during [fromMillis, toMillis). Members with no overlap are left out.
+    public synchronized Map<String, Long> overlapMillis(long fromMillis, long toMillis) {
+        collect(fromMillis, toMillis);
+        Map<String, Long> result = new HashMap<>();
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            result.put(uids.get(id), overlap[id]);
+        }
+        clear();
+        return result;
+    }
+
+    // The fraction (0..1) of the meeting each member was there for. Members who weren't there are left out.
+    public synchronized Map<String, Double> fractions(Meeting meeting) {
+        Map<String, Double> result = new HashMap<>();
+        long duration = meeting.durationMillis();
+        if (duration == 0) return result;
+
+        collect(meeting.startMillis, meeting.endMillis);
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            result.put(uids.get(id), Math.min(1.0, overlap[id] / (double) duration));
+        }
+        clear();
+        return result;
+    }
+
+    // Members present for at least minFraction of the meeting.
+    public synchronized List<String> attendees(Meeting meeting, double minFraction) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : fractions(meeting).entrySet()) {
+            if (entry.getValue() >= minFraction) result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    /*
+     * Percentage (0..100) of the given meetings each member attended, e.g. across a season.
+     * One window query per meeting. Members who attended none are left out (they're at 0).
+     */
+    public synchronized Map<String, Double> attendancePercentages(List<Meeting> meetings, double minFraction) {
+        Map<String, Double> result = new HashMap<>();
+        if (meetings.isEmpty()) return result;
+
+        int[] attended = new int[uids.size()];
+        for (Meeting meeting : meetings) {
+            long duration = meeting.durationMillis();
+            if (duration == 0) continue;
+
+            collect(meeting.startMillis, meeting.endMillis);
+            for (int i = 0; i < touchedCount; i++) {
+                int id = touched[i];
+                if (overlap[id] >= minFraction * duration) attended[id]++;
+            }
+            clear();
+        }
+
+        for (int id = 0; id < attended.length; id++) {
+            if (attended[id] > 0) result.put(uids.get(id), 100.0 * attended[id] / meetings.size());
+        }
+        return result;
+    }
+
+    // Sums each member's clipped overlap with [from, to) into overlap[], remembering which ids were touched.
+    private void collect(long from, long to) {
+        if (overlap.length < uids.size()) {
+            overlap = new long[Math.max(uids.size(), overlap.length * 2)];
+            touched = new int[overlap.length];
+        }
+        shifts.forEachOverlap(from, to, (member, start, end) -> {
+            if (overlap[member] == 0) touched[touchedCount++] = member;
+            overlap[member] += Math.min(end, to) - Math.max(start, from);
+        });
+    }
+
+    private void clear() {
+        for (int i = 0; i < touchedCount; i++) overlap[touched[i]] = 0;
+        touchedCount = 0;
+    }
+}
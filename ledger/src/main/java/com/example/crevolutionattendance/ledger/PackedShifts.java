@@ -0,0 +1,90 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.Arrays;
+
+/*
+ * Compact encoding of one day's closed shifts, stored as a single blob on the day document.
+ *
+ * Layout (all integers are zigzag varints, so small values take one or two bytes):
+ *      FORMAT_VERSION
+ *      count
+ *      per shift, in order: in - previous out (the day's midnight for the first shift), then out - in
+ * Times are relative to the day's start, so every value fits in at most four bytes (a day is < 2^27 ms),
+ * and a typical shift costs about eight bytes against ~35 for a { inMillis, outMillis } map.
+ *
+ * decode() writes straight into ShiftLedger-style parallel long arrays: no maps, no boxing.
+ * Malformed or newer-format input is rejected with IllegalArgumentException so a reader can fall back.
+ */
+public final class PackedShifts {
+
+    // Bumped if the layout ever changes; decode() refuses versions it does not know.
+    public static final int FORMAT_VERSION = 1;
+
+    private PackedShifts() {
+    }
+
+    // Encodes the first count shifts. Every shift must be closed (outs[i] != ShiftLedger.OPEN).
+    public static byte[] encode(long dayStartMillis, long[] ins, long[] outs, int count) {
+        // Version and count, then at most two 10-byte varints per shift.
+        byte[] buf = new byte[1 + Varints.MAX_BYTES + count * 2 * Varints.MAX_BYTES];
+        int pos = 0;
+        buf[pos++] = FORMAT_VERSION;
+        pos = Varints.write(buf, pos, Varints.zigzag(count));
+
+        long previous = dayStartMillis;
+        for (int i = 0; i < count; i++) {
+            if (outs[i] == ShiftLedger.OPEN) throw new IllegalArgumentException("Shift " + i + " is still open");
+            pos = Varints.write(buf, pos, Varints.zigzag(ins[i] - previous));
+            pos = Varints.write(buf, pos, Varints.zigzag(outs[i] - ins[i]));
+            previous = outs[i];
+        }
+        return Arrays.copyOf(buf, pos);
+    }
+
+    // Number of shifts in packed, for sizing the arrays passed to decode().
+    public static int count(byte[] packed) {
+        return header(new Varints.Reader(packed, "packed shifts"));
+    }
+
+    // Decodes into ins/outs (each at least count(packed) long) and returns the shift count.
+    public static int decode(byte[] packed, long dayStartMillis, long[] ins, long[] outs) {
+        Varints.Reader reader = new Varints.Reader(packed, "packed shifts");
+        int count = header(reader);
+        if (ins.length < count || outs.length < count) {
+            throw new IllegalArgumentException("Arrays too small for " + count + " shifts");
+        }
+
+        long previous = dayStartMillis;
+        for (int i = 0; i < count; i++) {
+            long in = previous + reader.signed();
+            long out = in + reader.signed();
+            ins[i] = in;
+            outs[i] = out;
+            previous = out;
+        }
+        reader.end();
+        return count;
+    }
+
+    // packed (null for a day with no shifts yet) with one more closed shift on the end.
+    public static byte[] append(byte[] packed, long dayStartMillis, long inMillis, long outMillis) {
+        int count = packed == null ? 0 : count(packed);
+        long[] ins = new long[count + 1];
+        long[] outs = new long[count + 1];
+        if (packed != null) decode(packed, dayStartMillis, ins, outs);
+        ins[count] = inMillis;
+        outs[count] = outMillis;
+        return encode(dayStartMillis, ins, outs, count + 1);
+    }
+
+    // Checks the version and returns the shift count.
+    private static int header(Varints.Reader reader) {
+        reader.version(FORMAT_VERSION);
+        long count = reader.signed();
+        // Each shift needs at least two bytes, which also bounds what a corrupt count can make callers allocate.
+        if (count < 0 || count > reader.remaining() / 2) {
+            throw new IllegalArgumentException("Bad packed shift count " + count);
+        }
+        return (int) count;
+    }
+}
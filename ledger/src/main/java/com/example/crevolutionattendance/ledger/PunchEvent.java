@@ -0,0 +1,54 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.Objects;
+
+/*
+ * One clock-in or clock-out as taken on a tablet. Immutable; the id is unique per punch (a UUID),
+ * and device names the tablet that took it. Two events with the same id are the same punch.
+ */
+public final class PunchEvent implements Comparable<PunchEvent> {
+
+    public enum Type { IN, OUT }
+
+    public final String id;
+    public final String device;
+    public final Type type;
+    public final long millis;
+
+    public PunchEvent(String id, String device, Type type, long millis) {
+        if (id == null || device == null || type == null) throw new IllegalArgumentException("Incomplete punch event");
+        this.id = id;
+        this.device = device;
+        this.type = type;
+        this.millis = millis;
+    }
+
+    // The total order every device agrees on: time, then tablet, then id, then type.
+    @Override
+    public int compareTo(PunchEvent other) {
+        int c = Long.compare(millis, other.millis);
+        if (c != 0) return c;
+        c = device.compareTo(other.device);
+        if (c != 0) return c;
+        c = id.compareTo(other.id);
+        if (c != 0) return c;
+        return type.compareTo(other.type);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PunchEvent)) return false;
+        PunchEvent other = (PunchEvent) o;
+        return millis == other.millis && id.equals(other.id) && device.equals(other.device) && type == other.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, device, type, millis);
+    }
+
+    @Override
+    public String toString() {
+        return id + "@" + device + ":" + type + ":" + millis;
+    }
+}
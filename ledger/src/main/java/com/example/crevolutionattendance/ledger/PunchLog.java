@@ -0,0 +1,117 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * One member's punches from every tablet, as a grow-only set keyed by punch id, and the shifts they add up to.
+ *
+ * merge() is set union, so it is commutative, associative and idempotent: tablets can exchange their
+ * events in any order, any number of times, and still agree. Shifts are never stored, only derived:
+ * events are walked in PunchEvent order (time, tablet, id) and
+ *      IN  while clocked out -> a shift opens
+ *      IN  while clocked in  -> ignored (second door, double tap); the earliest IN wins
+ *      OUT while clocked in  -> the shift closes
+ *      OUT while clocked out -> ignored (second door, or nothing was open)
+ * which is what the transactional path does when punches arrive in time order, minus the aborts.
+ *
+ * If the same id somehow arrives with different contents the smaller event (in PunchEvent order) is kept,
+ * so even that resolves the same way everywhere.
+ */
+public final class PunchLog {
+
+    private final Map<String, PunchEvent> events = new HashMap<>();
+
+    public PunchLog() {
+    }
+
+    public PunchLog(Collection<PunchEvent> events) {
+        for (PunchEvent event : events) add(event);
+    }
+
+    // Adds one event. Returns whether the log changed.
+    public boolean add(PunchEvent event) {
+        PunchEvent current = events.get(event.id);
+        if (current != null && current.compareTo(event) <= 0) return false;
+        events.put(event.id, event);
+        return true;
+    }
+
+    // Adds every event of other (set union). Returns whether this log changed.
+    public boolean merge(PunchLog other) {
+        boolean changed = false;
+        for (PunchEvent event : other.events.values()) changed |= add(event);
+        return changed;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    // The events in the agreed order.
+    public List<PunchEvent> sorted() {
+        List<PunchEvent> sorted = new ArrayList<>(events.values());
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    // Upper bound on shifts(), for sizing its arrays.
+    public int maxShifts() {
+        int ins = 0;
+        for (PunchEvent event : events.values()) {
+            if (event.type == PunchEvent.Type.IN) ins++;
+        }
+        return ins;
+    }
+
+    /*
+     * Derives the shifts into ShiftLedger-style parallel arrays (at least maxShifts() long) and returns the count.
+     * Only the last shift can be open (outs = ShiftLedger.OPEN).
+     */
+    public int shifts(long[] ins, long[] outs) {
+        int count = 0;
+        boolean open = false;
+        for (PunchEvent event : sorted()) {
+            if (event.type == PunchEvent.Type.IN) {
+                if (open) continue;
+                ins[count] = event.millis;
+                outs[count] = ShiftLedger.OPEN;
+                count++;
+                open = true;
+            } else if (open) {
+                outs[count - 1] = event.millis;
+                open = false;
+            }
+        }
+        return count;
+    }
+
+    // Ids of the events shifts() ignored (duplicate INs and unmatched OUTs), in the agreed order.
+    public List<String> ignored() {
+        List<String> ignored = new ArrayList<>();
+        boolean open = false;
+        for (PunchEvent event : sorted()) {
+            boolean in = event.type == PunchEvent.Type.IN;
+            if (in == open) {
+                ignored.add(event.id);
+            } else {
+                open = in;
+            }
+        }
+        return ignored;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PunchLog && events.equals(((PunchLog) o).events);
+    }
+
+    @Override
+    public int hashCode() {
+        return events.hashCode();
+    }
+}
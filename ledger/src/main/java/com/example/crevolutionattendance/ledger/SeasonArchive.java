@@ -0,0 +1,154 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Compact encoding of one member's closed season: every day's total and packed shifts in one blob,
+ * so a past season is one archive document instead of hundreds of Days docs.
+ *
+ * Layout (integers are zigzag varints, see Varints):
+ *      FORMAT_VERSION
+ *      count
+ *      per day, oldest first:
+ *          days since the previous day (since 1970-01-01 for the first), so date keys cost a byte
+ *          totalMillis
+ *          length of the day's PackedShifts blob + 1, or 0 if only the total is known
+ *          the PackedShifts blob itself (times relative to that day's midnight, see PackedShifts)
+ * Dates are stored as calendar days, not instants, so an archive never depends on a time zone.
+ *
+ * A big season can be split with encodeChunks(); every chunk decodes on its own.
+ * Malformed or newer-format input is rejected with IllegalArgumentException.
+ */
+public final class SeasonArchive {
+
+    // Bumped if the layout ever changes; decode() refuses versions it does not know.
+    public static final int FORMAT_VERSION = 1;
+
+    // One archived day. packedShifts is null when only the day's total was known.
+    public static final class Day {
+        public final String date;
+        public final long totalMillis;
+        public final byte[] packedShifts;
+
+        public Day(String date, long totalMillis, byte[] packedShifts) {
+            if (date == null) throw new IllegalArgumentException("Archived day without a date");
+            this.date = date;
+            this.totalMillis = totalMillis;
+            this.packedShifts = packedShifts;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Day)) return false;
+            Day other = (Day) o;
+            return date.equals(other.date) && totalMillis == other.totalMillis
+                    && Arrays.equals(packedShifts, other.packedShifts);
+        }
+
+        @Override
+        public int hashCode() {
+            return date.hashCode() * 31 + Long.hashCode(totalMillis);
+        }
+
+        @Override
+        public String toString() {
+            return date + ":" + totalMillis + (packedShifts == null ? "" : "+" + packedShifts.length + "B");
+        }
+    }
+
+    private SeasonArchive() {
+    }
+
+    // Encodes days, which must be in strictly increasing date order.
+    public static byte[] encode(List<Day> days) {
+        int size = 1 + Varints.MAX_BYTES;
+        for (Day day : days) size += maxSize(day);
+        byte[] buf = new byte[size];
+        int pos = 0;
+        buf[pos++] = FORMAT_VERSION;
+        pos = Varints.write(buf, pos, Varints.zigzag(days.size()));
+
+        long previous = 0;
+        for (int i = 0; i < days.size(); i++) {
+            Day day = days.get(i);
+            long epochDay = DayClock.epochDayOfKey(day.date);
+            if (i > 0 && epochDay <= previous) {
+                throw new IllegalArgumentException("Archived days out of order at " + day.date);
+            }
+            pos = Varints.write(buf, pos, Varints.zigzag(epochDay - previous));
+            pos = Varints.write(buf, pos, Varints.zigzag(day.totalMillis));
+            if (day.packedShifts == null) {
+                pos = Varints.write(buf, pos, 0);
+            } else {
+                pos = Varints.write(buf, pos, day.packedShifts.length + 1L);
+                System.arraycopy(day.packedShifts, 0, buf, pos, day.packedShifts.length);
+                pos += day.packedShifts.length;
+            }
+            previous = epochDay;
+        }
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /*
+     * Encodes days (strictly increasing dates) as consecutive archives of at most maxChunkBytes each,
+     * e.g. to stay under a document size limit. A single day bigger than that gets a chunk of its own.
+     * Always returns at least one chunk.
+     */
+    public static List<byte[]> encodeChunks(List<Day> days, int maxChunkBytes) {
+        List<byte[]> chunks = new ArrayList<>();
+        int from = 0;
+        int bytes = 1 + Varints.MAX_BYTES;
+        for (int i = 0; i < days.size(); i++) {
+            int daySize = maxSize(days.get(i));
+            if (i > from && bytes + daySize > maxChunkBytes) {
+                chunks.add(encode(days.subList(from, i)));
+                from = i;
+                bytes = 1 + Varints.MAX_BYTES;
+            }
+            bytes += daySize;
+        }
+        chunks.add(encode(days.subList(from, days.size())));
+        return chunks;
+    }
+
+    public static List<Day> decode(byte[] archive) {
+        Varints.Reader reader = new Varints.Reader(archive, "season archive");
+        reader.version(FORMAT_VERSION);
+        long count = reader.signed();
+        // Each day needs at least three bytes, which also bounds what a corrupt count can make us allocate.
+        if (count < 0 || count > reader.remaining() / 3) {
+            throw new IllegalArgumentException("Bad archived day count " + count);
+        }
+        if (count == 0) {
+            reader.end();
+            return Collections.emptyList();
+        }
+
+        List<Day> days = new ArrayList<>((int) count);
+        long epochDay = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = reader.signed();
+            if (i > 0 && delta <= 0) throw new IllegalArgumentException("Archived days out of order");
+            epochDay += delta;
+            long totalMillis = reader.signed();
+            long length = reader.varint() - 1;
+            if (length < -1 || length > reader.remaining()) throw new IllegalArgumentException("Truncated season archive");
+            byte[] packed = null;
+            if (length >= 0) {
+                packed = Arrays.copyOfRange(archive, reader.pos, reader.pos + (int) length);
+                reader.pos += (int) length;
+            }
+            days.add(new Day(DayClock.keyOfEpochDay(epochDay), totalMillis, packed));
+        }
+        reader.end();
+        return days;
+    }
+
+    // Upper bound on one day's encoded size.
+    private static int maxSize(Day day) {
+        return 3 * Varints.MAX_BYTES + (day.packedShifts == null ? 0 : day.packedShifts.length);
+    }
+}
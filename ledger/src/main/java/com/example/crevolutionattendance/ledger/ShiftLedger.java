@@ -0,0 +1,98 @@
+package com.example.crevolutionattendance.ledger;
+
+/*
+ * Shift math, independent of Firestore.
+ *
+ * A day's shifts are passed as parallel primitive arrays plus a count:
+ *      ins[i]  = clock-in millis of shift i
+ *      outs[i] = clock-out millis of shift i, or OPEN while the shift is still running
+ * Nothing here allocates; callers own (and can reuse) every array.
+ */
+public final class ShiftLedger {
+
+    // outs[i] value for a shift that has not been clocked out yet.
+    public static final long OPEN = Long.MIN_VALUE;
+
+    private static final double MILLIS_PER_HOUR = 1000.0 * 60.0 * 60.0;
+
+    private ShiftLedger() {
+    }
+
+    // Converts milliseconds to hours.
+    public static double millisToHrs(double millis) {
+        return millis / MILLIS_PER_HOUR;
+    }
+
+    // Hours rounded to the nearest tenth, as stored in totalShiftTime.
+    public static double roundedHours(long millis) {
+        return Math.round(millisToHrs(millis) * 10.0) / 10.0;
+    }
+
+    // Sums every closed shift in milliseconds. A shift whose out is before its in counts as zero.
+    public static long closedMillis(long[] ins, long[] outs, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            long out = outs[i];
+            if (out != OPEN) total += Math.max(0, out - ins[i]);
+        }
+        return total;
+    }
+
+    // Index of the last open shift, or -1 if every shift is closed.
+    public static int lastOpenIndex(long[] outs, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (outs[i] == OPEN) return i;
+        }
+        return -1;
+    }
+
+    // How many local days the interval [inMillis, outMillis] touches (at least 1).
+    public static int dayCount(long inMillis, long outMillis, DayCalendar days) {
+        int count = 1;
+        long next = days.nextDayStart(days.startOfDay(inMillis));
+        while (outMillis >= next) {
+            count++;
+            next = days.nextDayStart(next);
+        }
+        return count;
+    }
+
+    /*
+     * Splits a shift at every local midnight it crosses:
+     *      first day:            inMillis -> 23:59:59.999
+     *      each full day between: 00:00    -> 23:59:59.999
+     *      last day:             00:00    -> outMillis
+     * A shift within one day comes back unchanged as a single segment.
+     * Segment i is written to segStarts[i] / segEnds[i]; both arrays need room for dayCount() entries.
+     * Returns the number of segments.
+     */
+    public static int split(long inMillis, long outMillis, DayCalendar days, long[] segStarts, long[] segEnds) {
+        long start = inMillis;
+        long next = days.nextDayStart(days.startOfDay(inMillis));
+        int n = 0;
+        while (outMillis >= next) {
+            segStarts[n] = start;
+            segEnds[n] = next - 1;
+            n++;
+            start = next;
+            next = days.nextDayStart(next);
+        }
+        segStarts[n] = start;
+        segEnds[n] = outMillis;
+        return n + 1;
+    }
+
+    // Length of a segment from split(); clamped at zero like closedMillis().
+    public static long segmentMillis(long segStart, long segEnd) {
+        return Math.max(0, segEnd - segStart);
+    }
+
+    /*
+     * Where a forgotten shift gets closed by the stale-shift sweeper: creditMillis after the clock-in,
+     * but never past the end of the clock-in day (23:59:59.999), so an auto-closed shift is never split.
+     */
+    public static long staleCloseMillis(long inMillis, long creditMillis, DayCalendar days) {
+        long dayEnd = days.nextDayStart(days.startOfDay(inMillis)) - 1;
+        return Math.min(inMillis + Math.max(0, creditMillis), dayEnd);
+    }
+}
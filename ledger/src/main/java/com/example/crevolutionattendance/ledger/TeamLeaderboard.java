@@ -0,0 +1,126 @@
+package com.example.crevolutionattendance.ledger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/*
+ * Team season total and hours leaderboard, kept up to date from sharded counter documents.
+ *
+ * Each shard holds a running team total and the totals of the members hashed to it (shardOf), so one
+ * clock-out only touches one shard and a burst of clock-outs spreads over all of them.
+ * applyShard() is given a shard's latest contents whenever it changes; only the members whose total
+ * moved are re-ranked, each an O(log n) remove and insert in an ordered set, and top(k) just walks
+ * the first k entries. A member found in several shards (after a shard count change) is summed.
+ *
+ * Not thread-safe: feed it and read it from one thread (the listener's).
+ */
+public final class TeamLeaderboard {
+
+    // One member's standing. Immutable, so lists handed out by top() never change under the caller.
+    public static final class Entry {
+        public final String uid;
+        public final String username;
+        public final long millis;
+
+        Entry(String uid, String username, long millis) {
+            this.uid = uid;
+            this.username = username;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            return uid + "=" + millis;
+        }
+    }
+
+    // Most hours first; equal totals in uid order so the ranking is stable.
+    private final TreeSet<Entry> ranking = new TreeSet<>((a, b) -> {
+        int c = Long.compare(b.millis, a.millis);
+        return c != 0 ? c : a.uid.compareTo(b.uid);
+    });
+    private final Map<String, Entry> byUid = new HashMap<>();
+
+    // What each shard last contributed.
+    private final Map<Integer, Long> shardTotals = new HashMap<>();
+    private final Map<Integer, Map<String, Long>> shardMembers = new HashMap<>();
+    private long teamMillis;
+
+    // The shard (0 .. shards - 1) a member's hours are counted in. String.hashCode is the same on every device.
+    public static int shardOf(String uid, int shards) {
+        return Math.floorMod(uid.hashCode(), shards);
+    }
+
+    /*
+     * Replaces everything shard contributed with its current contents: the team total it holds, and each
+     * of its members' totals. usernames may be missing entries; a member keeps the last name seen.
+     */
+    public void applyShard(int shard, long totalMillis, Map<String, Long> memberMillis, Map<String, String> usernames) {
+        Long previousTotal = shardTotals.put(shard, totalMillis);
+        teamMillis += totalMillis - (previousTotal == null ? 0 : previousTotal);
+
+        Map<String, Long> previous = shardMembers.put(shard, new HashMap<>(memberMillis));
+        if (previous == null) previous = new HashMap<>();
+        for (Map.Entry<String, Long> member : memberMillis.entrySet()) {
+            Long before = previous.remove(member.getKey());
+            long delta = member.getValue() - (before == null ? 0 : before);
+            String username = usernames.get(member.getKey());
+            Entry current = byUid.get(member.getKey());
+            boolean renamed = username != null && (current == null || !username.equals(current.username));
+            if (before == null || delta != 0 || renamed) adjust(member.getKey(), delta, username);
+        }
+        // Members the shard no longer lists.
+        for (Map.Entry<String, Long> gone : previous.entrySet()) adjust(gone.getKey(), -gone.getValue(), null);
+    }
+
+    // Forgets a shard that was deleted.
+    public void removeShard(int shard) {
+        applyShard(shard, 0, new HashMap<>(), new HashMap<>());
+        shardTotals.remove(shard);
+        shardMembers.remove(shard);
+    }
+
+    public long teamMillis() {
+        return teamMillis;
+    }
+
+    public int members() {
+        return byUid.size();
+    }
+
+    // The k members with the most hours, most first.
+    public List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, ranking.size()));
+        for (Entry entry : ranking) {
+            if (top.size() == k) break;
+            top.add(entry);
+        }
+        return top;
+    }
+
+    private void adjust(String uid, long delta, String username) {
+        Entry old = byUid.get(uid);
+        long millis = (old == null ? 0 : old.millis) + delta;
+        String name = username != null ? username : old != null ? old.username : uid;
+        if (old != null) ranking.remove(old);
+
+        // A member no shard lists any more drops off the board; one listed with zero hours stays on it.
+        boolean listed = false;
+        for (Map<String, Long> members : shardMembers.values()) {
+            if (members.containsKey(uid)) {
+                listed = true;
+                break;
+            }
+        }
+        if (!listed) {
+            byUid.remove(uid);
+            return;
+        }
+        Entry entry = new Entry(uid, name, millis);
+        byUid.put(uid, entry);
+        ranking.add(entry);
+    }
+}
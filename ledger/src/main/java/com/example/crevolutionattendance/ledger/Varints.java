@@ -0,0 +1,84 @@
+package com.example.crevolutionattendance.ledger;
+
+/*
+ * Zigzag varints shared by the ledger's binary formats (PackedShifts, SeasonArchive).
+ * Small values of either sign take one or two bytes; a long never takes more than ten.
+ */
+final class Varints {
+
+    // Upper bound on one encoded varint.
+    static final int MAX_BYTES = 10;
+
+    private Varints() {
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Writes value (already zigzagged if it can be negative) at pos and returns the position after it.
+    static int write(byte[] buf, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    // Bytes write() would use for value.
+    static int size(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    // Reads varints off a byte array; what names the format in error messages.
+    static final class Reader {
+        final byte[] bytes;
+        final String what;
+        int pos;
+
+        Reader(byte[] bytes, String what) {
+            this.bytes = bytes;
+            this.what = what;
+        }
+
+        int remaining() {
+            return bytes.length - pos;
+        }
+
+        // The format version byte, checked against the one the caller knows.
+        void version(int expected) {
+            if (bytes.length == 0) throw new IllegalArgumentException("Empty " + what);
+            int version = bytes[pos++];
+            if (version != expected) throw new IllegalArgumentException("Unknown " + what + " version " + version);
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= bytes.length) throw new IllegalArgumentException("Truncated " + what);
+                byte b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Varint too long in " + what);
+        }
+
+        long signed() {
+            return unzigzag(varint());
+        }
+
+        void end() {
+            if (pos != bytes.length) throw new IllegalArgumentException("Trailing bytes in " + what);
+        }
+    }
+}
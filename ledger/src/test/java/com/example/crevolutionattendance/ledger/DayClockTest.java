@@ -0,0 +1,152 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/*
+ * Every test drives the clock by hand (an AtomicLong), so nothing depends on when or where it runs.
+ */
+public class DayClockTest {
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+    private static final String[] ZONES = {
+            "America/New_York", "America/Los_Angeles", "Europe/London", "Australia/Lord_Howe",
+            "Pacific/Auckland", "Asia/Kolkata", "America/Santiago", "UTC"};
+
+    // Instant of a wall-clock time in zone, parsed the slow way for reference.
+    private static long at(TimeZone zone, String wallClock) throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.ROOT);
+        format.setTimeZone(zone);
+        return format.parse(wallClock).getTime();
+    }
+
+    @Test
+    public void todayRollsOverExactlyAtMidnight() throws Exception {
+        AtomicLong now = new AtomicLong(at(NEW_YORK, "2026-10-17 23:59"));
+        DayClock clock = new DayClock(NEW_YORK, now::get);
+        assertEquals("2026-10-17", clock.today());
+
+        long midnight = at(NEW_YORK, "2026-10-18 00:00");
+        now.set(midnight - 1);
+        assertEquals("2026-10-17", clock.today());
+        now.set(midnight);
+        assertEquals("2026-10-18", clock.today());
+        assertEquals(midnight, clock.todayStart());
+    }
+
+    @Test
+    public void todaysKeyIsReusedUntilTheDayChanges() throws Exception {
+        AtomicLong now = new AtomicLong(at(NEW_YORK, "2026-10-18 08:00"));
+        DayClock clock = new DayClock(NEW_YORK, now::get);
+        String key = clock.today();
+        now.addAndGet(10 * HOUR);
+        assertSame(key, clock.today());
+        // Yesterday's lookup (the stale-shift sweep) doesn't push today out of the cache.
+        clock.dateKey(clock.todayStart() - 1);
+        assertSame(key, clock.today());
+    }
+
+    @Test
+    public void dstDaysAreTwentyThreeAndTwentyFiveHoursLong() throws Exception {
+        AtomicLong now = new AtomicLong(at(NEW_YORK, "2026-03-08 12:00"));
+        DayClock clock = new DayClock(NEW_YORK, now::get);
+        assertEquals(23 * HOUR, clock.nextDayStart(clock.todayStart()) - clock.todayStart());
+
+        now.set(at(NEW_YORK, "2026-11-01 12:00"));
+        assertEquals("2026-11-01", clock.today());
+        assertEquals(25 * HOUR, clock.nextDayStart(clock.todayStart()) - clock.todayStart());
+
+        // An hour before the next midnight is still the long day.
+        assertEquals("2026-11-01", clock.dateKey(clock.nextDayStart(clock.todayStart()) - HOUR));
+    }
+
+    @Test
+    public void keysStayAsciiWhateverTheDeviceLocale() throws Exception {
+        Locale saved = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("ar-EG"));
+            DayClock clock = new DayClock(NEW_YORK, () -> 0);
+            String key = clock.dateKey(at(NEW_YORK, "2026-03-08 09:30"));
+            assertEquals("2026-03-08", key);
+            for (char c : key.toCharArray()) assertTrue(c < 128);
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void teamZoneWinsOverTheDeviceZone() throws Exception {
+        TimeZone saved = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            long lateEvening = at(NEW_YORK, "2026-10-17 22:00");
+            DayClock clock = new DayClock(NEW_YORK, () -> lateEvening);
+            assertEquals("2026-10-17", clock.today());
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+
+    @Test
+    public void matchesCalendarDaysAndSimpleDateFormatEverywhere() {
+        Random random = new Random(21);
+        for (String id : ZONES) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            CalendarDays reference = new CalendarDays(zone);
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+            format.setTimeZone(zone);
+            DayClock clock = new DayClock(zone, () -> 0);
+
+            // Walk forward through two years in random steps, so most lookups hit the cache and some cross days.
+            long when = 1_750_000_000_000L;
+            for (int i = 0; i < 20_000; i++) {
+                when += (long) (random.nextDouble() * 8 * HOUR);
+                String message = id + " @ " + when;
+                assertEquals(message, reference.startOfDay(when), clock.startOfDay(when));
+                assertEquals(message, reference.nextDayStart(reference.startOfDay(when)),
+                        clock.nextDayStart(clock.startOfDay(when)));
+                assertEquals(message, format.format(new Date(when)), clock.dateKey(when));
+                assertEquals(message, clock.startOfDay(when), clock.startOfKey(clock.dateKey(when)));
+            }
+        }
+    }
+
+    @Test
+    public void weekStartIsMondayAcrossDst() throws Exception {
+        DayClock clock = new DayClock(NEW_YORK, () -> 0);
+        // The week of the spring-forward Sunday, and of the fall-back Sunday.
+        assertEquals(at(NEW_YORK, "2026-03-02 00:00"), clock.weekStart(at(NEW_YORK, "2026-03-08 23:00")));
+        assertEquals(at(NEW_YORK, "2026-03-09 00:00"), clock.weekStart(at(NEW_YORK, "2026-03-09 00:00")));
+        assertEquals(at(NEW_YORK, "2026-10-26 00:00"), clock.weekStart(at(NEW_YORK, "2026-11-01 23:59")));
+        assertEquals("2026-10-12", clock.dateKey(clock.weekStart(at(NEW_YORK, "2026-10-18 12:00"))));
+    }
+
+    @Test
+    public void yearAndMonthComeFromTheTeamDay() throws Exception {
+        DayClock clock = new DayClock(NEW_YORK, () -> 0);
+        long newYearsEve = at(NEW_YORK, "2026-12-31 23:30");
+        assertEquals(2026, clock.year(newYearsEve));
+        assertEquals(12, clock.month(newYearsEve));
+    }
+
+    @Test
+    public void startOfKeyRejectsAnythingButYyyyMmDd() {
+        DayClock clock = new DayClock(NEW_YORK, () -> 0);
+        for (String bad : new String[]{"", "2026-1-08", "2026/03/08", "2026-13-01", "2026-03-08x", "\u0662\u0660\u0662\u0666-\u0660\u0663-\u0660\u0668"}) {
+            try {
+                clock.startOfKey(bad);
+                fail("accepted " + bad);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MeetingAttendanceTest {
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    @Test
+    public void treeMatchesBruteForce() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> all = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(2_000);
+            tree.add(start, end, i);
+            all.add(new long[]{start, end, i});
+        }
+
+        for (int q = 0; q < 500; q++) {
+            long from = random.nextInt(102_000);
+            long to = from + 1 + random.nextInt(3_000);
+
+            List<Long> expected = new ArrayList<>();
+            for (long[] interval : all) {
+                if (interval[0] < to && interval[1] > from) expected.add(interval[2]);
+            }
+            List<Long> actual = new ArrayList<>();
+            tree.forEachOverlap(from, to, (member, start, end) -> actual.add((long) member));
+
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+            assertEquals(!expected.isEmpty(), tree.anyOverlap(from, to));
+        }
+        assertEquals(2000, tree.size());
+    }
+
+    @Test
+    public void attendanceUsesPresentFraction() {
+        MeetingAttendance attendance = new MeetingAttendance();
+        Meeting tuesday = new Meeting("tue", "Build session", 18 * HOUR, 21 * HOUR);
+
+        attendance.addShift("ada", 17 * HOUR, 22 * HOUR);                 // whole meeting
+        attendance.addShift("bob", 18 * HOUR, 19 * HOUR);                 // one hour, then
+        attendance.addShift("bob", 19 * HOUR + HOUR / 2, 21 * HOUR);      // back for the last 1.5 hours
+        attendance.addShift("cy", 20 * HOUR, 23 * HOUR);                  // last hour only
+        attendance.addShift("dee", 9 * HOUR, 12 * HOUR);                  // morning, not there
+
+        Map<String, Double> fractions = attendance.fractions(tuesday);
+        assertEquals(1.0, fractions.get("ada"), 1e-9);
+        assertEquals(2.5 / 3, fractions.get("bob"), 1e-9);
+        assertEquals(1.0 / 3, fractions.get("cy"), 1e-9);
+        assertFalse(fractions.containsKey("dee"));
+
+        List<String> present = attendance.attendees(tuesday, MeetingAttendance.DEFAULT_PRESENT_FRACTION);
+        Collections.sort(present);
+        assertEquals(Arrays.asList("ada", "bob"), present);
+    }
+
+    @Test
+    public void seasonPercentagesCountAttendedMeetings() {
+        MeetingAttendance attendance = new MeetingAttendance();
+        List<Meeting> meetings = Arrays.asList(
+                new Meeting("1", "a", 0, 2 * HOUR),
+                new Meeting("2", "b", 10 * HOUR, 12 * HOUR),
+                new Meeting("3", "c", 20 * HOUR, 22 * HOUR),
+                new Meeting("4", "d", 30 * HOUR, 32 * HOUR));
+
+        attendance.addShift("ada", 0, 40 * HOUR);
+        attendance.addShift("bob", 10 * HOUR, 12 * HOUR);
+        // Shift closed later (e.g. a clock-out applied after the first queries) is picked up immediately.
+        Map<String, Double> before = attendance.attendancePercentages(meetings, 0.75);
+        attendance.addShift("bob", 29 * HOUR, 31 * HOUR + HOUR / 2);
+
+        Map<String, Double> after = attendance.attendancePercentages(meetings, 0.75);
+        assertEquals(100.0, after.get("ada"), 1e-9);
+        assertEquals(25.0, before.get("bob"), 1e-9);
+        assertEquals(50.0, after.get("bob"), 1e-9);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PackedShiftsTest {
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final long MIDNIGHT = 1_760_000_000_000L;
+
+    @Test
+    public void roundTripsIntoPrimitiveArrays() {
+        long[] ins = {MIDNIGHT + 15 * HOUR + 123, MIDNIGHT + 19 * HOUR, MIDNIGHT + 22 * HOUR};
+        long[] outs = {MIDNIGHT + 18 * HOUR + 4567, MIDNIGHT + 19 * HOUR, MIDNIGHT + 24 * HOUR - 1};
+        byte[] packed = PackedShifts.encode(MIDNIGHT, ins, outs, 3);
+
+        assertEquals(3, PackedShifts.count(packed));
+        long[] decodedIns = new long[3];
+        long[] decodedOuts = new long[3];
+        assertEquals(3, PackedShifts.decode(packed, MIDNIGHT, decodedIns, decodedOuts));
+        assertArrayEquals(ins, decodedIns);
+        assertArrayEquals(outs, decodedOuts);
+    }
+
+    @Test
+    public void typicalShiftTakesAboutEightBytes() {
+        long[] ins = {MIDNIGHT + 15 * HOUR + 12_345, MIDNIGHT + 19 * HOUR + 54_321};
+        long[] outs = {MIDNIGHT + 18 * HOUR + 999, MIDNIGHT + 21 * HOUR + 1};
+        byte[] packed = PackedShifts.encode(MIDNIGHT, ins, outs, 2);
+        assertTrue("packed " + packed.length + " bytes", packed.length <= 2 + 2 * 8);
+    }
+
+    @Test
+    public void keepsOutOfOrderAndBackwardsShifts() {
+        // Never written by the app, but a decode must give back exactly what was stored.
+        long[] ins = {MIDNIGHT + 20 * HOUR, MIDNIGHT + HOUR, MIDNIGHT - HOUR};
+        long[] outs = {MIDNIGHT + 19 * HOUR, MIDNIGHT + 2 * HOUR, MIDNIGHT + 25 * HOUR};
+        long[] decodedIns = new long[3];
+        long[] decodedOuts = new long[3];
+        PackedShifts.decode(PackedShifts.encode(MIDNIGHT, ins, outs, 3), MIDNIGHT, decodedIns, decodedOuts);
+        assertArrayEquals(ins, decodedIns);
+        assertArrayEquals(outs, decodedOuts);
+        assertEquals(ShiftLedger.closedMillis(ins, outs, 3), ShiftLedger.closedMillis(decodedIns, decodedOuts, 3));
+    }
+
+    @Test
+    public void appendMatchesEncodingEverything() {
+        Random random = new Random(18);
+        long[] ins = new long[20];
+        long[] outs = new long[20];
+        byte[] packed = null;
+        long at = MIDNIGHT;
+        for (int i = 0; i < ins.length; i++) {
+            ins[i] = at + random.nextInt(3_600_000);
+            outs[i] = ins[i] + random.nextInt(3_600_000);
+            at = outs[i];
+            packed = PackedShifts.append(packed, MIDNIGHT, ins[i], outs[i]);
+        }
+        assertArrayEquals(PackedShifts.encode(MIDNIGHT, ins, outs, ins.length), packed);
+    }
+
+    @Test
+    public void emptyDayIsTwoBytes() {
+        byte[] packed = PackedShifts.encode(MIDNIGHT, new long[0], new long[0], 0);
+        assertEquals(2, packed.length);
+        assertEquals(0, PackedShifts.decode(packed, MIDNIGHT, new long[0], new long[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOpenShift() {
+        PackedShifts.encode(MIDNIGHT, new long[]{MIDNIGHT}, new long[]{ShiftLedger.OPEN}, 1);
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        byte[] good = PackedShifts.encode(MIDNIGHT, new long[]{MIDNIGHT + HOUR}, new long[]{MIDNIGHT + 2 * HOUR}, 1);
+        byte[] newer = good.clone();
+        newer[0] = PackedShifts.FORMAT_VERSION + 1;
+        byte[][] bad = {
+                new byte[0],
+                newer,
+                Arrays.copyOf(good, good.length - 1),
+                Arrays.copyOf(good, good.length + 1),
+                {PackedShifts.FORMAT_VERSION, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, 0x7F},
+        };
+        for (byte[] packed : bad) {
+            try {
+                PackedShifts.decode(packed, MIDNIGHT, new long[4], new long[4]);
+                fail("decoded " + Arrays.toString(packed));
+            } catch (IllegalArgumentException expected) {
+                // Readers fall back to the Shifts subcollection.
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/*
+ * Property tests: every check runs over many random punch histories (three tablets, duplicates,
+ * double taps, out-of-order delivery). A failure prints the seed so it can be replayed.
+ */
+public class PunchLogTest {
+    private static final long MINUTE = 60_000L;
+    private static final String[] DEVICES = {"north-door", "shop-door", "lab-door"};
+    private static final int RUNS = 500;
+
+    // A random afternoon of punches for one member, some taken twice at different doors.
+    private static List<PunchEvent> history(Random random) {
+        List<PunchEvent> events = new ArrayList<>();
+        long at = 1_760_000_000_000L;
+        int n = 1 + random.nextInt(20);
+        for (int i = 0; i < n; i++) {
+            at += random.nextInt(3) == 0 ? 0 : random.nextInt(120) * MINUTE;
+            PunchEvent.Type type = random.nextBoolean() ? PunchEvent.Type.IN : PunchEvent.Type.OUT;
+            events.add(new PunchEvent("p" + i, DEVICES[random.nextInt(DEVICES.length)], type, at));
+        }
+        return events;
+    }
+
+    // What each tablet has seen: a random subset, with some events delivered more than once.
+    private static PunchLog replica(List<PunchEvent> events, Random random) {
+        PunchLog log = new PunchLog();
+        for (PunchEvent event : events) {
+            int copies = random.nextInt(3);
+            for (int c = 0; c < copies; c++) log.add(event);
+        }
+        return log;
+    }
+
+    private static long[][] shifts(PunchLog log) {
+        long[] ins = new long[log.maxShifts()];
+        long[] outs = new long[log.maxShifts()];
+        int count = log.shifts(ins, outs);
+        return new long[][]{Arrays.copyOf(ins, count), Arrays.copyOf(outs, count)};
+    }
+
+    private static PunchLog merged(PunchLog... logs) {
+        PunchLog result = new PunchLog();
+        for (PunchLog log : logs) result.merge(log);
+        return result;
+    }
+
+    @Test
+    public void mergeIsCommutative() {
+        for (int seed = 0; seed < RUNS; seed++) {
+            Random random = new Random(seed);
+            List<PunchEvent> events = history(random);
+            PunchLog a = replica(events, random);
+            PunchLog b = replica(events, random);
+            assertEquals("seed " + seed, merged(a, b), merged(b, a));
+            assertArrayEquals("seed " + seed, shifts(merged(a, b)), shifts(merged(b, a)));
+        }
+    }
+
+    @Test
+    public void mergeIsAssociative() {
+        for (int seed = 0; seed < RUNS; seed++) {
+            Random random = new Random(seed);
+            List<PunchEvent> events = history(random);
+            PunchLog a = replica(events, random);
+            PunchLog b = replica(events, random);
+            PunchLog c = replica(events, random);
+            assertEquals("seed " + seed, merged(merged(a, b), c), merged(a, merged(b, c)));
+        }
+    }
+
+    @Test
+    public void mergeIsIdempotent() {
+        for (int seed = 0; seed < RUNS; seed++) {
+            Random random = new Random(seed);
+            PunchLog a = replica(history(random), random);
+            PunchLog copy = merged(a);
+            assertFalse("seed " + seed, copy.merge(a));
+            assertEquals("seed " + seed, a, merged(a, a, a));
+            assertArrayEquals("seed " + seed, shifts(a), shifts(merged(a, a)));
+        }
+    }
+
+    @Test
+    public void deliveryOrderDoesNotMatter() {
+        for (int seed = 0; seed < RUNS; seed++) {
+            Random random = new Random(seed);
+            List<PunchEvent> events = history(random);
+            List<PunchEvent> shuffled = new ArrayList<>(events);
+            shuffled.addAll(events.subList(0, random.nextInt(events.size())));
+            Collections.shuffle(shuffled, random);
+            assertArrayEquals("seed " + seed, shifts(new PunchLog(events)), shifts(new PunchLog(shuffled)));
+        }
+    }
+
+    @Test
+    public void shiftsAreOrderedAndOnlyTheLastCanBeOpen() {
+        for (int seed = 0; seed < RUNS; seed++) {
+            Random random = new Random(seed);
+            long[][] shifts = shifts(new PunchLog(history(random)));
+            long[] ins = shifts[0];
+            long[] outs = shifts[1];
+            for (int i = 0; i < ins.length; i++) {
+                boolean last = i == ins.length - 1;
+                if (outs[i] == ShiftLedger.OPEN) {
+                    assertTrue("seed " + seed + ": open shift " + i + " is not the last", last);
+                } else {
+                    assertTrue("seed " + seed, outs[i] >= ins[i]);
+                    if (!last) assertTrue("seed " + seed, ins[i + 1] >= outs[i]);
+                }
+            }
+        }
+    }
+
+    // The transactional path fed the same punches in time order: reject IN while in, OUT while out.
+    @Test
+    public void matchesTheTransactionalPathInTimeOrder() {
+        for (int seed = 0; seed < RUNS; seed++) {
+            Random random = new Random(seed);
+            PunchLog log = new PunchLog(history(random));
+            List<Long> ins = new ArrayList<>();
+            List<Long> outs = new ArrayList<>();
+            boolean open = false;
+            for (PunchEvent event : log.sorted()) {
+                if (event.type == PunchEvent.Type.IN && !open) {
+                    ins.add(event.millis);
+                    outs.add(ShiftLedger.OPEN);
+                    open = true;
+                } else if (event.type == PunchEvent.Type.OUT && open) {
+                    outs.set(outs.size() - 1, event.millis);
+                    open = false;
+                }
+            }
+            long[][] shifts = shifts(log);
+            assertEquals("seed " + seed, ins.size(), shifts[0].length);
+            for (int i = 0; i < ins.size(); i++) {
+                assertEquals("seed " + seed, (long) ins.get(i), shifts[0][i]);
+                assertEquals("seed " + seed, (long) outs.get(i), shifts[1][i]);
+            }
+            assertEquals("seed " + seed, log.size(), ins.size() + (outs.size() - countOpen(outs)) + log.ignored().size());
+        }
+    }
+
+    @Test
+    public void secondDoorInIsIgnoredEarliestWins() {
+        PunchLog north = new PunchLog(Arrays.asList(
+                new PunchEvent("a", "north-door", PunchEvent.Type.IN, 1000),
+                new PunchEvent("c", "north-door", PunchEvent.Type.OUT, 9000)));
+        PunchLog shop = new PunchLog(Collections.singletonList(
+                new PunchEvent("b", "shop-door", PunchEvent.Type.IN, 1500)));
+
+        long[][] shifts = shifts(merged(shop, north));
+        assertArrayEquals(new long[]{1000}, shifts[0]);
+        assertArrayEquals(new long[]{9000}, shifts[1]);
+        assertEquals(Collections.singletonList("b"), merged(north, shop).ignored());
+    }
+
+    @Test
+    public void conflictingCopiesOfOneIdResolveTheSameEverywhere() {
+        PunchEvent early = new PunchEvent("x", "north-door", PunchEvent.Type.IN, 1000);
+        PunchEvent late = new PunchEvent("x", "north-door", PunchEvent.Type.IN, 2000);
+        PunchLog a = new PunchLog(Collections.singletonList(late));
+        PunchLog b = new PunchLog(Collections.singletonList(early));
+        assertEquals(merged(a, b), merged(b, a));
+        assertEquals(Collections.singletonList(early), merged(a, b).sorted());
+    }
+
+    private static int countOpen(List<Long> outs) {
+        int open = 0;
+        for (long out : outs) if (out == ShiftLedger.OPEN) open++;
+        return open;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class SeasonArchiveTest {
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final DayClock DAYS = new DayClock(TimeZone.getTimeZone("America/Chicago"), () -> 0);
+
+    // A season of meetings: most weekdays, a shift or two each, some days with only a legacy total.
+    private static List<SeasonArchive.Day> season(Random random) {
+        List<SeasonArchive.Day> days = new ArrayList<>();
+        long midnight = DAYS.startOfKey("2025-08-01");
+        while (midnight < DAYS.startOfKey("2026-08-01")) {
+            if (random.nextInt(3) != 0) {
+                int shifts = 1 + random.nextInt(2);
+                long[] ins = new long[shifts];
+                long[] outs = new long[shifts];
+                long at = midnight + 15 * HOUR;
+                long total = 0;
+                for (int i = 0; i < shifts; i++) {
+                    ins[i] = at + random.nextInt(3_600_000);
+                    outs[i] = ins[i] + random.nextInt(4 * 3_600_000);
+                    total += outs[i] - ins[i];
+                    at = outs[i];
+                }
+                byte[] packed = random.nextInt(10) == 0 ? null : PackedShifts.encode(midnight, ins, outs, shifts);
+                days.add(new SeasonArchive.Day(DAYS.dateKey(midnight), total, packed));
+            }
+            midnight = DAYS.nextDayStart(midnight);
+        }
+        return days;
+    }
+
+    @Test
+    public void roundTripsAWholeSeason() {
+        List<SeasonArchive.Day> days = season(new Random(22));
+        byte[] archive = SeasonArchive.encode(days);
+        assertEquals(days, SeasonArchive.decode(archive));
+        // About 240 days with shifts: a few KB, far below a document's 1 MiB.
+        assertTrue("archive " + archive.length + " bytes", archive.length < 8 * 1024);
+    }
+
+    @Test
+    public void packedShiftsStillDecodeAgainstTheirDay() {
+        for (SeasonArchive.Day day : SeasonArchive.decode(SeasonArchive.encode(season(new Random(7))))) {
+            if (day.packedShifts == null) continue;
+            int count = PackedShifts.count(day.packedShifts);
+            long[] ins = new long[count];
+            long[] outs = new long[count];
+            PackedShifts.decode(day.packedShifts, DAYS.startOfKey(day.date), ins, outs);
+            assertEquals(day.date, day.totalMillis, ShiftLedger.closedMillis(ins, outs, count));
+            assertEquals(day.date, DAYS.dateKey(ins[0]));
+        }
+    }
+
+    @Test
+    public void chunksSplitUnderTheLimitAndDecodeOnTheirOwn() {
+        List<SeasonArchive.Day> days = season(new Random(3));
+        List<byte[]> chunks = SeasonArchive.encodeChunks(days, 512);
+        assertTrue(chunks.size() > 1);
+
+        List<SeasonArchive.Day> joined = new ArrayList<>();
+        for (byte[] chunk : chunks) {
+            assertTrue("chunk " + chunk.length + " bytes", chunk.length <= 512);
+            joined.addAll(SeasonArchive.decode(chunk));
+        }
+        assertEquals(days, joined);
+        assertEquals(1, SeasonArchive.encodeChunks(days, 1024 * 1024).size());
+    }
+
+    @Test
+    public void emptySeasonIsOneEmptyChunk() {
+        List<byte[]> chunks = SeasonArchive.encodeChunks(Collections.emptyList(), 1024);
+        assertEquals(1, chunks.size());
+        assertEquals(Collections.emptyList(), SeasonArchive.decode(chunks.get(0)));
+    }
+
+    @Test
+    public void datesSurviveYearAndLeapDayBoundaries() {
+        List<SeasonArchive.Day> days = Arrays.asList(
+                new SeasonArchive.Day("1999-12-31", 1, null),
+                new SeasonArchive.Day("2000-02-29", 2, null),
+                new SeasonArchive.Day("2000-03-01", 3, null),
+                new SeasonArchive.Day("2028-02-29", 4, null));
+        assertEquals(days, SeasonArchive.decode(SeasonArchive.encode(days)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDaysOutOfOrder() {
+        SeasonArchive.encode(Arrays.asList(
+                new SeasonArchive.Day("2025-09-02", 1, null),
+                new SeasonArchive.Day("2025-09-02", 2, null)));
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        byte[] good = SeasonArchive.encode(season(new Random(5)).subList(0, 3));
+        byte[] newer = good.clone();
+        newer[0] = SeasonArchive.FORMAT_VERSION + 1;
+        List<byte[]> bad = new ArrayList<>(Arrays.asList(
+                new byte[0],
+                newer,
+                Arrays.copyOf(good, good.length - 1),
+                Arrays.copyOf(good, good.length + 1),
+                new byte[]{SeasonArchive.FORMAT_VERSION, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, 0x7F}));
+        for (byte[] archive : bad) {
+            try {
+                SeasonArchive.decode(archive);
+                fail("decoded " + Arrays.toString(archive));
+            } catch (IllegalArgumentException expected) {
+                // Readers skip the archive and log it.
+            }
+        }
+
+        // Random corruption may decode to something, but must never fail any other way.
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            byte[] corrupt = good.clone();
+            corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt(256);
+            try {
+                SeasonArchive.decode(corrupt);
+            } catch (IllegalArgumentException expected) {
+                // fine
+            }
+        }
+    }
+}
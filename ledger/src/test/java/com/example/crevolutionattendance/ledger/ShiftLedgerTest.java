@@ -0,0 +1,95 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ShiftLedgerTest {
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private final DayCalendar days = new CalendarDays(ZONE);
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(ZONE);
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void closedMillisSkipsOpenAndClampsNegative() {
+        long[] ins = {0, 10 * HOUR, 20 * HOUR, 30 * HOUR};
+        long[] outs = {2 * HOUR, 9 * HOUR, ShiftLedger.OPEN, 31 * HOUR};
+        assertEquals(3 * HOUR, ShiftLedger.closedMillis(ins, outs, 4));
+        assertEquals(2 * HOUR, ShiftLedger.closedMillis(ins, outs, 1));
+    }
+
+    @Test
+    public void roundsToNearestTenth() {
+        assertEquals(1.5, ShiftLedger.roundedHours(HOUR + 29 * 60_000L), 0.0);
+        assertEquals(1.4, ShiftLedger.roundedHours(HOUR + 26 * 60_000L), 0.0);
+    }
+
+    @Test
+    public void lastOpenIndexFindsNewestOpenShift() {
+        long[] outs = {ShiftLedger.OPEN, 5, ShiftLedger.OPEN, 7};
+        assertEquals(2, ShiftLedger.lastOpenIndex(outs, 4));
+        assertEquals(0, ShiftLedger.lastOpenIndex(outs, 2));
+        assertEquals(-1, ShiftLedger.lastOpenIndex(new long[]{1, 2}, 2));
+    }
+
+    @Test
+    public void sameDayShiftIsOneSegment() {
+        long in = at(2026, 10, 14, 15, 0);
+        long out = at(2026, 10, 14, 19, 30);
+        long[] starts = new long[1];
+        long[] ends = new long[1];
+
+        assertEquals(1, ShiftLedger.dayCount(in, out, days));
+        assertEquals(1, ShiftLedger.split(in, out, days, starts, ends));
+        assertEquals(in, starts[0]);
+        assertEquals(out, ends[0]);
+    }
+
+    @Test
+    public void multiDayShiftSplitsAtEveryMidnight() {
+        long in = at(2026, 10, 14, 18, 0);
+        long out = at(2026, 10, 17, 2, 0);
+        int n = ShiftLedger.dayCount(in, out, days);
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+
+        assertEquals(4, n);
+        assertEquals(4, ShiftLedger.split(in, out, days, starts, ends));
+        assertEquals(in, starts[0]);
+        assertEquals(at(2026, 10, 15, 0, 0) - 1, ends[0]);
+        assertEquals(at(2026, 10, 15, 0, 0), starts[1]);
+        assertEquals(at(2026, 10, 16, 0, 0) - 1, ends[1]);
+        assertEquals(at(2026, 10, 17, 0, 0), starts[3]);
+        assertEquals(out, ends[3]);
+    }
+
+    @Test
+    public void fallBackDayIsTwentyFiveHours() {
+        // 2026-11-01 is the end of daylight saving time in New York.
+        long in = at(2026, 10, 31, 23, 0);
+        long out = at(2026, 11, 2, 1, 0);
+        long[] starts = new long[3];
+        long[] ends = new long[3];
+
+        assertEquals(3, ShiftLedger.split(in, out, days, starts, ends));
+        assertEquals(25 * HOUR - 1, ends[1] - starts[1]);
+    }
+
+    @Test
+    public void staleCloseIsCappedAtEndOfClockInDay() {
+        long in = at(2026, 3, 10, 18, 0);
+        assertEquals(in + 2 * HOUR, ShiftLedger.staleCloseMillis(in, 2 * HOUR, days));
+        assertEquals(at(2026, 3, 11, 0, 0) - 1, ShiftLedger.staleCloseMillis(in, 8 * HOUR, days));
+        assertEquals(in, ShiftLedger.staleCloseMillis(in, 0, days));
+    }
+}
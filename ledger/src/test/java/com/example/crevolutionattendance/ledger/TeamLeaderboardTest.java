@@ -0,0 +1,115 @@
+package com.example.crevolutionattendance.ledger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TeamLeaderboardTest {
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final int SHARDS = 10;
+
+    private static Map<String, Long> members(Object... uidMillis) {
+        Map<String, Long> members = new HashMap<>();
+        for (int i = 0; i < uidMillis.length; i += 2) members.put((String) uidMillis[i], (Long) uidMillis[i + 1]);
+        return members;
+    }
+
+    private static List<String> uids(List<TeamLeaderboard.Entry> entries) {
+        List<String> uids = new ArrayList<>();
+        for (TeamLeaderboard.Entry entry : entries) uids.add(entry.uid);
+        return uids;
+    }
+
+    @Test
+    public void ranksAcrossShardsAndSumsTheTeam() {
+        TeamLeaderboard board = new TeamLeaderboard();
+        board.applyShard(0, 5 * HOUR, members("ann", 2 * HOUR, "bo", 3 * HOUR), Collections.singletonMap("ann", "Ann"));
+        board.applyShard(1, 4 * HOUR, members("cy", 4 * HOUR), new HashMap<>());
+
+        assertEquals(9 * HOUR, board.teamMillis());
+        assertEquals(3, board.members());
+        assertEquals(Arrays.asList("cy", "bo", "ann"), uids(board.top(10)));
+        assertEquals(Arrays.asList("cy", "bo"), uids(board.top(2)));
+        assertEquals("Ann", board.top(3).get(2).username);
+        // No name seen yet: the uid stands in.
+        assertEquals("cy", board.top(1).get(0).username);
+    }
+
+    @Test
+    public void aShardUpdateOnlyMovesItsOwnMembers() {
+        TeamLeaderboard board = new TeamLeaderboard();
+        board.applyShard(0, 3 * HOUR, members("ann", HOUR, "bo", 2 * HOUR), new HashMap<>());
+        board.applyShard(1, 4 * HOUR, members("cy", 4 * HOUR), new HashMap<>());
+        TeamLeaderboard.Entry cy = board.top(1).get(0);
+
+        // ann clocks out three more hours; shard 1 is untouched and keeps its entry object.
+        board.applyShard(0, 6 * HOUR, members("ann", 4 * HOUR, "bo", 2 * HOUR), new HashMap<>());
+        assertEquals(Arrays.asList("ann", "cy", "bo"), uids(board.top(3)));
+        assertSame(cy, board.top(2).get(1));
+        assertEquals(10 * HOUR, board.teamMillis());
+    }
+
+    @Test
+    public void tiesRankByUidAndRemovedShardsDropOut() {
+        TeamLeaderboard board = new TeamLeaderboard();
+        board.applyShard(3, 2 * HOUR, members("zed", HOUR, "amy", HOUR), new HashMap<>());
+        board.applyShard(4, 0, members("new", 0L), new HashMap<>());
+        assertEquals(Arrays.asList("amy", "zed", "new"), uids(board.top(5)));
+
+        board.removeShard(3);
+        assertEquals(Arrays.asList("new"), uids(board.top(5)));
+        assertEquals(0, board.teamMillis());
+
+        // A member dropped from a shard's map leaves the board too.
+        board.applyShard(4, 0, members(), new HashMap<>());
+        assertEquals(0, board.members());
+    }
+
+    @Test
+    public void matchesARecountAfterRandomShardUpdates() {
+        Random random = new Random(24);
+        TeamLeaderboard board = new TeamLeaderboard();
+        Map<Integer, Map<String, Long>> shards = new HashMap<>();
+        Map<Integer, Long> totals = new HashMap<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            // A clock-out: one member's hours go up in their shard, as the app writes them.
+            String uid = "member" + random.nextInt(80);
+            int shard = TeamLeaderboard.shardOf(uid, SHARDS);
+            long millis = random.nextInt((int) (4 * HOUR));
+            shards.computeIfAbsent(shard, k -> new HashMap<>()).merge(uid, millis, Long::sum);
+            totals.merge(shard, millis, Long::sum);
+            board.applyShard(shard, totals.get(shard), shards.get(shard), new HashMap<>());
+        }
+
+        long team = 0;
+        List<TeamLeaderboard.Entry> recount = new ArrayList<>();
+        for (Map<String, Long> members : shards.values()) {
+            for (Map.Entry<String, Long> member : members.entrySet()) {
+                team += member.getValue();
+                recount.add(new TeamLeaderboard.Entry(member.getKey(), member.getKey(), member.getValue()));
+            }
+        }
+        recount.sort((a, b) -> a.millis != b.millis ? Long.compare(b.millis, a.millis) : a.uid.compareTo(b.uid));
+
+        assertEquals(team, board.teamMillis());
+        assertEquals(uids(recount.subList(0, 10)), uids(board.top(10)));
+        for (int i = 0; i < 10; i++) assertEquals(recount.get(i).millis, board.top(10).get(i).millis);
+    }
+
+    @Test
+    public void shardOfIsStableAndInRange() {
+        assertEquals(TeamLeaderboard.shardOf("uid-1", SHARDS), TeamLeaderboard.shardOf("uid-1", SHARDS));
+        int[] counts = new int[SHARDS];
+        for (int i = 0; i < 1_000; i++) counts[TeamLeaderboard.shardOf("member" + i, SHARDS)]++;
+        for (int count : counts) assertTrue("shard count " + count, count > 50);
+    }
+}
@@ -0,0 +1,20 @@
+plugins {
+    application
+}
+
+// Offline integrity scanner and team analytics over a full LoggedHours export.
+// Desktop JVM only; reads the same shift math and blob formats as the app through :ledger.
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":ledger"))
+    testImplementation(libs.junit)
+}
+
+// Run with: ./gradlew :scanner:run --args="export.ndjson --zone America/New_York --out scan"
+application {
+    mainClass.set("com.example.crevolutionattendance.scanner.Scanner")
+}
@@ -0,0 +1,209 @@
+package com.example.crevolutionattendance.scanner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * A newline-delimited JSON export, memory-mapped read-only so the file itself is never copied onto the heap.
+ *
+ * The file is mapped in segments of at most maxSegmentBytes (a single mapping can't exceed 2 GiB),
+ * each ending on a line break. A line is then addressed by one packed long:
+ *      segment (8 bits) | offset in segment (30 bits) | length (26 bits)
+ * and index() groups those line refs by member, which is all the heap the export ever costs
+ * (eight bytes a document). Lines are only parsed later, one member at a time.
+ */
+final class ExportFile implements Closeable {
+    static final int MAX_SEGMENT_BYTES = 1 << 30;
+    static final int MAX_LINE_BYTES = (1 << 26) - 1;
+
+    private final FileChannel channel;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final List<Long> segmentStarts = new ArrayList<>();
+
+    private ExportFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static ExportFile open(Path path, int maxSegmentBytes) throws IOException {
+        if (maxSegmentBytes < 1 || maxSegmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Bad segment size " + maxSegmentBytes);
+        }
+        ExportFile file = new ExportFile(FileChannel.open(path, StandardOpenOption.READ));
+        try {
+            long size = file.channel.size();
+            long start = 0;
+            while (start < size) {
+                long length = Math.min(size - start, maxSegmentBytes);
+                MappedByteBuffer mapped = file.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                int usable = (int) length;
+                if (start + length < size) {
+                    // Cut after the last complete line; the next segment starts with the line that was cut.
+                    usable = lastNewline(mapped, (int) length) + 1;
+                    if (usable == 0) throw new IOException("Line at byte " + start + " is longer than a segment");
+                }
+                if (file.segments.size() == 256) throw new IOException("Export too large for 256 segments");
+                ByteBuffer segment = mapped.duplicate();
+                segment.limit(usable);
+                file.segments.add(segment.slice());
+                file.segmentStarts.add(start);
+                start += usable;
+            }
+            return file;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // The bytes of a line ref; read with absolute gets in [offset(ref), offset(ref) + length(ref)).
+    ByteBuffer segment(long ref) {
+        return segments.get((int) (ref >>> 56));
+    }
+
+    // Where a line ref starts in the file, for error messages.
+    long fileOffset(long ref) {
+        return segmentStarts.get((int) (ref >>> 56)) + offset(ref);
+    }
+
+    static int offset(long ref) {
+        return (int) (ref >>> 26) & ((1 << 30) - 1);
+    }
+
+    static int length(long ref) {
+        return (int) ref & MAX_LINE_BYTES;
+    }
+
+    private static long ref(int segment, int offset, int length) {
+        return (long) segment << 56 | (long) offset << 26 | length;
+    }
+
+    /*
+     * Finds every LoggedHours/{uid}/... document and groups its line ref by uid. Other collections
+     * (Punches, Rollups, Presence, ...) are skipped. Each segment is cut into slices of about sliceBytes
+     * on line boundaries and the slices are indexed in parallel on pool; only each line's "path" is read.
+     */
+    Map<String, LongList> index(ForkJoinPool pool, int sliceBytes) {
+        List<IndexTask> tasks = new ArrayList<>();
+        for (int s = 0; s < segments.size(); s++) {
+            tasks.add(new IndexTask(s, 0, segments.get(s).limit(), sliceBytes));
+        }
+        return pool.invoke(new RecursiveTask<Map<String, LongList>>() {
+            @Override
+            protected Map<String, LongList> compute() {
+                invokeAll(tasks);
+                Map<String, LongList> merged = new HashMap<>();
+                for (IndexTask task : tasks) merge(merged, task.join());
+                return merged;
+            }
+        });
+    }
+
+    private final class IndexTask extends RecursiveTask<Map<String, LongList>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int segment;
+        private final int from;
+        private final int to;
+        private final int sliceBytes;
+
+        IndexTask(int segment, int from, int to, int sliceBytes) {
+            this.segment = segment;
+            this.from = from;
+            this.to = to;
+            this.sliceBytes = sliceBytes;
+        }
+
+        @Override
+        protected Map<String, LongList> compute() {
+            ByteBuffer buf = segments.get(segment);
+            if (to - from > sliceBytes) {
+                // Split at the first line break after the middle.
+                int middle = from + (to - from) / 2;
+                while (middle < to && buf.get(middle - 1) != '\n') middle++;
+                if (middle < to) {
+                    IndexTask right = new IndexTask(segment, middle, to, sliceBytes);
+                    right.fork();
+                    Map<String, LongList> left = new IndexTask(segment, from, middle, sliceBytes).compute();
+                    return merge(left, right.join());
+                }
+            }
+
+            Map<String, LongList> byMember = new HashMap<>();
+            int lineStart = from;
+            for (int i = from; i < to; i++) {
+                if (buf.get(i) != '\n') continue;
+                add(byMember, buf, lineStart, i);
+                lineStart = i + 1;
+            }
+            if (lineStart < to) add(byMember, buf, lineStart, to);
+            return byMember;
+        }
+
+        private void add(Map<String, LongList> byMember, ByteBuffer buf, int from, int to) {
+            while (from < to && isSpace(buf.get(from))) from++;
+            while (to > from && isSpace(buf.get(to - 1))) to--;
+            if (from == to) return;
+            if (to - from > MAX_LINE_BYTES) {
+                throw new IllegalArgumentException("Line at byte " + (segmentStarts.get(segment) + from) + " is longer than "
+                        + MAX_LINE_BYTES + " bytes");
+            }
+            String uid;
+            try {
+                uid = memberOf(Json.topLevelString(buf, from, to, "path"));
+            } catch (IllegalArgumentException e) {
+                // Without a path the line can't be attributed to anyone, so the export itself is broken.
+                throw new IllegalArgumentException("Line at byte " + (segmentStarts.get(segment) + from) + ": " + e.getMessage());
+            }
+            if (uid == null) return;
+            byMember.computeIfAbsent(uid, k -> new LongList()).add(ref(segment, from, to - from));
+        }
+    }
+
+    // The uid of a LoggedHours/{uid} or LoggedHours/{uid}/... path, else null.
+    static String memberOf(String path) {
+        if (path == null || !path.startsWith("LoggedHours/")) return null;
+        int slash = path.indexOf('/', "LoggedHours/".length());
+        String uid = path.substring("LoggedHours/".length(), slash < 0 ? path.length() : slash);
+        return uid.isEmpty() ? null : uid;
+    }
+
+    private static Map<String, LongList> merge(Map<String, LongList> into, Map<String, LongList> from) {
+        for (Map.Entry<String, LongList> entry : from.entrySet()) {
+            LongList refs = into.get(entry.getKey());
+            if (refs == null) {
+                into.put(entry.getKey(), entry.getValue());
+            } else {
+                refs.addAll(entry.getValue());
+            }
+        }
+        return into;
+    }
+
+    private static int lastNewline(ByteBuffer buf, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buf.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mappings stay valid until they are garbage collected; closing the channel just releases the handle.
+        channel.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.crevolutionattendance.scanner;
+
+// One integrity problem in one member's data. date is the YYYY-MM-DD day it was found on, or null.
+final class Finding implements Comparable<Finding> {
+
+    enum Kind {
+        // Two closed shifts of one member overlap in time.
+        OVERLAP,
+        // A shift clocked out before it clocked in; the app counts it as zero.
+        NEGATIVE_SHIFT,
+        // A shift has been open longer than the allowed limit (the stale-shift sweep should have closed it).
+        OPEN_TOO_LONG,
+        // An open shift the member's openShift pointer doesn't point at, so no clock-out will ever close it.
+        STRAY_OPEN_SHIFT,
+        // The openShift pointer names a shift that doesn't exist or is already closed.
+        DANGLING_POINTER,
+        // A day's stored totalMillis differs from what its shifts add up to.
+        TOTAL_DRIFT,
+        // A day's totalShiftTime is not its total rounded to the nearest tenth of an hour.
+        ROUNDED_DRIFT,
+        // A day's packedShifts blob doesn't hold the same closed shifts as its Shifts docs.
+        PACKED_MISMATCH,
+        // A shift starts or ends outside the day it is filed under.
+        OUTSIDE_DAY,
+        // Shifts docs under a day that has no day doc (readers never see them).
+        MISSING_DAY,
+        // A line, blob or key that can't be read.
+        UNREADABLE
+    }
+
+    final Kind kind;
+    final String uid;
+    final String date;
+    final String detail;
+
+    Finding(Kind kind, String uid, String date, String detail) {
+        this.kind = kind;
+        this.uid = uid;
+        this.date = date;
+        this.detail = detail;
+    }
+
+    // By member, then day, then kind, so a report reads the same however the work was split.
+    @Override
+    public int compareTo(Finding o) {
+        int c = uid.compareTo(o.uid);
+        if (c != 0) return c;
+        c = String.valueOf(date).compareTo(String.valueOf(o.date));
+        if (c != 0) return c;
+        c = kind.compareTo(o.kind);
+        return c != 0 ? c : detail.compareTo(o.detail);
+    }
+
+    @Override
+    public String toString() {
+        return uid + " " + (date == null ? "-" : date) + " " + kind + ": " + detail;
+    }
+}
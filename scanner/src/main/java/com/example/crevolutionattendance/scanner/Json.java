@@ -0,0 +1,270 @@
+package com.example.crevolutionattendance.scanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Just enough JSON to read an export line straight out of a mapped buffer, without copying the line first.
+ *
+ * Values come back as Map (objects), List (arrays), String, Long (integers that fit), Double (other numbers),
+ * Boolean or null. Only absolute ByteBuffer reads are used, so many threads can read one shared buffer.
+ * Anything malformed throws IllegalArgumentException with the offset into the line.
+ */
+final class Json {
+    private final ByteBuffer buf;
+    private final int start;
+    private int pos;
+    private final int end;
+
+    private Json(ByteBuffer buf, int from, int to) {
+        this.buf = buf;
+        this.start = from;
+        this.pos = from;
+        this.end = to;
+    }
+
+    // Parses the object in buf[from, to).
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> object(ByteBuffer buf, int from, int to) {
+        Json json = new Json(buf, from, to);
+        json.skipSpace();
+        if (json.peek() != '{') throw json.error("expected an object");
+        Object value = json.value();
+        json.skipSpace();
+        if (json.pos != to) throw json.error("trailing data");
+        return (Map<String, Object>) value;
+    }
+
+    /*
+     * The string value of one top-level key of the object in buf[from, to), or null if it is missing
+     * or not a string. Every other value is skipped without being built, so this is cheap to run on
+     * every line of a large export.
+     */
+    static String topLevelString(ByteBuffer buf, int from, int to, String key) {
+        Json json = new Json(buf, from, to);
+        json.skipSpace();
+        json.expect('{');
+        json.skipSpace();
+        if (json.peek() == '}') return null;
+        while (true) {
+            json.skipSpace();
+            String name = json.string();
+            json.skipSpace();
+            json.expect(':');
+            json.skipSpace();
+            if (name.equals(key)) return json.peek() == '"' ? json.string() : null;
+            json.skip();
+            json.skipSpace();
+            if (json.next() == '}') return null;
+            json.pos--;
+            json.expect(',');
+        }
+    }
+
+    private Object value() {
+        switch (peek()) {
+            case '{': {
+                pos++;
+                Map<String, Object> object = new HashMap<>();
+                skipSpace();
+                if (peek() == '}') {
+                    pos++;
+                    return object;
+                }
+                while (true) {
+                    skipSpace();
+                    String name = string();
+                    skipSpace();
+                    expect(':');
+                    skipSpace();
+                    object.put(name, value());
+                    skipSpace();
+                    byte c = next();
+                    if (c == '}') return object;
+                    if (c != ',') throw error("expected , or }");
+                }
+            }
+            case '[': {
+                pos++;
+                List<Object> array = new ArrayList<>();
+                skipSpace();
+                if (peek() == ']') {
+                    pos++;
+                    return array;
+                }
+                while (true) {
+                    skipSpace();
+                    array.add(value());
+                    skipSpace();
+                    byte c = next();
+                    if (c == ']') return array;
+                    if (c != ',') throw error("expected , or ]");
+                }
+            }
+            case '"':
+                return string();
+            case 't':
+                literal("true");
+                return Boolean.TRUE;
+            case 'f':
+                literal("false");
+                return Boolean.FALSE;
+            case 'n':
+                literal("null");
+                return null;
+            default:
+                return number();
+        }
+    }
+
+    // Skips one value of any kind without building it.
+    private void skip() {
+        byte c = peek();
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (true) {
+                c = next();
+                if (c == '"') {
+                    pos--;
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) return;
+                }
+            }
+        } else if (c == '"') {
+            skipString();
+        } else {
+            value();
+        }
+    }
+
+    private void skipString() {
+        expect('"');
+        while (true) {
+            byte c = next();
+            if (c == '"') return;
+            if (c == '\\') next();
+        }
+    }
+
+    private String string() {
+        expect('"');
+        int first = pos;
+        boolean escaped = false;
+        while (true) {
+            byte c = next();
+            if (c == '"') break;
+            if (c == '\\') {
+                escaped = true;
+                next();
+            }
+        }
+        if (!escaped) return utf8(first, pos - 1);
+
+        // Slow path: decode escapes, passing raw UTF-8 runs through in one piece.
+        StringBuilder out = new StringBuilder(pos - first);
+        int i = first;
+        int run = first;
+        while (i < pos - 1) {
+            if (buf.get(i) != '\\') {
+                i++;
+                continue;
+            }
+            out.append(utf8(run, i));
+            byte e = buf.get(i + 1);
+            i += 2;
+            switch (e) {
+                case '"': out.append('"'); break;
+                case '\\': out.append('\\'); break;
+                case '/': out.append('/'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if (i + 4 > pos - 1) throw error("bad \\u escape");
+                    out.append((char) Integer.parseInt(utf8(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default:
+                    throw error("bad escape");
+            }
+            run = i;
+        }
+        out.append(utf8(run, pos - 1));
+        return out.toString();
+    }
+
+    private Object number() {
+        int first = pos;
+        boolean integral = true;
+        while (pos < end) {
+            byte c = buf.get(pos);
+            if (c >= '0' && c <= '9' || c == '-') {
+                pos++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+') {
+                integral = false;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (pos == first) throw error("unexpected character");
+        String text = utf8(first, pos);
+        try {
+            if (integral && pos - first <= 18) return Long.parseLong(text);
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("bad number " + text);
+        }
+    }
+
+    private void literal(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (next() != word.charAt(i)) throw error("expected " + word);
+        }
+    }
+
+    private String utf8(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buf.get(from + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void skipSpace() {
+        while (pos < end) {
+            byte c = buf.get(pos);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') return;
+            pos++;
+        }
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            pos--;
+            throw error("expected " + c);
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) throw error("unexpected end of line");
+        return buf.get(pos);
+    }
+
+    private byte next() {
+        byte c = peek();
+        pos++;
+        return c;
+    }
+
+    private IllegalArgumentException error(String what) {
+        return new IllegalArgumentException("Bad JSON at byte " + (pos - start) + " of the line: " + what);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.crevolutionattendance.scanner;
+
+import java.util.Arrays;
+
+// A growable list of primitive longs (line refs, member-week millis), so large indexes don't box.
+final class LongList {
+    long[] values = new long[4];
+    int size;
+
+    void add(long value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    void addAll(LongList other) {
+        if (size + other.size > values.length) values = Arrays.copyOf(values, Math.max(size * 2, size + other.size));
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    long[] sorted() {
+        long[] copy = Arrays.copyOf(values, size);
+        Arrays.sort(copy);
+        return copy;
+    }
+}
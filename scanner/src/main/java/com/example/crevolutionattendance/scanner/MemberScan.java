@@ -0,0 +1,430 @@
+package com.example.crevolutionattendance.scanner;
+
+import com.example.crevolutionattendance.ledger.DayClock;
+import com.example.crevolutionattendance.ledger.PackedShifts;
+import com.example.crevolutionattendance.ledger.SeasonArchive;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Checks one member's documents and adds their days to the team analytics.
+ *
+ * A member's export lines are parsed together (profile, Days, Shifts and Archives arrive in any order),
+ * then each day is checked the way the app reads it:
+ * - shifts come from the Shifts docs, else a schema 1 shifts array, else the packedShifts blob
+ * - the stored totalMillis must equal ShiftLedger.closedMillis of those shifts (within driftMillis)
+ * - totalShiftTime must be that total rounded to a tenth of an hour
+ * - a packedShifts blob must hold exactly the closed Shifts docs
+ * - every piece of a split shift stays inside its own day
+ * Archived days (SeasonArchive chunks) count only where no live doc has the same date, as in the app.
+ * Finally all the member's closed shifts are sorted once to find overlaps, and the openShift pointer is
+ * matched against the open Shifts docs.
+ *
+ * One instance per fork/join leaf: it reuses its buffers across members and has its own DayClock cache.
+ */
+final class MemberScan {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+
+    // August, as FirebaseHelper.SEASON_START_MONTH.
+    private static final int SEASON_START_MONTH = 8;
+
+    // totalShiftTime is a tenth-of-an-hour rounding; allow for the double it was stored as.
+    private static final double ROUNDING_SLACK = 1e-6;
+
+    // One day as exported: its doc's fields (if the doc exists) and the Shifts docs filed under it.
+    private static final class Day {
+        boolean hasDoc;
+        Long totalMillis;
+        Double totalShiftTime;
+        byte[] packed;
+        List<Map<String, Object>> legacy;
+        final LongList shiftIns = new LongList();
+        final LongList shiftOuts = new LongList();
+        final List<String> shiftIds = new ArrayList<>();
+    }
+
+    private final Scanner.Options options;
+    private final DayClock days;
+    private final DateTimeFormatter time;
+    private final ScanResult result;
+
+    // Per member, reset by scan().
+    private String uid;
+    private final TreeMap<String, Day> live = new TreeMap<>();
+    private final TreeMap<String, SeasonArchive.Day> archived = new TreeMap<>();
+    private Map<String, Object> openShift;
+    private final LongList closedIns = new LongList();
+    private final LongList closedOuts = new LongList();
+    private final TreeMap<String, Long> memberWeeks = new TreeMap<>();
+    private final TreeMap<Integer, long[]> memberSeasons = new TreeMap<>();
+
+    private long[] ins = new long[16];
+    private long[] outs = new long[16];
+
+    MemberScan(Scanner.Options options, ScanResult result) {
+        this.options = options;
+        this.days = new DayClock(options.zone, () -> options.asOfMillis);
+        this.time = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm", Locale.ROOT).withZone(options.zone.toZoneId());
+        this.result = result;
+    }
+
+    void scan(String uid, LongList refs, ExportFile file) {
+        this.uid = uid;
+        live.clear();
+        archived.clear();
+        openShift = null;
+        closedIns.size = 0;
+        closedOuts.size = 0;
+        memberWeeks.clear();
+        memberSeasons.clear();
+
+        for (int i = 0; i < refs.size; i++) read(file, refs.values[i]);
+        for (Map.Entry<String, Day> day : live.entrySet()) checkLiveDay(day.getKey(), day.getValue());
+        for (SeasonArchive.Day day : archived.values()) {
+            if (!live.containsKey(day.date)) checkArchivedDay(day);
+        }
+        checkOverlaps();
+        checkOpenShifts();
+
+        result.members++;
+        for (Map.Entry<String, Long> week : memberWeeks.entrySet()) result.addMemberWeek(week.getKey(), week.getValue());
+        for (Map.Entry<Integer, long[]> season : memberSeasons.entrySet()) {
+            result.addMemberSeason(season.getKey(), season.getValue()[0], season.getValue()[1]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void read(ExportFile file, long ref) {
+        Map<String, Object> line;
+        try {
+            line = Json.object(file.segment(ref), ExportFile.offset(ref), ExportFile.offset(ref) + ExportFile.length(ref));
+        } catch (IllegalArgumentException e) {
+            finding(Finding.Kind.UNREADABLE, null, "line at byte " + file.fileOffset(ref) + ": " + e.getMessage());
+            return;
+        }
+        String path = (String) line.get("path");
+        Object data = line.get("data");
+        Map<String, Object> fields = data instanceof Map ? (Map<String, Object>) data : new TreeMap<>();
+
+        // LoggedHours/{uid}[/Days/{date}[/Shifts/{id}] | /Archives/{id}]
+        String[] parts = path.split("/");
+        if (parts.length == 2) {
+            Object pointer = fields.get("openShift");
+            openShift = pointer instanceof Map ? (Map<String, Object>) pointer : null;
+        } else if (parts.length == 4 && parts[2].equals("Days")) {
+            readDay(day(parts[3]), fields);
+        } else if (parts.length == 6 && parts[2].equals("Days") && parts[4].equals("Shifts")) {
+            Day day = day(parts[3]);
+            Long in = asLong(fields.get("inMillis"));
+            Long out = asLong(fields.get("outMillis"));
+            if (in == null) {
+                finding(Finding.Kind.UNREADABLE, parts[3], "Shifts/" + parts[5] + " has no inMillis");
+                return;
+            }
+            day.shiftIns.add(in);
+            day.shiftOuts.add(out == null ? ShiftLedger.OPEN : out);
+            day.shiftIds.add(parts[5]);
+        } else if (parts.length == 4 && parts[2].equals("Archives")) {
+            readArchive(parts[3], fields);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readDay(Day day, Map<String, Object> fields) {
+        day.hasDoc = true;
+        day.totalMillis = asLong(fields.get("totalMillis"));
+        Object rounded = fields.get("totalShiftTime");
+        day.totalShiftTime = rounded instanceof Number ? ((Number) rounded).doubleValue() : null;
+        day.packed = blob(fields.get("packedShifts"));
+        Object legacy = fields.get("shifts");
+        day.legacy = legacy instanceof List ? (List<Map<String, Object>>) legacy : null;
+    }
+
+    private void readArchive(String id, Map<String, Object> fields) {
+        byte[] blob = blob(fields.get("archive"));
+        if (blob == null) return;
+        try {
+            for (SeasonArchive.Day day : SeasonArchive.decode(blob)) archived.put(day.date, day);
+        } catch (IllegalArgumentException e) {
+            finding(Finding.Kind.UNREADABLE, null, "Archives/" + id + ": " + e.getMessage());
+        }
+    }
+
+    private Day day(String date) {
+        return live.computeIfAbsent(date, k -> new Day());
+    }
+
+    private void checkLiveDay(String date, Day day) {
+        long dayStart;
+        try {
+            dayStart = days.startOfKey(date);
+        } catch (IllegalArgumentException e) {
+            finding(Finding.Kind.UNREADABLE, date, e.getMessage());
+            return;
+        }
+        result.liveDays++;
+        if (!day.hasDoc) {
+            finding(Finding.Kind.MISSING_DAY, date, day.shiftIds.size() + " Shifts docs but no day doc");
+        }
+
+        // The shifts the app would read, into ins/outs.
+        int count;
+        boolean hasShifts = true;
+        if (day.shiftIds.size() > 0) {
+            count = day.shiftIds.size();
+            ensure(count);
+            System.arraycopy(day.shiftIns.values, 0, ins, 0, count);
+            System.arraycopy(day.shiftOuts.values, 0, outs, 0, count);
+        } else if (day.legacy != null && !day.legacy.isEmpty()) {
+            count = day.legacy.size();
+            ensure(count);
+            legacyShifts(day.legacy, dayStart);
+        } else if (day.packed != null) {
+            count = decodePacked(date, day.packed, dayStart);
+            hasShifts = count >= 0;
+            count = Math.max(count, 0);
+        } else {
+            count = 0;
+            hasShifts = false;
+        }
+        checkShifts(date, dayStart, count);
+
+        long recomputed = ShiftLedger.closedMillis(ins, outs, count);
+        long total = day.totalMillis != null ? day.totalMillis : recomputed;
+        if (day.totalMillis != null && hasShifts && Math.abs(total - recomputed) > options.driftMillis) {
+            finding(Finding.Kind.TOTAL_DRIFT, date, "totalMillis " + total + " but shifts add up to " + recomputed
+                    + " (" + signedMinutes(total - recomputed) + ")");
+        }
+        if (day.totalShiftTime != null
+                && Math.abs(day.totalShiftTime - ShiftLedger.roundedHours(total)) > ROUNDING_SLACK) {
+            finding(Finding.Kind.ROUNDED_DRIFT, date, "totalShiftTime " + day.totalShiftTime + " but total rounds to "
+                    + ShiftLedger.roundedHours(total));
+        }
+        if (day.packed != null && day.shiftIds.size() > 0) comparePacked(date, day, dayStart);
+
+        addDay(date, dayStart, total);
+    }
+
+    private void checkArchivedDay(SeasonArchive.Day day) {
+        long dayStart;
+        try {
+            dayStart = days.startOfKey(day.date);
+        } catch (IllegalArgumentException e) {
+            finding(Finding.Kind.UNREADABLE, day.date, e.getMessage());
+            return;
+        }
+        result.archivedDays++;
+        if (day.packedShifts != null) {
+            int count = decodePacked(day.date, day.packedShifts, dayStart);
+            if (count >= 0) {
+                checkShifts(day.date, dayStart, count);
+                long recomputed = ShiftLedger.closedMillis(ins, outs, count);
+                if (Math.abs(day.totalMillis - recomputed) > options.driftMillis) {
+                    finding(Finding.Kind.TOTAL_DRIFT, day.date, "archived total " + day.totalMillis
+                            + " but archived shifts add up to " + recomputed
+                            + " (" + signedMinutes(day.totalMillis - recomputed) + ")");
+                }
+            }
+        }
+        addDay(day.date, dayStart, day.totalMillis);
+    }
+
+    // Per-shift checks on ins/outs[0, count) of one day; closed shifts are kept for the overlap check.
+    private void checkShifts(String date, long dayStart, int count) {
+        long dayEnd = days.nextDayStart(dayStart);
+        result.shifts += count;
+        for (int i = 0; i < count; i++) {
+            long in = ins[i];
+            long out = outs[i];
+            if (in < dayStart || in >= dayEnd) {
+                finding(Finding.Kind.OUTSIDE_DAY, date, "shift starts " + time.format(Instant.ofEpochMilli(in)));
+            }
+            if (out == ShiftLedger.OPEN) {
+                long openFor = options.asOfMillis - in;
+                if (openFor > options.maxOpenMillis) {
+                    finding(Finding.Kind.OPEN_TOO_LONG, date, "open since " + time.format(Instant.ofEpochMilli(in))
+                            + " (" + openFor / HOUR_MILLIS + " h)");
+                }
+                continue;
+            }
+            if (out < in) {
+                finding(Finding.Kind.NEGATIVE_SHIFT, date, "out " + time.format(Instant.ofEpochMilli(out))
+                        + " is " + minutes(in - out) + " before in; counted as 0");
+                continue;
+            }
+            if (out >= dayEnd) {
+                finding(Finding.Kind.OUTSIDE_DAY, date, "shift ends " + time.format(Instant.ofEpochMilli(out))
+                        + ", after the day");
+            }
+            closedIns.add(in);
+            closedOuts.add(out);
+        }
+    }
+
+    // Sorts the member's closed shifts by clock-in once and reports each one that starts before an earlier one ends.
+    private void checkOverlaps() {
+        int n = closedIns.size;
+        if (n < 2) return;
+        long[][] shifts = new long[n][];
+        for (int i = 0; i < n; i++) shifts[i] = new long[]{closedIns.values[i], closedOuts.values[i]};
+        Arrays.sort(shifts, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        long latestOut = shifts[0][1];
+        for (int i = 1; i < n; i++) {
+            long in = shifts[i][0];
+            long out = shifts[i][1];
+            if (in < latestOut) {
+                finding(Finding.Kind.OVERLAP, days.dateKey(in), time.format(Instant.ofEpochMilli(in)) + " to "
+                        + time.format(Instant.ofEpochMilli(out)) + " overlaps an earlier shift by "
+                        + minutes(Math.min(out, latestOut) - in));
+            }
+            latestOut = Math.max(latestOut, out);
+        }
+    }
+
+    // Every open Shifts doc should be the one the openShift pointer names, and the pointer should name an open one.
+    private void checkOpenShifts() {
+        String pointerDate = openShift == null ? null : asString(openShift.get("date"));
+        String pointerId = openShift == null ? null : asString(openShift.get("shiftId"));
+        boolean pointerFound = false;
+        for (Map.Entry<String, Day> entry : live.entrySet()) {
+            Day day = entry.getValue();
+            for (int i = 0; i < day.shiftIds.size(); i++) {
+                if (day.shiftOuts.values[i] != ShiftLedger.OPEN) continue;
+                if (entry.getKey().equals(pointerDate) && day.shiftIds.get(i).equals(pointerId)) {
+                    pointerFound = true;
+                } else {
+                    finding(Finding.Kind.STRAY_OPEN_SHIFT, entry.getKey(), "Shifts/" + day.shiftIds.get(i)
+                            + " is open but openShift doesn't point at it");
+                }
+            }
+        }
+        if (openShift != null && !pointerFound) {
+            finding(Finding.Kind.DANGLING_POINTER, pointerDate, "openShift points at Shifts/" + pointerId
+                    + ", which is missing or closed");
+        }
+    }
+
+    // A live day where Shifts docs exist: the blob should hold the same closed shifts, in any order.
+    private void comparePacked(String date, Day day, long dayStart) {
+        int packedCount = decodePacked(date, day.packed, dayStart);
+        if (packedCount < 0) return;
+        long[] packed = pairs(ins, outs, packedCount);
+
+        int closed = 0;
+        for (int i = 0; i < day.shiftIds.size(); i++) {
+            if (day.shiftOuts.values[i] != ShiftLedger.OPEN) closed++;
+        }
+        long[] docIns = new long[closed];
+        long[] docOuts = new long[closed];
+        for (int i = 0, j = 0; i < day.shiftIds.size(); i++) {
+            if (day.shiftOuts.values[i] == ShiftLedger.OPEN) continue;
+            docIns[j] = day.shiftIns.values[i];
+            docOuts[j++] = day.shiftOuts.values[i];
+        }
+        if (!Arrays.equals(packed, pairs(docIns, docOuts, closed))) {
+            finding(Finding.Kind.PACKED_MISMATCH, date, "packedShifts holds " + packedCount + " shifts, Shifts docs "
+                    + closed + " closed, and they differ");
+        }
+    }
+
+    // Decodes a PackedShifts blob into ins/outs; returns the count, or -1 (with a finding) if it can't be read.
+    private int decodePacked(String date, byte[] packed, long dayStart) {
+        try {
+            int count = PackedShifts.count(packed);
+            ensure(count);
+            return PackedShifts.decode(packed, dayStart, ins, outs);
+        } catch (IllegalArgumentException e) {
+            finding(Finding.Kind.UNREADABLE, date, "packedShifts: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Schema 1 shifts array into ins/outs, as FirebaseHelper.toLedger: no inMillis is an empty shift, no outMillis is open.
+    private void legacyShifts(List<Map<String, Object>> legacy, long dayStart) {
+        for (int i = 0; i < legacy.size(); i++) {
+            Object shift = legacy.get(i);
+            Long in = shift instanceof Map ? asLong(((Map<?, ?>) shift).get("inMillis")) : null;
+            Long out = shift instanceof Map ? asLong(((Map<?, ?>) shift).get("outMillis")) : null;
+            if (in == null) {
+                ins[i] = dayStart;
+                outs[i] = dayStart;
+            } else {
+                ins[i] = in;
+                outs[i] = out == null ? ShiftLedger.OPEN : out;
+            }
+        }
+    }
+
+    private void addDay(String date, long dayStart, long totalMillis) {
+        memberWeeks.merge(days.dateKey(days.weekStart(dayStart)), totalMillis, Long::sum);
+        int year = Integer.parseInt(date.substring(0, 4));
+        int season = Integer.parseInt(date.substring(5, 7)) < SEASON_START_MONTH ? year - 1 : year;
+        long[] totals = memberSeasons.computeIfAbsent(season, k -> new long[2]);
+        totals[0] += totalMillis;
+        totals[1]++;
+    }
+
+    private void finding(Finding.Kind kind, String date, String detail) {
+        result.add(new Finding(kind, uid, date, detail));
+    }
+
+    private void ensure(int count) {
+        if (ins.length < count) {
+            ins = new long[Math.max(count, ins.length * 2)];
+            outs = new long[ins.length];
+        }
+    }
+
+    // in/out pairs interleaved and sorted, for an order-independent comparison.
+    private static long[] pairs(long[] ins, long[] outs, int count) {
+        long[][] sorted = new long[count][];
+        for (int i = 0; i < count; i++) sorted[i] = new long[]{ins[i], outs[i]};
+        Arrays.sort(sorted, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        long[] flat = new long[count * 2];
+        for (int i = 0; i < count; i++) {
+            flat[2 * i] = sorted[i][0];
+            flat[2 * i + 1] = sorted[i][1];
+        }
+        return flat;
+    }
+
+    private static String minutes(long millis) {
+        return String.format(Locale.ROOT, "%.1f min", millis / (double) MINUTE_MILLIS);
+    }
+
+    private static String signedMinutes(long millis) {
+        return String.format(Locale.ROOT, "%+.1f min", millis / (double) MINUTE_MILLIS);
+    }
+
+    private static Long asLong(Object value) {
+        if (value instanceof Long) return (Long) value;
+        if (value instanceof Number) return ((Number) value).longValue();
+        return null;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    // Blob fields are exported as base64 strings.
+    private byte[] blob(Object value) {
+        if (!(value instanceof String)) return null;
+        try {
+            return Base64.getDecoder().decode((String) value);
+        } catch (IllegalArgumentException e) {
+            finding(Finding.Kind.UNREADABLE, null, "bad base64 blob: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.crevolutionattendance.scanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * What a scan found: counts, integrity findings and team analytics. Each fork/join leaf fills its own
+ * ScanResult and the results are merged pairwise on the way back up, so nothing here is shared or locked.
+ */
+final class ScanResult {
+    int members;
+    long liveDays;
+    long archivedDays;
+    long shifts;
+    long indexMillis;
+    long checkMillis;
+
+    final List<Finding> findings = new ArrayList<>();
+
+    // Week start (YYYY-MM-DD, a Monday) -> each active member's millis that week.
+    final Map<String, LongList> weeks = new TreeMap<>();
+
+    // Season start year -> { millis, days, members }.
+    final Map<Integer, long[]> seasons = new TreeMap<>();
+
+    void add(Finding finding) {
+        findings.add(finding);
+    }
+
+    void addMemberWeek(String weekStart, long millis) {
+        weeks.computeIfAbsent(weekStart, k -> new LongList()).add(millis);
+    }
+
+    void addMemberSeason(int season, long millis, long days) {
+        long[] totals = seasons.computeIfAbsent(season, k -> new long[3]);
+        totals[0] += millis;
+        totals[1] += days;
+        totals[2]++;
+    }
+
+    ScanResult merge(ScanResult other) {
+        members += other.members;
+        liveDays += other.liveDays;
+        archivedDays += other.archivedDays;
+        shifts += other.shifts;
+        findings.addAll(other.findings);
+        for (Map.Entry<String, LongList> week : other.weeks.entrySet()) {
+            LongList mine = weeks.get(week.getKey());
+            if (mine == null) {
+                weeks.put(week.getKey(), week.getValue());
+            } else {
+                mine.addAll(week.getValue());
+            }
+        }
+        for (Map.Entry<Integer, long[]> season : other.seasons.entrySet()) {
+            long[] mine = seasons.computeIfAbsent(season.getKey(), k -> new long[3]);
+            for (int i = 0; i < mine.length; i++) mine[i] += season.getValue()[i];
+        }
+        return this;
+    }
+
+    void sortFindings() {
+        Collections.sort(findings);
+    }
+
+    Map<Finding.Kind, Integer> countsByKind() {
+        Map<Finding.Kind, Integer> counts = new EnumMap<>(Finding.Kind.class);
+        for (Finding finding : findings) counts.merge(finding.kind, 1, Integer::sum);
+        return counts;
+    }
+
+    // Nearest-rank percentile (0-100) of sorted values.
+    static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
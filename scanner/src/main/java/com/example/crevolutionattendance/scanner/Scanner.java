@@ -0,0 +1,270 @@
+package com.example.crevolutionattendance.scanner;
+
+import com.example.crevolutionattendance.ledger.DayClock;
+import com.example.crevolutionattendance.ledger.ShiftLedger;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Offline integrity checks and team analytics over a full LoggedHours export.
+ *
+ * Input is newline-delimited JSON, one Firestore document per line, with blob fields as base64 strings:
+ *      {"path": "LoggedHours/<uid>/Days/2026-10-17", "data": {"totalMillis": 7200000, "packedShifts": "AQI..."}}
+ * Lines for other collections are ignored, and documents can come in any order.
+ *
+ * 1. The export is memory-mapped (ExportFile) and indexed in parallel: each line's path is read to
+ *    group its position by member. Nothing else is parsed yet and the file never moves onto the heap.
+ * 2. Members are checked on a ForkJoinPool, a few per leaf task; each leaf parses only its members'
+ *    lines (MemberScan) into its own ScanResult, and the results are merged on the way back up.
+ * 3. The findings (see Finding.Kind), seasons and per-week hour distributions are printed, and
+ *    written as CSV with --out.
+ *
+ * Usage: scanner <export.ndjson> [--zone America/New_York] [--as-of YYYY-MM-DD] [--open-hours 24]
+ *                [--drift-millis 0] [--threads N] [--out DIR]
+ * Exits 0 when the export is clean, 1 when anything was found, 2 if it couldn't run.
+ */
+public final class Scanner {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    // Members per fork/join leaf: small enough to balance a team where a few members have most of the data.
+    private static final int MEMBERS_PER_TASK = 4;
+
+    // Findings printed to the console; --out gets all of them.
+    private static final int PRINTED_FINDINGS = 50;
+
+    static final class Options {
+        // The team's time zone: the one the app's DayClock is pinned to (team_time_zone).
+        TimeZone zone = TimeZone.getDefault();
+        // "Now" for open-shift ages; end of the --as-of day when given.
+        long asOfMillis = System.currentTimeMillis();
+        long maxOpenMillis = 24 * HOUR_MILLIS;
+        long driftMillis = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int segmentBytes = ExportFile.MAX_SEGMENT_BYTES;
+        int sliceBytes = 8 << 20;
+        Path out;
+    }
+
+    private Scanner() {
+    }
+
+    public static void main(String[] args) {
+        Options options = new Options();
+        Path export;
+        try {
+            export = parse(args, options);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: scanner <export.ndjson> [--zone America/New_York] [--as-of YYYY-MM-DD]"
+                    + " [--open-hours 24] [--drift-millis 0] [--threads N] [--out DIR]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            ScanResult result = scan(export, options);
+            print(result, options, System.out);
+            if (options.out != null) writeCsv(result, options.out);
+            System.exit(result.findings.isEmpty() ? 0 : 1);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Scan failed: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    static ScanResult scan(Path export, Options options) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        try (ExportFile file = ExportFile.open(export, options.segmentBytes)) {
+            long started = System.nanoTime();
+            Map<String, LongList> index = file.index(pool, options.sliceBytes);
+            long indexed = System.nanoTime();
+
+            // Sorted, so the work split (and the findings order before sorting) is the same on every run.
+            String[] uids = index.keySet().toArray(new String[0]);
+            Arrays.sort(uids);
+            ScanResult result = pool.invoke(new MemberTask(file, index, uids, 0, uids.length, options));
+            result.sortFindings();
+
+            result.indexMillis = (indexed - started) / 1_000_000;
+            result.checkMillis = (System.nanoTime() - indexed) / 1_000_000;
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static final class MemberTask extends RecursiveTask<ScanResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final ExportFile file;
+        private final Map<String, LongList> index;
+        private final String[] uids;
+        private final int from;
+        private final int to;
+        private final Options options;
+
+        MemberTask(ExportFile file, Map<String, LongList> index, String[] uids, int from, int to, Options options) {
+            this.file = file;
+            this.index = index;
+            this.uids = uids;
+            this.from = from;
+            this.to = to;
+            this.options = options;
+        }
+
+        @Override
+        protected ScanResult compute() {
+            if (to - from > MEMBERS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                MemberTask right = new MemberTask(file, index, uids, middle, to, options);
+                right.fork();
+                ScanResult left = new MemberTask(file, index, uids, from, middle, options).compute();
+                return left.merge(right.join());
+            }
+            ScanResult result = new ScanResult();
+            MemberScan scan = new MemberScan(options, result);
+            for (int i = from; i < to; i++) scan.scan(uids[i], index.get(uids[i]), file);
+            return result;
+        }
+    }
+
+    static Path parse(String[] args, Options options) {
+        Path export = null;
+        String asOf = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                if (export != null) throw new IllegalArgumentException("Only one export file, got " + arg);
+                export = Paths.get(arg);
+                continue;
+            }
+            if (i + 1 == args.length) throw new IllegalArgumentException(arg + " needs a value");
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--zone":
+                        options.zone = TimeZone.getTimeZone(value);
+                        if (!options.zone.getID().equals(value)) throw new IllegalArgumentException("Unknown zone " + value);
+                        break;
+                    case "--as-of":
+                        asOf = value;
+                        break;
+                    case "--open-hours":
+                        options.maxOpenMillis = (long) (Double.parseDouble(value) * HOUR_MILLIS);
+                        break;
+                    case "--drift-millis":
+                        options.driftMillis = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        options.threads = Integer.parseInt(value);
+                        if (options.threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+                        break;
+                    case "--out":
+                        options.out = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad number for " + arg + ": " + value);
+            }
+        }
+        if (export == null) throw new IllegalArgumentException("No export file given");
+        // Parsed last so it uses the final --zone: the end of that day, as if scanned just before midnight.
+        if (asOf != null) {
+            DayClock days = new DayClock(options.zone, System::currentTimeMillis);
+            options.asOfMillis = days.nextDayStart(days.startOfKey(asOf)) - 1;
+        }
+        return export;
+    }
+
+    static void print(ScanResult result, Options options, PrintStream out) {
+        out.printf(Locale.ROOT, "Scanned %d members: %d live days, %d archived days, %d shifts%n",
+                result.members, result.liveDays, result.archivedDays, result.shifts);
+        out.printf(Locale.ROOT, "Index %d ms, checks %d ms on %d threads; zone %s%n",
+                result.indexMillis, result.checkMillis, options.threads, options.zone.getID());
+
+        out.printf(Locale.ROOT, "%nFindings: %d%n", result.findings.size());
+        for (Map.Entry<Finding.Kind, Integer> count : result.countsByKind().entrySet()) {
+            out.printf(Locale.ROOT, "  %-18s %d%n", count.getKey(), count.getValue());
+        }
+        List<Finding> findings = result.findings;
+        for (int i = 0; i < Math.min(findings.size(), PRINTED_FINDINGS); i++) out.println("  " + findings.get(i));
+        if (findings.size() > PRINTED_FINDINGS) {
+            out.printf(Locale.ROOT, "  ... %d more%s%n", findings.size() - PRINTED_FINDINGS,
+                    options.out == null ? " (use --out to get them all)" : "");
+        }
+
+        out.printf(Locale.ROOT, "%nSeasons%n  %-6s %8s %8s %10s%n", "season", "members", "days", "hours");
+        for (Map.Entry<Integer, long[]> season : result.seasons.entrySet()) {
+            long[] totals = season.getValue();
+            out.printf(Locale.ROOT, "  %-6d %8d %8d %10.1f%n", season.getKey(), totals[2], totals[1],
+                    ShiftLedger.millisToHrs(totals[0]));
+        }
+
+        out.printf(Locale.ROOT, "%nWeekly hours per active member%n  %-10s %7s %8s %6s %6s %6s %6s%n",
+                "week", "members", "total", "mean", "p50", "p90", "max");
+        for (Map.Entry<String, LongList> week : result.weeks.entrySet()) {
+            out.println("  " + String.join(" ", weekRow(week.getKey(), week.getValue())));
+        }
+    }
+
+    // week, members, total, mean, p50, p90, max (hours), fixed-width for the console.
+    private static String[] weekRow(String week, LongList memberMillis) {
+        long[] sorted = memberMillis.sorted();
+        long total = 0;
+        for (long millis : sorted) total += millis;
+        return new String[]{
+                String.format(Locale.ROOT, "%-10s", week),
+                String.format(Locale.ROOT, "%7d", sorted.length),
+                String.format(Locale.ROOT, "%8.1f", ShiftLedger.millisToHrs(total)),
+                String.format(Locale.ROOT, "%6.1f", ShiftLedger.millisToHrs(total / (double) sorted.length)),
+                String.format(Locale.ROOT, "%6.1f", ShiftLedger.millisToHrs(ScanResult.percentile(sorted, 50))),
+                String.format(Locale.ROOT, "%6.1f", ShiftLedger.millisToHrs(ScanResult.percentile(sorted, 90))),
+                String.format(Locale.ROOT, "%6.1f", ShiftLedger.millisToHrs(sorted[sorted.length - 1]))};
+    }
+
+    // findings.csv (uid, date, kind, detail) and weeks.csv (one row per week, hours) in dir.
+    static void writeCsv(ScanResult result, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (Writer findings = Files.newBufferedWriter(dir.resolve("findings.csv"), StandardCharsets.UTF_8)) {
+            writeRow(findings, "uid", "date", "kind", "detail");
+            for (Finding finding : result.findings) {
+                writeRow(findings, finding.uid, finding.date, finding.kind, finding.detail);
+            }
+        }
+        try (Writer weeks = Files.newBufferedWriter(dir.resolve("weeks.csv"), StandardCharsets.UTF_8)) {
+            writeRow(weeks, "week", "members", "totalHours", "meanHours", "p50Hours", "p90Hours", "maxHours");
+            for (Map.Entry<String, LongList> week : result.weeks.entrySet()) {
+                String[] row = weekRow(week.getKey(), week.getValue());
+                for (int i = 0; i < row.length; i++) row[i] = row[i].trim();
+                writeRow(weeks, (Object[]) row);
+            }
+        }
+    }
+
+    // One RFC 4180 row, quoting only cells that need it (as the app's CsvWriter).
+    private static void writeRow(Writer out, Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) out.write(',');
+            String cell = cells[i] == null ? "" : cells[i].toString();
+            boolean quote = cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0
+                    || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0;
+            out.write(quote ? "\"" + cell.replace("\"", "\"\"") + "\"" : cell);
+        }
+        out.write("\r\n");
+    }
+}
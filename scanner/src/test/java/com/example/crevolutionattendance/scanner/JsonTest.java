@@ -0,0 +1,76 @@
+package com.example.crevolutionattendance.scanner;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JsonTest {
+
+    private static ByteBuffer bytes(String json) {
+        return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Object> parse(String json) {
+        ByteBuffer buf = bytes(json);
+        return Json.object(buf, 0, buf.limit());
+    }
+
+    @Test
+    public void parsesExportValues() {
+        Map<String, Object> line = parse("{\"path\": \"LoggedHours/u1/Days/2026-10-17\", \"data\": "
+                + "{\"totalMillis\": 7200000, \"totalShiftTime\": 2.0, \"admin\": true, \"openShift\": null,"
+                + " \"shifts\": [{\"inMillis\": -5}, []]}}");
+        assertEquals("LoggedHours/u1/Days/2026-10-17", line.get("path"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = (Map<String, Object>) line.get("data");
+        assertEquals(7_200_000L, data.get("totalMillis"));
+        assertEquals(2.0, data.get("totalShiftTime"));
+        assertEquals(Boolean.TRUE, data.get("admin"));
+        assertTrue(data.containsKey("openShift"));
+        assertNull(data.get("openShift"));
+        List<?> shifts = (List<?>) data.get("shifts");
+        assertEquals(2, shifts.size());
+        assertEquals(-5L, ((Map<?, ?>) shifts.get(0)).get("inMillis"));
+        assertEquals(Arrays.asList(), shifts.get(1));
+    }
+
+    @Test
+    public void decodesEscapesAndUtf8() {
+        Map<String, Object> line = parse("{\"username\": \"Zo\u00eb \\\"Z\\\" \\u00e9\\n\\\\ \u2603\"}");
+        assertEquals("Zo\u00eb \"Z\" \u00e9\n\\ \u2603", line.get("username"));
+    }
+
+    @Test
+    public void topLevelStringSkipsEverythingElse() {
+        String json = "{\"data\": {\"path\": \"nested\", \"list\": [\"]\", {\"}\": 1}]}, \"n\": 1.5e3, \"path\": \"a\\/b\"}";
+        ByteBuffer buf = bytes(json);
+        assertEquals("a/b", Json.topLevelString(buf, 0, buf.limit(), "path"));
+        assertNull(Json.topLevelString(buf, 0, buf.limit(), "n"));
+        assertNull(Json.topLevelString(buf, 0, buf.limit(), "missing"));
+    }
+
+    @Test
+    public void readsOnlyItsRangeOfASharedBuffer() {
+        ByteBuffer buf = bytes("{\"a\":1}\n{\"b\":2}\n");
+        assertEquals(2L, Json.object(buf, 8, 15).get("b"));
+        assertEquals(0, buf.position());
+    }
+
+    @Test
+    public void rejectsMalformedLines() {
+        for (String bad : new String[]{"", "[1]", "{\"a\": 1,}", "{\"a\": tru}", "{\"a\": \"open", "{\"a\": 1} x", "{\"a\": \"\\q\"}"}) {
+            try {
+                parse(bad);
+                fail("accepted " + bad);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}
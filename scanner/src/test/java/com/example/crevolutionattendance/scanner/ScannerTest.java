@@ -0,0 +1,194 @@
+package com.example.crevolutionattendance.scanner;
+
+import com.example.crevolutionattendance.ledger.DayClock;
+import com.example.crevolutionattendance.ledger.PackedShifts;
+import com.example.crevolutionattendance.ledger.SeasonArchive;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/*
+ * Scans a small hand-made export in which each member has one kind of problem,
+ * then scans it again cut into tiny segments and slices to check the split doesn't change the answer.
+ */
+public class ScannerTest {
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+    private static final DayClock DAYS = new DayClock(ZONE, () -> 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static long at(String date, double hour) {
+        return DAYS.startOfKey(date) + (long) (hour * HOUR);
+    }
+
+    private static String packed(String date, long[] ins, long[] outs) {
+        byte[] blob = PackedShifts.encode(DAYS.startOfKey(date), ins, outs, ins.length);
+        return "\"" + Base64.getEncoder().encodeToString(blob) + "\"";
+    }
+
+    private static String day(String uid, String date, long totalMillis, double rounded, String packed) {
+        return "{\"path\":\"LoggedHours/" + uid + "/Days/" + date + "\",\"data\":{\"date\":\"" + date
+                + "\",\"totalMillis\":" + totalMillis + ",\"totalShiftTime\":" + rounded
+                + (packed == null ? "" : ",\"packedShifts\":" + packed) + ",\"schema\":2}}";
+    }
+
+    private static String shift(String uid, String date, String id, long in, Long out) {
+        return "{\"path\":\"LoggedHours/" + uid + "/Days/" + date + "/Shifts/" + id + "\",\"data\":{\"inMillis\":" + in
+                + (out == null ? "" : ",\"outMillis\":" + out) + "}}";
+    }
+
+    private static List<String> export() {
+        List<String> lines = new ArrayList<>();
+        // Other collections are skipped.
+        lines.add("{\"path\":\"Punches/p1\",\"data\":{\"uid\":\"alice\",\"type\":\"IN\"}}");
+
+        // alice: clean, with last season compacted into an archive.
+        long in = at("2026-10-13", 15);
+        long out = at("2026-10-13", 18);
+        lines.add("{\"path\":\"LoggedHours/alice\",\"data\":{\"username\":\"Alice\",\"openShift\":null}}");
+        lines.add(day("alice", "2026-10-13", 3 * HOUR, 3.0, packed("2026-10-13", new long[]{in}, new long[]{out})));
+        lines.add(shift("alice", "2026-10-13", "s1", in, out));
+        List<SeasonArchive.Day> archived = Arrays.asList(
+                new SeasonArchive.Day("2025-03-03", 2 * HOUR, PackedShifts.encode(DAYS.startOfKey("2025-03-03"),
+                        new long[]{at("2025-03-03", 16)}, new long[]{at("2025-03-03", 18)}, 1)),
+                new SeasonArchive.Day("2025-03-04", HOUR, null));
+        lines.add("{\"path\":\"LoggedHours/alice/Archives/season-2024-0\",\"data\":{\"season\":2024,\"archive\":\""
+                + Base64.getEncoder().encodeToString(SeasonArchive.encode(archived)) + "\"}}");
+
+        // bob: overlapping shifts on the 14th, a total that drifted on the 15th, a backwards shift on the 16th.
+        lines.add(day("bob", "2026-10-14", 5 * HOUR, 5.0, null));
+        lines.add(shift("bob", "2026-10-14", "a", at("2026-10-14", 15), at("2026-10-14", 18)));
+        lines.add(shift("bob", "2026-10-14", "b", at("2026-10-14", 17), at("2026-10-14", 19)));
+        lines.add(day("bob", "2026-10-15", 4 * HOUR, 4.0, null));
+        lines.add(shift("bob", "2026-10-15", "c", at("2026-10-15", 15), at("2026-10-15", 18)));
+        lines.add(day("bob", "2026-10-16", 0, 0.0, null));
+        lines.add(shift("bob", "2026-10-16", "d", at("2026-10-16", 18), at("2026-10-16", 17)));
+
+        // carol: the shift her pointer names has been open for days, and an older one was never closed.
+        lines.add("{\"path\":\"LoggedHours/carol\",\"data\":{\"openShift\":{\"date\":\"2026-10-12\",\"shiftId\":\"open\","
+                + "\"inMillis\":" + at("2026-10-12", 15) + "}}}");
+        lines.add(day("carol", "2026-10-12", 0, 0.0, null));
+        lines.add(shift("carol", "2026-10-12", "open", at("2026-10-12", 15), null));
+        lines.add(day("carol", "2026-10-11", 0, 0.0, null));
+        lines.add(shift("carol", "2026-10-11", "stray", at("2026-10-11", 15), null));
+
+        // dave: a pointer to nothing, a blob that disagrees with its Shifts, a rounded total that's off.
+        lines.add("{\"path\":\"LoggedHours/dave\",\"data\":{\"openShift\":{\"date\":\"2026-10-17\",\"shiftId\":\"gone\"}}}");
+        lines.add(day("dave", "2026-10-13", 2 * HOUR, 2.5, packed("2026-10-13",
+                new long[]{at("2026-10-13", 15)}, new long[]{at("2026-10-13", 16)})));
+        lines.add(shift("dave", "2026-10-13", "e", at("2026-10-13", 15), at("2026-10-13", 17)));
+
+        // erin: a line that isn't valid JSON past its path, and Shifts under a day with no doc.
+        lines.add("{\"path\":\"LoggedHours/erin/Days/2026-10-13\",\"data\":{\"totalMillis\":1,}}");
+        lines.add(shift("erin", "2026-10-14", "f", at("2026-10-14", 15), at("2026-10-14", 16)));
+        return lines;
+    }
+
+    private Path write(List<String> lines) throws IOException {
+        Path file = folder.newFile("export.ndjson").toPath();
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static Scanner.Options options() {
+        Scanner.Options options = new Scanner.Options();
+        options.zone = ZONE;
+        options.asOfMillis = at("2026-10-18", 12);
+        options.threads = 2;
+        return options;
+    }
+
+    @Test
+    public void findsEachMembersProblem() throws Exception {
+        ScanResult result = Scanner.scan(write(export()), options());
+
+        assertEquals(5, result.members);
+        Map<Finding.Kind, Integer> counts = result.countsByKind();
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.OVERLAP));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.TOTAL_DRIFT));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.NEGATIVE_SHIFT));
+        assertEquals(Integer.valueOf(2), counts.get(Finding.Kind.OPEN_TOO_LONG));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.STRAY_OPEN_SHIFT));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.DANGLING_POINTER));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.PACKED_MISMATCH));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.ROUNDED_DRIFT));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.MISSING_DAY));
+        assertEquals(Integer.valueOf(1), counts.get(Finding.Kind.UNREADABLE));
+        assertNull(counts.get(Finding.Kind.OUTSIDE_DAY));
+        for (Finding finding : result.findings) assertNotEquals("alice", finding.uid);
+
+        Finding overlap = result.findings.get(0);
+        assertEquals("bob", overlap.uid);
+        assertEquals("2026-10-14", overlap.date);
+        assertTrue(overlap.detail, overlap.detail.endsWith("by 60.0 min"));
+    }
+
+    @Test
+    public void buildsSeasonAndWeekAnalytics() throws Exception {
+        ScanResult result = Scanner.scan(write(export()), options());
+
+        assertEquals(2, result.archivedDays);
+        long[] season2024 = result.seasons.get(2024);
+        assertEquals(3 * HOUR, season2024[0]);
+        assertEquals(2, season2024[1]);
+        assertEquals(1, season2024[2]);
+
+        // Week of Monday 2026-10-12: alice 3 h, bob 5 + 4 + 0 h, carol 0 h, dave 2 h, erin 1 h.
+        long[] week = result.weeks.get("2026-10-12").sorted();
+        assertArrayEquals(new long[]{0, HOUR, 2 * HOUR, 3 * HOUR, 9 * HOUR}, week);
+        assertEquals(2 * HOUR, ScanResult.percentile(week, 50));
+        assertEquals(9 * HOUR, ScanResult.percentile(week, 90));
+    }
+
+    @Test
+    public void tinySegmentsAndSlicesGiveTheSameAnswer() throws Exception {
+        Path file = write(export());
+        ScanResult whole = Scanner.scan(file, options());
+
+        Scanner.Options split = options();
+        split.segmentBytes = 700;
+        split.sliceBytes = 128;
+        split.threads = 4;
+        ScanResult pieces = Scanner.scan(file, split);
+
+        assertEquals(whole.findings.toString(), pieces.findings.toString());
+        assertEquals(whole.members, pieces.members);
+        assertEquals(whole.liveDays, pieces.liveDays);
+        assertEquals(whole.shifts, pieces.shifts);
+        assertEquals(whole.weeks.keySet(), pieces.weeks.keySet());
+        for (String week : whole.weeks.keySet()) {
+            assertArrayEquals(whole.weeks.get(week).sorted(), pieces.weeks.get(week).sorted());
+        }
+    }
+
+    @Test
+    public void asOfMeansTheEndOfThatDayInTheTeamZone() {
+        Scanner.Options options = new Scanner.Options();
+        Path export = Scanner.parse(new String[]{"--zone", "America/New_York", "export.ndjson", "--as-of", "2026-10-18"},
+                options);
+        assertEquals("export.ndjson", export.toString());
+        assertEquals(DAYS.startOfKey("2026-10-19") - 1, options.asOfMillis);
+        try {
+            Scanner.parse(new String[]{"export.ndjson", "--zone", "Mars/Olympus"}, new Scanner.Options());
+            fail("accepted an unknown zone");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
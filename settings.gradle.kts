@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Crevolution Attendance"
 include(":app")
+include(":ledger")
+include(":scanner")
  
\ No newline at end of file